@@ -0,0 +1,3 @@
+javac -d ./out/production/Project ./src/*.java ./src/parser/*.java ./src/semantic/*.java ./src/generation/*.java ./src/timing/*.java ./src/compiler/*.java
+javac -cp "./benchmark/lib/*;./out/production/Project" -d ./out/benchmark ./benchmark/src/parser/*.java ./benchmark/src/semantic/*.java ./benchmark/src/generation/*.java
+java -cp "./benchmark/lib/*;./out/benchmark;./out/production/Project" org.openjdk.jmh.Main -prof gc %*
\ No newline at end of file
@@ -0,0 +1,64 @@
+package generation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.Corpus;
+import semantic.IntermediateRepresentation;
+import semantic.SemanticException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole code generation of a file (allocation, optimization, assembly and writing the class file) from its IR
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodeGeneratorBenchmark {
+    @Param({"0", "255"})
+    public int maxRegisters;
+
+    @Param({"false", "true"})
+    public boolean optimize;
+
+    private Path outputPath;
+    private CodeGenerator codeGenerator;
+
+    @Setup
+    public void setup(Corpus corpus) throws SemanticException, IOException {
+        final IntermediateRepresentation ir = new IntermediateRepresentation(corpus.parse(), optimize);
+
+        outputPath = Files.createTempDirectory("jmm-benchmark");
+        codeGenerator = new CodeGenerator(ir, outputPath, maxRegisters, optimize, false,
+                new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(codeGenerator.getFilePath());
+        Files.deleteIfExists(outputPath);
+    }
+
+    @Benchmark
+    public void generateFile() throws AllocationException, GenerationException {
+        codeGenerator.generateFile();
+    }
+}
@@ -0,0 +1,78 @@
+package generation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import parser.Corpus;
+import parser.NodeTable;
+import semantic.FunctionTable;
+import semantic.IntermediateRepresentation;
+import semantic.PassManager;
+import semantic.SemanticException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optimization passes over every method of a file, after register allocation: those of -o on the code generated with
+ * it, those of the Code Cleanup on the code generated without it (as the CodeGenerator runs them)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OptimizerBenchmark {
+    private final PassManager optimizePasses = new PassManager(true);
+    private final PassManager cleanupPasses = new PassManager(false);
+
+    private final List<FunctionTable> optimizedMethods = new ArrayList<>();
+    private final List<FunctionTable> methods = new ArrayList<>();
+
+    @Setup
+    public void setup(Corpus corpus) throws SemanticException, AllocationException {
+        final NodeTable nodes = corpus.parse();
+
+        optimizedMethods.addAll(allocatedMethods(new IntermediateRepresentation(nodes, true)));
+        methods.addAll(allocatedMethods(new IntermediateRepresentation(nodes, false)));
+    }
+
+    private static List<FunctionTable> allocatedMethods(IntermediateRepresentation ir) throws AllocationException {
+        final RegisterAllocator allocator = new NaiveRegisterAllocator();
+        final List<FunctionTable> methods = new ArrayList<>();
+
+        if (ir.getMain() != null) {
+            allocator.allocate(ir.getMain(), 0);
+            methods.add(ir.getMain());
+        }
+
+        for (FunctionTable method : ir.getMethods().values()) {
+            allocator.allocate(method, 1);
+            methods.add(method);
+        }
+
+        return methods;
+    }
+
+    @Benchmark
+    public void optimize(Blackhole blackhole) {
+        for (FunctionTable method : optimizedMethods)
+            blackhole.consume(optimizePasses.run(method));
+    }
+
+    @Benchmark
+    public void cleanupCode(Blackhole blackhole) {
+        for (FunctionTable method : methods)
+            blackhole.consume(cleanupPasses.run(method));
+    }
+}
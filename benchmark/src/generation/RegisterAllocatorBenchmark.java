@@ -0,0 +1,66 @@
+package generation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.Corpus;
+import semantic.FunctionTable;
+import semantic.IntermediateRepresentation;
+import semantic.SemanticException;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Register allocation of every method of a file, with both allocators
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegisterAllocatorBenchmark {
+    @Param({"false", "true"})
+    public boolean optimize;
+
+    private IntermediateRepresentation ir;
+
+    private final RegisterAllocator naiveAllocator = new NaiveRegisterAllocator();
+    private final RegisterAllocator graphColoringAllocator =
+            new GraphColoringAllocator(255, new PrintStream(OutputStream.nullOutputStream()));
+
+    @Setup
+    public void setup(Corpus corpus) throws SemanticException {
+        ir = new IntermediateRepresentation(corpus.parse(), optimize);
+    }
+
+    @Benchmark
+    public int naive() throws AllocationException {
+        return allocate(naiveAllocator);
+    }
+
+    @Benchmark
+    public int graphColoring() throws AllocationException {
+        return allocate(graphColoringAllocator);
+    }
+
+    // Allocates every method as the CodeGenerator does, returning the total number of locals
+    private int allocate(RegisterAllocator allocator) throws AllocationException {
+        int locals = ir.getMain() != null ? allocator.allocate(ir.getMain(), 0) : 0;
+
+        for (FunctionTable method : ir.getMethods().values())
+            locals += allocator.allocate(method, 1);
+
+        return locals;
+    }
+}
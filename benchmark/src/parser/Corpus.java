@@ -0,0 +1,40 @@
+package parser;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Source file of the benchmarks, one of the files/*.jmm test files (every one that compiles successfully)
+ *
+ * The directory of the files can be changed with the system property jmm.corpus, and the files with -p file=...
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+    @Param({"ArrayClass", "CondChild", "CondClass", "FieldClass", "FindMaximum", "FirstClass", "HelloWorld",
+            "Lazysort", "Life", "MonteCarloPi", "QuickSort", "RegisterClass", "SimpleProgram"})
+    public String file;
+
+    public Path path() {
+        return Paths.get(System.getProperty("jmm.corpus", "files"), file + ".jmm");
+    }
+
+    /**
+     * Parses the file, without any output
+     *
+     * @return AST of the file
+     */
+    public NodeTable parse() {
+        final NodeTable nodes = Parser.parse(path().toString(), new PrintStream(OutputStream.nullOutputStream()));
+
+        if (nodes == null)
+            throw new IllegalStateException("File " + path() + " could not be parsed");
+
+        return nodes;
+    }
+}
@@ -0,0 +1,45 @@
+package parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing phase: building the AST of a file into a NodeTable (reading the file included)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    private Path path;
+
+    @Setup
+    public void setup(Corpus corpus) {
+        path = corpus.path();
+    }
+
+    @Benchmark
+    public NodeTable program() throws IOException, ParseException {
+        final MappedCharStream stream = new MappedCharStream(path);
+        final TokenTable tokens = new TokenTable(stream);
+
+        final Parser parser = new Parser(new TokenTableManager(stream, tokens));
+        parser.Program();
+
+        return parser.jjtree.nodeTable(tokens);
+    }
+}
@@ -0,0 +1,48 @@
+package semantic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.Corpus;
+import parser.NodeTable;
+import timing.PhaseTimer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Semantic analysis and Intermediate Code generation of a file, from its already built AST (and, with ssa, the
+ * optimization of the Intermediate Code in SSA form, as -O2)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntermediateRepresentationBenchmark {
+    @Param({"false", "true"})
+    public boolean optimize;
+
+    @Param({"false", "true"})
+    public boolean ssa;
+
+    private NodeTable nodes;
+
+    @Setup
+    public void setup(Corpus corpus) {
+        nodes = corpus.parse();
+    }
+
+    @Benchmark
+    public IntermediateRepresentation intermediateRepresentation() throws SemanticException {
+        return new IntermediateRepresentation(nodes, optimize || ssa, ssa, PhaseTimer.DISABLED);
+    }
+}
@@ -1 +1 @@
-javac -d ./out/production/Project ./src/parser/*.java ./src/semantic/*.java ./src/generation/*.java ./src/JMMCompiler.java
\ No newline at end of file
+javac -d ./out/production/Project ./src/*.java ./src/parser/*.java ./src/semantic/*.java ./src/generation/*.java ./src/timing/*.java ./src/compiler/*.java
\ No newline at end of file
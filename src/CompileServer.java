@@ -0,0 +1,170 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-lived compiler, receiving compile requests from stdin or from a Unix domain socket
+ *
+ * Keeping a single JVM alive across requests avoids its startup and keeps the compiler code JIT-compiled.
+ *
+ * Each request is a line with the command line arguments for a single file:
+ * [-r=n] [-o|-O2] [-j] [-time] [-cache] file_path
+ * Its response contains the messages of the compilation, followed by a status line: "END OK output_path" when the
+ * file was generated, "END FAILED" otherwise. Requests are compiled concurrently, but the responses of a client are
+ * always written in the order of its requests.
+ */
+class CompileServer {
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Serves the requests read from stdin until it is closed
+     *
+     * @throws IOException on error reading stdin
+     */
+    static void serveStdin() throws IOException {
+        serve(new BufferedReader(new InputStreamReader(System.in)), System.out);
+    }
+
+    /**
+     * Serves the requests of every client connecting to a Unix domain socket, each client on its own thread
+     *
+     * @param socketPath Path of the socket file (replaced if it already exists)
+     *
+     * @throws IOException on error creating or accepting connections on the socket
+     */
+    static void serveSocket(Path socketPath) throws IOException {
+        Files.deleteIfExists(socketPath);
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+
+            while (true) {
+                final SocketChannel client = server.accept();
+
+                executor.execute(() -> {
+                    try (SocketChannel channel = client;
+                         PrintStream out = new PrintStream(Channels.newOutputStream(channel), true)) {
+                        serve(new BufferedReader(Channels.newReader(channel, "UTF-8")), out);
+                    } catch (IOException ignored) {
+                        // Client disconnected
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Reads requests until the end of the input, compiling them concurrently and writing their responses in order
+     *
+     * @param in Source of requests (one per line)
+     * @param out Destination of the responses
+     *
+     * @throws IOException on error reading requests
+     */
+    private static void serve(BufferedReader in, PrintStream out) throws IOException {
+        CompletableFuture<Void> responses = CompletableFuture.completedFuture(null);
+
+        String request;
+        while ((request = in.readLine()) != null) {
+            if (request.isBlank())  continue;
+
+            final String[] args = request.trim().split("\\s+");
+            final CompletableFuture<String> response = CompletableFuture.supplyAsync(() -> handle(args), executor);
+
+            responses = responses.thenCombine(response, (previous, current) -> {
+                out.print(current);
+                out.flush();
+                return null;
+            });
+        }
+
+        responses.join();
+    }
+
+    /**
+     * Compiles a single request
+     *
+     * @param args Arguments of the request
+     *
+     * @return Full response to the request
+     */
+    private static String handle(String[] args) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (PrintStream out = new PrintStream(output)) {
+            Path generated = null;
+
+            try {
+                generated = compile(args, out);
+            } catch (RuntimeException e) {
+                out.println("Internal compiler error: " + e);
+            }
+
+            out.println(generated != null ? "END OK " + generated : "END FAILED");
+        }
+
+        return output.toString();
+    }
+
+    /**
+     * Parses the arguments of a request and compiles its file
+     *
+     * @param args Arguments of the request
+     * @param out Stream where the messages of the compilation are written to
+     *
+     * @return Path of the generated file, null if it was not generated
+     */
+    private static Path compile(String[] args, PrintStream out) {
+        int maxRegisters = 0;
+        boolean optimize = false;
+        boolean ssa = false;
+        boolean assembly = false;
+        boolean time = false;
+        boolean cache = false;
+
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].startsWith("-r=")) {
+                maxRegisters = Integer.parseInt(args[i].split("=")[1]);
+            } else if (args[i].equals("-o")) {
+                optimize = true;
+            } else if (args[i].equals("-O2")) {
+                optimize = true;
+                ssa = true;
+            } else if (args[i].equals("-j")) {
+                assembly = true;
+            } else if (args[i].equals("-time")) {
+                time = true;
+            } else if (args[i].equals("-cache")) {
+                cache = true;
+            } else {
+                out.println("Invalid command: " + args[i]);
+                return null;
+            }
+        }
+
+        final String file = args[args.length - 1];
+        if (!file.endsWith(".jmm")) {
+            out.println("Invalid file \"" + file + "\" (must have .jmm extension)");
+            return null;
+        }
+
+        return JMMCompiler.compile(Paths.get(file), maxRegisters, optimize, ssa, assembly, time, cache, out);
+    }
+}
@@ -1,11 +1,27 @@
 import generation.AllocationException;
 import generation.CodeGenerator;
+import generation.GenerationException;
+import generation.MethodCache;
+import parser.NodeTable;
 import parser.Parser;
-import parser.SimpleNode;
 import semantic.SemanticException;
 import semantic.IntermediateRepresentation;
+import timing.PhaseTimer;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /*
  As cenas do parser (1º checkpoint), estao todas no package parser. O main foi alterado para aqui.
@@ -33,7 +49,7 @@ import java.nio.file.Paths;
  O código intermédio contém já na maioria instruções da JVM (Tudo o q e a minusculas e instrução da JVM).
  Antes da geração de código é preciso trocar as variáveis pelas variáveis locais da JVM, representadas por números.
 
- Quanto ao código, ele está documentado e usa da parte do código gerado o SimpleNode e o ParserTreeConstants.
+ Quanto ao código, ele está documentado e usa da parte do código gerado a NodeTable e o ParserTreeConstants.
  Recomendo que começem a olhar para a IntermediateRepresentation e vão daí para baixo (SymbolTable, MethodSignature,
  FunctionTable, IntermediateCode). A análise semântica é feita na FunctionTable, a geração de codigo intermedio no
  IntermediateTable. O Type e usado em ambos e serve como uma representacao dum tipo.
@@ -43,53 +59,248 @@ import java.nio.file.Paths;
  * Main class which goes through all the steps of the compiler
  */
 public class JMMCompiler {
+    // Directory of the method cache (-cache), inside the output directory
+    private static final String METHOD_CACHE = ".jmmcache";
+
     /**
      * Main method which goes through all the steps of the compiler
      *
-     * @param args Contains one command line argument, corresponding to the path of the file to compile
+     * When given more than one file (or a directory), every file is compiled concurrently on a work-stealing pool.
+     * The messages of each file are buffered and printed in the order the files were given, so the output is the
+     * same as compiling them one after another.
+     *
+     * @param args Options followed by the paths of the files (or directories containing files) to compile
      */
     public static void main(String[] args) {
         int maxRegisters = 0;
         boolean optimize = false;
+        boolean ssa = false;
+        boolean assembly = false;
+        boolean time = false;
+        boolean cache = false;
+        boolean run = false;
 
-        if (args.length > 3 || args.length < 1) {
-            System.out.println ("Usage: .\\jmm [-r=<n>] [-o] <file_path>");
-            return;
-        }
-        else if (!args[args.length - 1].endsWith(".jmm")) {
-            System.out.println ("Invalid file \"" + args[0] + "\" (must have .jmm extension)");
+        if (args.length > 0 && args[0].startsWith("--server")) {
+            final String socketPath = args[0].startsWith("--server=") ? args[0].substring("--server=".length()) : null;
+
+            try {
+                if (socketPath == null)     CompileServer.serveStdin();
+                else                        CompileServer.serveSocket(Paths.get(socketPath));
+            } catch (IOException e) {
+                System.out.println("Compile server stopped: " + e.getMessage());
+            }
             return;
         }
 
-        for (int i = 0; i < args.length - 1; i++) {
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("-"); i++) {
             if (args[i].startsWith("-r=")) {
                 maxRegisters = Integer.parseInt(args[i].split("=")[1]);
-            } else if (args[i].equals("-o") && i == args.length - 2) {
+            } else if (args[i].equals("-o")) {
+                optimize = true;
+            } else if (args[i].equals("-O2")) {
                 optimize = true;
+                ssa = true;
+            } else if (args[i].equals("-j")) {
+                assembly = true;
+            } else if (args[i].equals("-time")) {
+                time = true;
+            } else if (args[i].equals("-cache")) {
+                cache = true;
+            } else if (args[i].equals("--run")) {
+                run = true;
             } else {
                 System.out.println("Invalid command: " + args[i]);
                 return;
             }
         }
 
+        if (i == args.length) {
+            System.out.println ("Usage: .\\jmm [-r=<n>] [-o|-O2] [-j] [-time] [-cache] <file_path|dir_path>...");
+            System.out.println ("       .\\jmm [-r=<n>] [-o|-O2] --run <file_path> [<program_args>...]");
+            System.out.println ("       .\\jmm --server[=<socket_path>]");
+            return;
+        }
+
+        if (run) {
+            if (!args[i].endsWith(".jmm")) {
+                System.out.println ("Invalid file \"" + args[i] + "\" (must have .jmm extension)");
+                return;
+            }
+
+            run(Paths.get(args[i]), maxRegisters, optimize, ssa, Arrays.copyOfRange(args, i + 1, args.length));
+            return;
+        }
+
+        final List<Path> files = new ArrayList<>();
+        for (; i < args.length; i++) {
+            final Path path = Paths.get(args[i]);
+
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> paths = Files.walk(path)) {
+                    files.addAll(paths.filter(file -> file.toString().endsWith(".jmm")).sorted()
+                            .collect(Collectors.toList()));
+                } catch (IOException e) {
+                    System.out.println("Could not read directory \"" + args[i] + "\"");
+                    return;
+                }
+            }
+            else if (!args[i].endsWith(".jmm")) {
+                System.out.println ("Invalid file \"" + args[i] + "\" (must have .jmm extension)");
+                return;
+            }
+            else {
+                files.add(path);
+            }
+        }
+
+        if (files.size() == 1) {
+            compile(files.get(0), maxRegisters, optimize, ssa, assembly, time, cache, System.out);
+            return;
+        }
+
+        final int registers = maxRegisters;
+        final boolean optimizeFiles = optimize;
+        final boolean ssaFiles = ssa;
+        final boolean assemblyFiles = assembly;
+        final boolean timeFiles = time;
+        final boolean cacheFiles = cache;
+        final ForkJoinPool pool = new ForkJoinPool();
+
+        final List<ForkJoinTask<String>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(pool.submit(() -> {
+                final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+                try (PrintStream out = new PrintStream(output)) {
+                    compile(file, registers, optimizeFiles, ssaFiles, assemblyFiles, timeFiles, cacheFiles, out);
+                }
+
+                return output.toString();
+            }));
+        }
+
+        for (ForkJoinTask<String> task : tasks) {
+            System.out.print(task.join());
+        }
+
+        pool.shutdown();
+    }
+
+    /**
+     * Goes through all the steps of the compiler for a single file
+     *
+     * @param file Path of the file to compile
+     * @param maxRegisters Maximum number of local variables (0 for naive allocation)
+     * @param optimize Whether the -o optimizations are performed
+     * @param ssa Whether the Intermediate Code is also optimized in SSA form (-O2)
+     * @param assembly Whether the Jasmin assembly (.j) is also written, besides the class file
+     * @param time Whether the time and allocations of each phase are reported (as a table and a JSON file), along with
+     * the changes made by each optimization pass
+     * @param cache Whether the code of the methods is reused from (and stored in) the cache of the output directory
+     * @param out Stream where the messages of this compilation are written to
+     *
+     * @return Path of the generated file, null if it was not generated
+     */
+    static Path compile(Path file, int maxRegisters, boolean optimize, boolean ssa, boolean assembly, boolean time,
+                        boolean cache, PrintStream out) {
+        if (!time)  return compile(file, maxRegisters, optimize, ssa, assembly, cache, out, PhaseTimer.DISABLED);
+
+        final PhaseTimer timer = new PhaseTimer();
+        final Path generated = compile(file, maxRegisters, optimize, ssa, assembly, cache, out, timer);
+
+        final String fileName = file.getFileName().toString();
+        final Path reportPath = file.resolveSibling(fileName.substring(0, fileName.lastIndexOf('.')) + ".time.json");
+
+        out.print(timer.toTable());
+        try {
+            Files.writeString(reportPath, timer.toJson(file.toString()));
+            out.println("Timing report written to " + reportPath);
+        } catch (IOException e) {
+            out.println("Timing report could not be written to " + reportPath);
+        }
+
+        return generated;
+    }
+
+    private static Path compile(Path file, int maxRegisters, boolean optimize, boolean ssa, boolean assembly,
+                                boolean cache, PrintStream out, PhaseTimer timer) {
         // Lexical and Syntactical Analysis
-        SimpleNode root = Parser.parse(args[args.length - 1]);
-        if (root == null)   return;
-        //root.dump("");
+        final PhaseTimer.Mark mark = timer.start();
+        final NodeTable nodes = Parser.parse(file.toString(), out);
+        timer.stop(mark, PhaseTimer.Phase.PARSING, null);
+        if (nodes == null)  return null;
 
         try {
             // Semantic Analysis and generation of HIR (Symbol Table + Intermediate HL Code)
-            IntermediateRepresentation ir = new IntermediateRepresentation(root.jjtGetChild(0), optimize);
+            IntermediateRepresentation ir = new IntermediateRepresentation(nodes, optimize, ssa, timer);
             //System.out.println(ir);
 
             // Register Allocation and Code Generation
-            CodeGenerator codeGenerator = new CodeGenerator(ir, Paths.get(args[args.length - 1]).getParent(),
-                    maxRegisters, optimize);
+            final Path directory = file.toAbsolutePath().getParent();
+            CodeGenerator codeGenerator = new CodeGenerator(ir, directory, maxRegisters, optimize, assembly, out, timer,
+                    cache ? new MethodCache(directory.resolve(METHOD_CACHE)) : null);
+            codeGenerator.setSourceFile(file.getFileName().toString());
             codeGenerator.generateFile();
-            System.out.println("Class file generated successfully.");
-        } catch (SemanticException | AllocationException e) {
-            System.out.println(e.getMessage());
-            System.out.println("Class file not generated with success.");
+            out.println("Class file generated successfully.");
+
+            // Changes made by the optimization passes, reported along with the measurements
+            if (timer.isEnabled())  out.print(codeGenerator.getPassManager());
+            return codeGenerator.getFilePath();
+        } catch (SemanticException | AllocationException | GenerationException e) {
+            out.println(e.getMessage());
+            out.println("Class file not generated with success.");
+            return null;
+        }
+    }
+
+    /**
+     * Compiles a file in memory and runs it in this JVM, through its own Class Loader
+     *
+     * The messages of the compilation are only printed (to stderr) when it fails, so the output is the program's own.
+     *
+     * @param file Path of the file to run
+     * @param maxRegisters Maximum number of local variables (0 for naive allocation)
+     * @param optimize Whether the -o optimizations are performed
+     * @param ssa Whether the Intermediate Code is also optimized in SSA form (-O2)
+     * @param programArgs Arguments given to the main method of the program
+     *
+     * @see ProgramClassLoader
+     */
+    private static void run(Path file, int maxRegisters, boolean optimize, boolean ssa, String[] programArgs) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final PrintStream out = new PrintStream(output);
+
+        final Path directory = file.toAbsolutePath().getParent();
+        final ProgramClassLoader classLoader;
+        final String className;
+
+        final NodeTable nodes = Parser.parse(file.toString(), out);
+        if (nodes == null) {
+            System.err.print(output);
+            return;
+        }
+
+        try {
+            IntermediateRepresentation ir = new IntermediateRepresentation(nodes, optimize, ssa, PhaseTimer.DISABLED);
+            CodeGenerator codeGenerator = new CodeGenerator(ir, directory, maxRegisters, optimize, false, out);
+            codeGenerator.setSourceFile(file.getFileName().toString());
+
+            className = ir.getClassIdentifier();
+            classLoader = new ProgramClassLoader(className, codeGenerator.generateClass(), directory);
+        } catch (SemanticException | AllocationException | GenerationException e) {
+            out.println(e.getMessage());
+            out.println("Class file not generated with success.");
+            System.err.print(output);
+            return;
+        }
+
+        try {
+            classLoader.loadClass(className).getMethod("main", String[].class).invoke(null, (Object) programArgs);
+        } catch (InvocationTargetException e) {
+            e.getCause().printStackTrace();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("Could not run " + className + ": " + e);
         }
     }
 }
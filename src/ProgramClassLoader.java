@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Class Loader of a compiled program, used to run it in the same JVM as the compiler
+ *
+ * The program class is defined from the bytes generated in memory. Since Java-- classes (as well as the runtime classes
+ * io, ioPlus and MathUtils) belong to the unnamed package and rely on package access, every class of the unnamed
+ * package is defined by this loader, from the directory of the source file or from the compiler classpath, so all of
+ * them share the same runtime package. Classes of named packages (java.*) are delegated to the parent loader.
+ */
+class ProgramClassLoader extends ClassLoader {
+    private final String className;
+    private final byte[] classFile;
+    private final Path directory;
+
+    /**
+     * Creates a Class Loader for a program
+     *
+     * @param className Name of the compiled class
+     * @param classFile Contents of the compiled class file
+     * @param directory Directory of the source file, where other classes of the program are searched
+     */
+    ProgramClassLoader(String className, byte[] classFile, Path directory) {
+        super(ProgramClassLoader.class.getClassLoader());
+        this.className = className;
+        this.classFile = classFile;
+        this.directory = directory;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (name.indexOf('.') >= 0)     return super.loadClass(name, resolve);
+
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            if (loadedClass == null)    loadedClass = findClass(name);
+            if (resolve)                resolveClass(loadedClass);
+
+            return loadedClass;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        if (name.equals(className))
+            return defineClass(name, classFile, 0, classFile.length);
+
+        try {
+            final Path file = directory.resolve(name + ".class");
+            if (Files.isRegularFile(file)) {
+                final byte[] bytes = Files.readAllBytes(file);
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+
+            try (InputStream resource = getParent().getResourceAsStream(name + ".class")) {
+                if (resource != null) {
+                    final byte[] bytes = resource.readAllBytes();
+                    return defineClass(name, bytes, 0, bytes.length);
+                }
+            }
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+
+        throw new ClassNotFoundException(name);
+    }
+}
@@ -0,0 +1,50 @@
+package compiler;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of the compilation of a source: the generated class when it succeeds, the errors found otherwise
+ */
+public class CompilationResult {
+    private final String className;
+    private final byte[] classFile;
+    private final String assembly;
+    private final List<Diagnostic> diagnostics;
+
+    /**
+     * @param className Name of the compiled class, null if unknown
+     * @param classFile Contents of the class file, null if not generated
+     * @param assembly Jasmin assembly of the class, null if not generated or not requested
+     * @param diagnostics Errors found
+     */
+    CompilationResult(String className, byte[] classFile, String assembly, List<Diagnostic> diagnostics) {
+        this.className = className;
+        this.classFile = classFile;
+        this.assembly = assembly;
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+    }
+
+    /**
+     * @return Whether the class file was generated
+     */
+    public boolean isSuccess() {
+        return classFile != null;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public byte[] getClassFile() {
+        return classFile;
+    }
+
+    public String getAssembly() {
+        return assembly;
+    }
+
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+}
@@ -0,0 +1,50 @@
+package compiler;
+
+/**
+ * Error found while compiling a source
+ */
+public class Diagnostic {
+    /**
+     * Phase of the compiler where the error was found
+     */
+    public enum Kind {SYNTAX, SEMANTIC, ALLOCATION, GENERATION}
+
+    private final Kind kind;
+    private final String message;
+    private final int line;
+    private final int column;
+
+    /**
+     * @param kind Phase where the error was found
+     * @param message Message of the error, as reported by the command line compiler
+     * @param line Line of the error, 0 if unknown
+     * @param column Column of the error, 0 if unknown
+     */
+    public Diagnostic(Kind kind, String message, int line, int column) {
+        this.kind = kind;
+        this.message = message;
+        this.line = line;
+        this.column = column;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,51 @@
+package compiler;
+
+/**
+ * Options of a compilation, the same ones given to the command line compiler
+ */
+public class Options {
+    public static final Options DEFAULT = new Options(0, false, false);
+
+    private final int maxRegisters;
+    private final boolean optimize;
+    private final boolean ssa;
+    private final boolean assembly;
+
+    /**
+     * @param maxRegisters Maximum number of local variables (0 for naive allocation), as -r
+     * @param optimize Whether the optimizations are performed, as -o
+     * @param assembly Whether the Jasmin assembly is also generated, as -j
+     */
+    public Options(int maxRegisters, boolean optimize, boolean assembly) {
+        this(maxRegisters, optimize, false, assembly);
+    }
+
+    /**
+     * @param maxRegisters Maximum number of local variables (0 for naive allocation), as -r
+     * @param optimize Whether the optimizations are performed, as -o
+     * @param ssa Whether the Intermediate Code is also optimized in SSA form, as -O2 (along with optimize)
+     * @param assembly Whether the Jasmin assembly is also generated, as -j
+     */
+    public Options(int maxRegisters, boolean optimize, boolean ssa, boolean assembly) {
+        this.maxRegisters = maxRegisters;
+        this.optimize = optimize;
+        this.ssa = ssa;
+        this.assembly = assembly;
+    }
+
+    public int getMaxRegisters() {
+        return maxRegisters;
+    }
+
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    public boolean isSSA() {
+        return ssa;
+    }
+
+    public boolean isAssembly() {
+        return assembly;
+    }
+}
@@ -0,0 +1,91 @@
+package compiler;
+
+import generation.AllocationException;
+import generation.CodeGenerator;
+import generation.GenerationException;
+import parser.NodeTable;
+import parser.ParseException;
+import parser.Parser;
+import parser.Token;
+import semantic.IntermediateRepresentation;
+import semantic.SemanticException;
+import timing.PhaseTimer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point for compiling a source held in memory, for embedding the compiler in other programs
+ *
+ * A compilation keeps all of its state in its own instances and doesn't write anything (to stdout or to files):
+ * the generated class and the errors are only returned in the CompilationResult. Any number of threads may call
+ * compile at the same time.
+ */
+public final class SourceCompiler {
+    private SourceCompiler() {}
+
+    /**
+     * Goes through all the steps of the compiler for a single source
+     *
+     * A source with syntax errors is not compiled further, even when the parser recovers from them.
+     *
+     * @param source Contents of the source
+     * @param options Options of the compilation
+     *
+     * @return Generated class (and assembly, if requested), or the errors that prevented its generation
+     */
+    public static CompilationResult compile(CharSequence source, Options options) {
+        final List<Diagnostic> diagnostics = new ArrayList<>();
+
+        // Lexical and Syntactical Analysis
+        final List<Throwable> errors = new ArrayList<>();
+        final NodeTable nodes = Parser.parse(source, errors);
+
+        for (Throwable error : errors)
+            diagnostics.add(syntaxDiagnostic(error));
+
+        if (nodes == null || !diagnostics.isEmpty())
+            return new CompilationResult(null, null, null, diagnostics);
+
+        IntermediateRepresentation ir = null;
+        try {
+            // Semantic Analysis and generation of HIR (Symbol Table + Intermediate HL Code)
+            ir = new IntermediateRepresentation(nodes, options.isOptimize(), options.isSSA(),
+                    PhaseTimer.DISABLED);
+
+            // Register Allocation and Code Generation
+            final CodeGenerator codeGenerator = new CodeGenerator(ir, null, options.getMaxRegisters(),
+                    options.isOptimize(), options.isAssembly(), new PrintStream(OutputStream.nullOutputStream()));
+
+            final StringWriter assembly = new StringWriter();
+            final byte[] classFile = codeGenerator.generateClass(assembly);
+
+            return new CompilationResult(ir.getClassIdentifier(), classFile,
+                    options.isAssembly() ? assembly.toString() : null, diagnostics);
+        } catch (SemanticException e) {
+            diagnostics.add(new Diagnostic(Diagnostic.Kind.SEMANTIC, e.getMessage(), e.getLine(), e.getColumn()));
+        } catch (AllocationException e) {
+            diagnostics.add(new Diagnostic(Diagnostic.Kind.ALLOCATION, e.getMessage(), 0, 0));
+        } catch (GenerationException e) {
+            diagnostics.add(new Diagnostic(Diagnostic.Kind.GENERATION, e.getMessage(), 0, 0));
+        }
+
+        return new CompilationResult(ir != null ? ir.getClassIdentifier() : null, null, null, diagnostics);
+    }
+
+    private static Diagnostic syntaxDiagnostic(Throwable error) {
+        final String message = error.getMessage() != null ? error.getMessage().trim() : error.toString();
+
+        if (error instanceof ParseException && ((ParseException) error).currentToken != null) {
+            final Token token = ((ParseException) error).currentToken.next;
+
+            if (token != null)
+                return new Diagnostic(Diagnostic.Kind.SYNTAX, message, token.beginLine, token.beginColumn);
+        }
+
+        return new Diagnostic(Diagnostic.Kind.SYNTAX, message, 0, 0);
+    }
+}
@@ -0,0 +1,551 @@
+package generation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writer of binary class files, assembling the generated code directly without going through Jasmin
+ *
+ * Method bodies are encoded from their JVM instructions with symbolic operands (constant values, slots, label numbers
+ * and member references), whether translated from the optimized Instructions or reused from the MethodCache. Labels are
+ * resolved to branch offsets once the whole method is known: branches take 16 bit offsets, unless one of them doesn't
+ * fit, in which case the method is encoded again with goto_w (conditional branches jumping over it when their
+ * condition is false).
+ *
+ * @see CodeGenerator
+ * @see JvmInstructions
+ */
+class ClassFileWriter {
+    private static final int MAJOR_VERSION = 49; // No StackMapTable required
+    private static final int MAX_CODE_LENGTH = 65535;
+    private static final int MAX_CONSTANTS = 65534;
+    private static final int MAX_UTF8_LENGTH = 65535;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAMEANDTYPE = 12;
+
+    private static final int LDC_W = 0x13;
+    private static final int WIDE = 0xc4;
+    private static final int GOTO_W = 0xc8;
+
+    private static final int T_INT = 10;
+
+    private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constantPool = new DataOutputStream(constantBytes);
+    private final Map<String, Integer> constantIndexes = new HashMap<>();
+    private int constantCount = 1;
+
+    // First string too long for a constant, reported once the class is written (its constant left empty until then)
+    private String oversizedString;
+
+    private final String className;
+    private final int thisClass;
+    private final int superClass;
+    private final int sourceFile;
+
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    /**
+     * Creates a writer for a public class
+     *
+     * @param className Internal name of the class
+     * @param superName Internal name of its super class
+     * @param sourceFile Name of the source file the class was compiled from
+     */
+    ClassFileWriter(String className, String superName, String sourceFile) {
+        this.className = className;
+        this.thisClass = classConstant(className);
+        this.superClass = classConstant(superName);
+        this.sourceFile = utf8Constant(sourceFile);
+    }
+
+    /**
+     * Adds a public field to the class
+     *
+     * @param name Field Identifier
+     * @param descriptor Field descriptor
+     */
+    void addField(String name, String descriptor) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream field = new DataOutputStream(bytes)) {
+            field.writeShort(ACC_PUBLIC);
+            field.writeShort(utf8Constant(name));
+            field.writeShort(utf8Constant(descriptor));
+            field.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        fields.add(bytes.toByteArray());
+    }
+
+    /**
+     * Adds the public default constructor of the class, which only invokes the constructor of its super class
+     *
+     * @param superName Internal name of the super class
+     */
+    void addConstructor(String superName) {
+        final Bytecode code = new Bytecode(false);
+
+        code.write(JvmInstructions.ALOAD_0);
+        code.invoke(JvmInstructions.INVOKESPECIAL, superName + "/<init>()V");
+        code.write(JvmInstructions.RETURN);
+
+        methods.add(method("<init>", "()V", false, 1, 1, code.toByteArray()));
+    }
+
+    /**
+     * Adds a public method to the class, encoding its instructions with 16 bit branch offsets, or with goto_w if any of
+     * them is out of range
+     *
+     * @param name Method Identifier
+     * @param descriptor Method descriptor
+     * @param isStatic Whether the method is static
+     * @param maxStack Maximum stack size of the method
+     * @param maxLocals Number of local variables of the method
+     * @param instructions Instructions of the method
+     *
+     * @throws GenerationException If the code of the method is too large
+     */
+    void addMethod(String name, String descriptor, boolean isStatic, int maxStack, int maxLocals,
+                   JvmInstructions instructions) throws GenerationException {
+        Bytecode code = new Bytecode(false);
+        encode(instructions, code);
+
+        if (!code.fitsBranches()) {
+            code = new Bytecode(true);
+            encode(instructions, code);
+        }
+
+        final byte[] bytecode = code.toByteArray();
+
+        if (bytecode.length > MAX_CODE_LENGTH)
+            throw new GenerationException("Method " + name + " is too large, its code takes " + bytecode.length
+                    + " bytes (at most " + MAX_CODE_LENGTH + ")");
+
+        methods.add(method(name, descriptor, isStatic, maxStack, maxLocals, bytecode));
+    }
+
+    private byte[] method(String name, String descriptor, boolean isStatic, int maxStack, int maxLocals,
+                          byte[] bytecode) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream method = new DataOutputStream(bytes)) {
+            method.writeShort(isStatic ? ACC_PUBLIC | ACC_STATIC : ACC_PUBLIC);
+            method.writeShort(utf8Constant(name));
+            method.writeShort(utf8Constant(descriptor));
+            method.writeShort(1);
+
+            // Code attribute
+            method.writeShort(utf8Constant("Code"));
+            method.writeInt(12 + bytecode.length);
+            method.writeShort(maxStack);
+            method.writeShort(maxLocals);
+            method.writeInt(bytecode.length);
+            method.write(bytecode);
+            method.writeShort(0); // Exception table
+            method.writeShort(0); // Attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return Contents of the class file
+     *
+     * @throws GenerationException If the class has too many constants, or a string too long for one
+     */
+    byte[] toByteArray() throws GenerationException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final int sourceFileAttribute = utf8Constant("SourceFile");
+
+        if (oversizedString != null)
+            throw new GenerationException("Constant \"" + oversizedString.substring(0, 32) + "...\" of class "
+                    + className + " is too long, its UTF-8 encoding takes " + utf8Length(oversizedString)
+                    + " bytes (at most " + MAX_UTF8_LENGTH + ")");
+
+        if (constantCount - 1 > MAX_CONSTANTS)
+            throw new GenerationException("Class " + className + " has too many constants, its constant pool takes "
+                    + (constantCount - 1) + " entries (at most " + MAX_CONSTANTS + ")");
+
+        try (DataOutputStream classFile = new DataOutputStream(bytes)) {
+            classFile.writeInt(0xCAFEBABE);
+            classFile.writeShort(0);
+            classFile.writeShort(MAJOR_VERSION);
+
+            classFile.writeShort(constantCount);
+            constantPool.flush();
+            constantBytes.writeTo(classFile);
+
+            classFile.writeShort(ACC_PUBLIC | ACC_SUPER);
+            classFile.writeShort(thisClass);
+            classFile.writeShort(superClass);
+            classFile.writeShort(0); // Interfaces
+
+            classFile.writeShort(fields.size());
+            for (byte[] field : fields)     classFile.write(field);
+
+            classFile.writeShort(methods.size());
+            for (byte[] method : methods)   classFile.write(method);
+
+            classFile.writeShort(1); // Attributes
+            classFile.writeShort(sourceFileAttribute);
+            classFile.writeInt(2);
+            classFile.writeShort(sourceFile);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encodes the instructions of a method, resolving their operands to the constant pool and branch offsets
+     *
+     * @param instructions Instructions of the method
+     * @param code Bytecode being encoded
+     */
+    private void encode(JvmInstructions instructions, Bytecode code) {
+        for (int i = 0; i < instructions.size(); i++) {
+            final int opcode = instructions.getOpcode(i), operand = instructions.getOperand(i);
+
+            switch (opcode) {
+                case JvmInstructions.LABEL:
+                    code.label(operand);
+                    break;
+                case JvmInstructions.BIPUSH:
+                case JvmInstructions.SIPUSH:
+                case JvmInstructions.LDC:
+                    code.constant(opcode, operand);
+                    break;
+                case JvmInstructions.ILOAD:
+                case JvmInstructions.ALOAD:
+                case JvmInstructions.ISTORE:
+                case JvmInstructions.ASTORE:
+                    code.local(opcode, operand);
+                    break;
+                case JvmInstructions.IINC:
+                    code.increment(operand, instructions.getIncrement(i));
+                    break;
+                case JvmInstructions.IFEQ:
+                case JvmInstructions.IFGT:
+                case JvmInstructions.IF_ICMPLT:
+                case JvmInstructions.IF_ICMPGE:
+                case JvmInstructions.GOTO:
+                    code.branch(opcode, operand);
+                    break;
+                case JvmInstructions.GETFIELD:
+                case JvmInstructions.PUTFIELD:
+                    final String field = instructions.getReference(i);
+                    final int separator = field.indexOf(' ');
+
+                    code.field(opcode, field.substring(0, separator), field.substring(separator + 1));
+                    break;
+                case JvmInstructions.INVOKEVIRTUAL:
+                case JvmInstructions.INVOKESPECIAL:
+                case JvmInstructions.INVOKESTATIC:
+                    code.invoke(opcode, instructions.getReference(i));
+                    break;
+                case JvmInstructions.NEW:
+                    code.write(opcode);
+                    code.writeShort(classConstant(instructions.getReference(i)));
+                    break;
+                case JvmInstructions.NEWARRAY:
+                    code.write(opcode);
+                    code.write(T_INT);
+                    break;
+                default:
+                    code.write(opcode);
+            }
+        }
+    }
+
+    /**
+     * Code of a method being encoded
+     *
+     * The instructions are encoded in a first pass, keeping the positions of labels and branches, whose offsets are
+     * then filled in when the bytecode is retrieved. With wide branches, each goto is encoded as goto_w, and each
+     * conditional branch as the opposite condition jumping over a goto_w to its target.
+     */
+    private class Bytecode {
+        private final boolean wideBranches;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Map<Integer, Integer> labelOffsets = new HashMap<>();
+
+        // Offset of the branch instruction, offset of its jump operand and its label, for each branch
+        private final List<int[]> branches = new ArrayList<>();
+
+        /**
+         * @param wideBranches Whether branches are encoded with 32 bit offsets
+         */
+        Bytecode(boolean wideBranches) {
+            this.wideBranches = wideBranches;
+        }
+
+        void write(int value) {
+            bytes.write(value);
+        }
+
+        void writeShort(int value) {
+            bytes.write(value >> 8);
+            bytes.write(value);
+        }
+
+        void writeInt(int value) {
+            writeShort(value >> 16);
+            writeShort(value);
+        }
+
+        void label(int label) {
+            labelOffsets.put(label, bytes.size());
+        }
+
+        void constant(int opcode, int value) {
+            if (opcode == JvmInstructions.LDC) {
+                final int constant = integerConstant(value);
+
+                if (constant > 0xff) {
+                    write(LDC_W);
+                    writeShort(constant);
+                } else {
+                    write(JvmInstructions.LDC);
+                    write(constant);
+                }
+            }
+            else {
+                write(opcode);
+                if (opcode == JvmInstructions.BIPUSH)   write(value);
+                else                                    writeShort(value);
+            }
+        }
+
+        void local(int opcode, int slot) {
+            if (slot < 0)
+                throw new IllegalArgumentException("Unallocated local variable");
+
+            if (slot > 0xff) {
+                write(WIDE);
+                write(opcode);
+                writeShort(slot);
+            } else {
+                write(opcode);
+                write(slot);
+            }
+        }
+
+        void increment(int slot, int increment) {
+            if (slot < 0)
+                throw new IllegalArgumentException("Unallocated local variable");
+
+            if (slot > 0xff || increment < Byte.MIN_VALUE || increment > Byte.MAX_VALUE) {
+                write(WIDE);
+                write(JvmInstructions.IINC);
+                writeShort(slot);
+                writeShort(increment);
+            } else {
+                write(JvmInstructions.IINC);
+                write(slot);
+                write(increment);
+            }
+        }
+
+        void branch(int opcode, int label) {
+            if (!wideBranches) {
+                branches.add(new int[]{bytes.size(), bytes.size() + 1, label});
+                write(opcode);
+                writeShort(0);
+                return;
+            }
+
+            if (opcode != JvmInstructions.GOTO) {
+                // Opposite condition, jumping over the goto_w
+                write(((opcode - JvmInstructions.IFEQ) ^ 1) + JvmInstructions.IFEQ);
+                writeShort(8);
+            }
+
+            branches.add(new int[]{bytes.size(), bytes.size() + 1, label});
+            write(GOTO_W);
+            writeInt(0);
+        }
+
+        /**
+         * @param opcode getfield or putfield
+         * @param field Field in the format class/name
+         * @param descriptor Field descriptor
+         */
+        void field(int opcode, String field, String descriptor) {
+            write(opcode);
+            writeShort(memberConstant(CONSTANT_FIELDREF, field, descriptor));
+        }
+
+        /**
+         * @param opcode Invoke opcode
+         * @param method Method in the format class/name(parameters)return
+         */
+        void invoke(int opcode, String method) {
+            final int parametersIndex = method.indexOf('(');
+
+            write(opcode);
+            writeShort(memberConstant(CONSTANT_METHODREF,
+                    method.substring(0, parametersIndex), method.substring(parametersIndex)));
+        }
+
+        /**
+         * @return Whether the offsets of all branches fit in the encoding of this code
+         */
+        boolean fitsBranches() {
+            if (wideBranches)   return true;
+
+            for (int[] branch : branches) {
+                final int jump = target(branch) - branch[0];
+                if (jump < Short.MIN_VALUE || jump > Short.MAX_VALUE)  return false;
+            }
+
+            return true;
+        }
+
+        /**
+         * @return Bytecode of the method, with the offsets of the branches filled in
+         */
+        byte[] toByteArray() {
+            final byte[] instructions = bytes.toByteArray();
+
+            for (int[] branch : branches) {
+                final int jump = target(branch) - branch[0];
+
+                if (wideBranches) {
+                    instructions[branch[1]] = (byte) (jump >> 24);
+                    instructions[branch[1] + 1] = (byte) (jump >> 16);
+                    instructions[branch[1] + 2] = (byte) (jump >> 8);
+                    instructions[branch[1] + 3] = (byte) jump;
+                } else {
+                    instructions[branch[1]] = (byte) (jump >> 8);
+                    instructions[branch[1] + 1] = (byte) jump;
+                }
+            }
+
+            return instructions;
+        }
+
+        private int target(int[] branch) {
+            final Integer target = labelOffsets.get(branch[2]);
+            if (target == null)
+                throw new IllegalArgumentException("Undefined label: L" + branch[2]);
+
+            return target;
+        }
+    }
+
+    private int utf8Constant(String value) {
+        final boolean oversized = utf8Length(value) > MAX_UTF8_LENGTH;
+        if (oversized && oversizedString == null)   oversizedString = value;
+
+        return constant("U" + value, pool -> {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(oversized ? "" : value);
+        });
+    }
+
+    /**
+     * @return Length of the string in the modified UTF-8 of class files (two bytes for the null character)
+     */
+    private static int utf8Length(String value) {
+        int length = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            if (c >= 0x0001 && c <= 0x007f)     length++;
+            else if (c <= 0x07ff)               length += 2;
+            else                                length += 3;
+        }
+
+        return length;
+    }
+
+    private int integerConstant(int value) {
+        return constant("I" + value, pool -> {
+            pool.writeByte(CONSTANT_INTEGER);
+            pool.writeInt(value);
+        });
+    }
+
+    private int classConstant(String className) {
+        final int name = utf8Constant(className);
+
+        return constant("C" + className, pool -> {
+            pool.writeByte(CONSTANT_CLASS);
+            pool.writeShort(name);
+        });
+    }
+
+    /**
+     * Retrieves the constant of a field or method reference
+     *
+     * @param tag Constant tag (Fieldref or Methodref)
+     * @param member Member in the format class/name
+     * @param descriptor Member descriptor
+     *
+     * @return Index of the constant
+     */
+    private int memberConstant(int tag, String member, String descriptor) {
+        final int separator = member.lastIndexOf('/');
+        final int owner = classConstant(member.substring(0, separator));
+        final int name = utf8Constant(member.substring(separator + 1));
+        final int type = utf8Constant(descriptor);
+
+        final int nameAndType = constant("N" + member.substring(separator + 1) + " " + descriptor, pool -> {
+            pool.writeByte(CONSTANT_NAMEANDTYPE);
+            pool.writeShort(name);
+            pool.writeShort(type);
+        });
+
+        return constant(tag + member + " " + descriptor, pool -> {
+            pool.writeByte(tag);
+            pool.writeShort(owner);
+            pool.writeShort(nameAndType);
+        });
+    }
+
+    /**
+     * Retrieves the index of a constant, adding it to the constant pool if it was not added yet
+     *
+     * @param key Unique key of the constant
+     * @param writer Writes the constant to the pool
+     *
+     * @return Index of the constant
+     */
+    private int constant(String key, ConstantWriter writer) {
+        final Integer index = constantIndexes.get(key);
+        if (index != null)  return index;
+
+        try {
+            writer.write(constantPool);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        constantIndexes.put(key, constantCount);
+        return constantCount++;
+    }
+
+    private interface ConstantWriter {
+        void write(DataOutputStream pool) throws IOException;
+    }
+}
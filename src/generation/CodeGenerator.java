@@ -1,82 +1,403 @@
 package generation;
 
 import semantic.FunctionTable;
-import semantic.IntermediateInstruction;
+import semantic.InstructionTable;
 import semantic.IntermediateRepresentation;
 import semantic.MethodSignature;
-import semantic.Type;
+import semantic.PassManager;
+import semantic.Symbol;
+import timing.PhaseTimer;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
 
+/**
+ * Generates the class file (and Jasmin assembly) of an Intermediate Representation
+ *
+ * The register allocation and optimization of each method are performed in parallel (as ForkJoin tasks), each with its
+ * own buffered log, while the methods are emitted sequentially in the order they are declared in, so the output
+ * doesn't depend on the scheduling of the tasks. Methods are optimized by the passes of a single PassManager, which
+ * counts the changes each pass makes over the whole class, and their optimized Instructions are translated to JVM
+ * instructions, encoded to the class file; their Jasmin text is only rendered for the assembly and for the MethodCache.
+ * Given a MethodCache, the code of each method is reused from it when the content hash of the method is unchanged, and
+ * stored in it otherwise.
+ *
+ * @see MethodCache
+ * @see PassManager
+ */
 public class CodeGenerator {
-    private final RegisterAllocator registerAllocator;
+    private final int maxRegisters;
+    private final PrintStream out;
     private final IntermediateRepresentation ir;
     private final Path filePath;
+    private final Path assemblyPath;
     private final boolean optimize;
+    private final PhaseTimer timer;
+    private final MethodCache cache;
+    private final PassManager passes;
+    private String sourceFile;
 
     public CodeGenerator(IntermediateRepresentation ir, Path outputPath, int maxRegisters, boolean optimize) {
-        this.registerAllocator = maxRegisters > 0
-                ? new GraphColoringAllocator(maxRegisters)
-                : new NaiveRegisterAllocator();
+        this(ir, outputPath, maxRegisters, optimize, false, System.out);
+    }
+
+    /**
+     * Creates a Code Generator for a class
+     *
+     * @param ir Intermediate Representation of the class
+     * @param outputPath Directory where the generated files are written to
+     * @param maxRegisters Maximum number of local variables (0 for naive allocation)
+     * @param optimize Whether the -o optimizations are performed
+     * @param assembly Whether the Jasmin assembly (.j) is also written, besides the class file
+     * @param out Stream where the messages of the generation are written to
+     */
+    public CodeGenerator(IntermediateRepresentation ir, Path outputPath, int maxRegisters, boolean optimize,
+                         boolean assembly, PrintStream out) {
+        this(ir, outputPath, maxRegisters, optimize, assembly, out, PhaseTimer.DISABLED);
+    }
+
+    /**
+     * Creates a Code Generator for a class, measuring the time and allocations of each phase of each method
+     *
+     * @param ir Intermediate Representation of the class
+     * @param outputPath Directory where the generated files are written to (null if only generated in memory)
+     * @param maxRegisters Maximum number of local variables (0 for naive allocation)
+     * @param optimize Whether the -o optimizations are performed
+     * @param assembly Whether the Jasmin assembly (.j) is also written, besides the class file
+     * @param out Stream where the messages of the generation are written to
+     * @param timer Timer where the measurements are recorded
+     */
+    public CodeGenerator(IntermediateRepresentation ir, Path outputPath, int maxRegisters, boolean optimize,
+                         boolean assembly, PrintStream out, PhaseTimer timer) {
+        this(ir, outputPath, maxRegisters, optimize, assembly, out, timer, null);
+    }
+
+    /**
+     * Creates a Code Generator for a class, reusing the code of the methods whose content hash is in a cache
+     *
+     * @param ir Intermediate Representation of the class
+     * @param outputPath Directory where the generated files are written to (null if only generated in memory)
+     * @param maxRegisters Maximum number of local variables (0 for naive allocation)
+     * @param optimize Whether the -o optimizations are performed
+     * @param assembly Whether the Jasmin assembly (.j) is also written, besides the class file
+     * @param out Stream where the messages of the generation are written to
+     * @param timer Timer where the measurements are recorded
+     * @param cache Cache of the code of the methods (null if not cached)
+     */
+    public CodeGenerator(IntermediateRepresentation ir, Path outputPath, int maxRegisters, boolean optimize,
+                         boolean assembly, PrintStream out, PhaseTimer timer, MethodCache cache) {
+        this.maxRegisters = maxRegisters;
+        this.out = out;
         this.ir = ir;
-        this.filePath = outputPath.resolve(ir.getClassIdentifier() + ".j");
+        this.filePath = outputPath != null ? outputPath.resolve(ir.getClassIdentifier() + ".class") : null;
+        this.assemblyPath = assembly && outputPath != null ? outputPath.resolve(ir.getClassIdentifier() + ".j") : null;
         this.optimize = optimize;
+        this.timer = timer;
+        this.cache = cache;
+        this.passes = new PassManager(optimize);
+        this.sourceFile = ir.getClassIdentifier() + ".jmm";
     }
 
-    public void generateFile() throws AllocationException {
-        try (PrintWriter pw = new PrintWriter(Files.newOutputStream(filePath))) {
-            final String fileClass = ir.getClassIdentifier();
-            final String superClass = ir.getExtendIdentifier() != null ? ir.getExtendIdentifier() : "java/lang/Object";
+    /**
+     * @param sourceFile Name of the source file of the class, recorded in the class file (its class name with the .jmm
+     *                   extension by default)
+     */
+    public void setSourceFile(String sourceFile) {
+        this.sourceFile = sourceFile;
+    }
 
-            pw.println(".class public " + fileClass);
-            pw.println(".super " + superClass + System.lineSeparator());
+    /**
+     * Generates the class file, as well as the Jasmin assembly if requested
+     *
+     * @throws AllocationException when the methods require more local variables than allowed
+     * @throws GenerationException when the code of a method doesn't fit in the class file
+     */
+    public void generateFile() throws AllocationException, GenerationException {
+        final StringWriter assembly = new StringWriter();
+        final byte[] classFile = generateClass(assembly, assemblyPath != null);
 
-            for (Map.Entry<String, Type> fieldEntry : ir.getAttributes().entrySet()) {
-                pw.println(".field public '" + fieldEntry.getKey() + "' " + fieldEntry.getValue().toDescriptor());
-            }
+        final PhaseTimer.Mark mark = timer.start();
+        try {
+            Files.write(filePath, classFile);
+
+            if (assemblyPath != null)
+                Files.writeString(assemblyPath, assembly.toString());
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+        timer.stop(mark, PhaseTimer.Phase.EMISSION, null);
+    }
+
+    /**
+     * Generates the class file in memory
+     *
+     * @return Contents of the class file
+     *
+     * @throws AllocationException when the methods require more local variables than allowed
+     * @throws GenerationException when the code of a method doesn't fit in the class file
+     */
+    public byte[] generateClass() throws AllocationException, GenerationException {
+        return generateClass(Writer.nullWriter(), false);
+    }
 
-            pw.println(System.lineSeparator() + ".method public <init>()V");
-            pw.println("\taload_0");
-            pw.println("\tinvokenonvirtual " + superClass + "/<init>()V");
-            pw.println("\treturn");
+    /**
+     * Generates the class file in memory, writing its Jasmin assembly to the given writer
+     *
+     * @param assembly Writer where the assembly is written to
+     *
+     * @return Contents of the class file
+     *
+     * @throws AllocationException when the methods require more local variables than allowed
+     * @throws GenerationException when the code of a method doesn't fit in the class file
+     */
+    public byte[] generateClass(Writer assembly) throws AllocationException, GenerationException {
+        return generateClass(assembly, true);
+    }
+
+    private byte[] generateClass(Writer assembly, boolean render) throws AllocationException, GenerationException {
+        final PrintWriter pw = new PrintWriter(assembly);
+        final String fileClass = ir.getClassIdentifier();
+        final String superClass = ir.getExtendIdentifier() != null ? ir.getExtendIdentifier() : "java/lang/Object";
+
+        final PhaseTimer.Mark mark = timer.start();
+        final ClassFileWriter classFile = new ClassFileWriter(fileClass, superClass, sourceFile);
+
+        pw.println(".source " + sourceFile);
+        pw.println(".class public " + fileClass);
+        pw.println(".super " + superClass + System.lineSeparator());
+
+        for (Symbol field : ir.getAttributes().getSymbols()) {
+            pw.println(".field public '" + field.getName() + "' " + field.getType().toDescriptor());
+            classFile.addField(field.getName(), field.getType().toDescriptor());
+        }
+
+        pw.println(System.lineSeparator() + ".method public <init>()V");
+        pw.println("\taload_0");
+        pw.println("\tinvokenonvirtual " + superClass + "/<init>()V");
+        pw.println("\treturn");
+        pw.println(".end method");
+        classFile.addConstructor(superClass);
+        timer.stop(mark, PhaseTimer.Phase.EMISSION, null);
+
+        final FunctionTable main = ir.getMain();
+        final ForkJoinTask<MethodCode> mainTask = main != null
+                ? generateMethod("main", main, 0, true)
+                : null;
+
+        final List<ForkJoinTask<MethodCode>> methodTasks = new ArrayList<>(ir.getMethods().size());
+        for (Map.Entry<MethodSignature, FunctionTable> methodEntry : ir.getMethods().entrySet())
+            methodTasks.add(generateMethod(methodEntry.getKey().toString(), methodEntry.getValue(), 1, false));
+
+        if (mainTask != null) {
+            pw.println(System.lineSeparator() + ".method public static main([Ljava/lang/String;)V");
+            emitMethod(pw, render, classFile, "main", "([Ljava/lang/String;)V", true, mainTask.join());
             pw.println(".end method");
+        }
 
-            FunctionTable main = ir.getMain();
-            if (main != null) {
-                pw.println(System.lineSeparator() + ".method public static main([Ljava/lang/String;)V");
-                generateMethod(pw, main, 0);
-                pw.println("\treturn");
-                pw.println(".end method");
-            }
+        int i = 0;
+        for (Map.Entry<MethodSignature, FunctionTable> methodEntry : ir.getMethods().entrySet()) {
+            final String descriptor = methodEntry.getKey().toDescriptor(methodEntry.getValue().getReturnType());
+            final int parametersIndex = descriptor.indexOf('(');
+
+            pw.println(System.lineSeparator() + ".method public " + descriptor);
+            emitMethod(pw, render, classFile, descriptor.substring(0, parametersIndex),
+                    descriptor.substring(parametersIndex), false, methodTasks.get(i++).join());
+            pw.println(".end method");
+        }
 
-            for (Map.Entry<MethodSignature, FunctionTable> methodEntry : ir.getMethods().entrySet()) {
-                pw.println(System.lineSeparator() + ".method public " + methodEntry.getKey().toDescriptor(null));
-                generateMethod(pw, methodEntry.getValue(), 1);
-                pw.println(".end method");
+        final PhaseTimer.Mark classMark = timer.start();
+        pw.flush();
+        final byte[] bytes = classFile.toByteArray();
+        timer.stop(classMark, PhaseTimer.Phase.EMISSION, null);
+
+        return bytes;
+    }
+
+    /**
+     * Code of a method, ready to be emitted
+     *
+     * Generated methods hold their JVM instructions and their optimized Instructions, rendered as text only when
+     * needed, while the ones reused from the MethodCache hold their JVM instructions and their text.
+     */
+    static class MethodCode {
+        final String methodName;
+        final String log;
+        final AllocationException error;
+        final int maxLocals;
+        final int maxStack;
+        final JvmInstructions instructions;
+        private final InstructionTable optimizedInstructions;
+        private final boolean isVoid;
+        private String code;
+
+        /**
+         * @param methodName Name of the method in the measurements
+         * @param log Messages logged by the generation of the method
+         * @param error Allocation error of the method, null if it was generated
+         * @param maxLocals Number of local variables of the method
+         * @param maxStack Maximum stack size of the method
+         * @param instructions JVM instructions of the method
+         * @param optimizedInstructions Optimized Instructions of the method
+         * @param isVoid Whether the method returns void, so a return follows its Instructions
+         */
+        MethodCode(String methodName, String log, AllocationException error, int maxLocals, int maxStack,
+                   JvmInstructions instructions, InstructionTable optimizedInstructions, boolean isVoid) {
+            this.methodName = methodName;
+            this.log = log;
+            this.error = error;
+            this.maxLocals = maxLocals;
+            this.maxStack = maxStack;
+            this.instructions = instructions;
+            this.optimizedInstructions = optimizedInstructions;
+            this.isVoid = isVoid;
+        }
+
+        /**
+         * @param methodName Name of the method in the measurements
+         * @param log Messages logged by the generation of the method
+         * @param maxLocals Number of local variables of the method
+         * @param maxStack Maximum stack size of the method
+         * @param instructions JVM instructions of the method
+         * @param code Instructions of the method, one per line, in Jasmin syntax
+         */
+        MethodCode(String methodName, String log, int maxLocals, int maxStack, JvmInstructions instructions,
+                   String code) {
+            this(methodName, log, null, maxLocals, maxStack, instructions, null, false);
+            this.code = code;
+        }
+
+        /**
+         * @return Instructions of the method, one per line, in Jasmin syntax
+         */
+        String getCode() {
+            if (code == null)
+                code = optimizedInstructions + (isVoid ? "\treturn" + System.lineSeparator() : "");
+
+            return code;
+        }
+    }
+
+    /**
+     * Starts the register allocation and optimization of a method on the current ForkJoin pool (the common pool, when
+     * not called from one), unless its code is found in the cache
+     *
+     * @param methodName Name of the method in the measurements
+     * @param method Function Table of the method
+     * @param paramStart Index of the first parameter in the local variables
+     * @param isVoid Whether the method returns void
+     *
+     * @return Task of the method, whose result is its code (or allocation error) and the messages it logged
+     */
+    private ForkJoinTask<MethodCode> generateMethod(String methodName, FunctionTable method, int paramStart,
+                                                    boolean isVoid) {
+        return ForkJoinTask.adapt(() -> {
+            final String hash = cache != null
+                    ? ir.contentHash(method, "registers=" + maxRegisters + " optimize=" + optimize)
+                    : null;
+
+            if (hash != null) {
+                final MethodCode cached = cache.load(hash, methodName);
+                if (cached != null)     return cached;
             }
+
+            final MethodCode generated = allocateAndOptimize(methodName, method, paramStart, isVoid);
+            if (hash != null)   cache.store(hash, generated);
+
+            return generated;
+        }).fork();
+    }
+
+    /**
+     * Performs the register allocation and optimization of a method
+     *
+     * @param methodName Name of the method in the measurements
+     * @param method Function Table of the method
+     * @param paramStart Index of the first parameter in the local variables
+     * @param isVoid Whether the method returns void
+     *
+     * @return Code of the method (or allocation error) and the messages it logged
+     */
+    private MethodCode allocateAndOptimize(String methodName, FunctionTable method, int paramStart, boolean isVoid) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (PrintStream log = new PrintStream(output)) {
+            PhaseTimer.Mark mark = timer.start();
+            final int maxLocals = registerAllocator(log).allocate(method, paramStart);
+            timer.stop(mark, PhaseTimer.Phase.REGISTER_ALLOCATION, methodName);
+
+            mark = timer.start();
+            final InstructionTable instructions = passes.run(method);
+            final int maxStack = stackSlots(method);
+            timer.stop(mark, PhaseTimer.Phase.OPTIMIZATION, methodName);
+
+            log.flush();
+            final JvmInstructions jvmInstructions = new JvmInstructions(instructions, ir.getClassIdentifier(), isVoid);
+
+            return new MethodCode(methodName, output.toString(), null, maxLocals, maxStack, jvmInstructions,
+                    instructions, isVoid);
+        } catch (AllocationException e) {
+            // Values kept by the SSA optimization may be what doesn't fit, so it is tried again keeping fewer, down to
+            // the code without it (as with -o)
+            if (method.optimizeWithFewerVariables(timer, methodName))
+                return allocateAndOptimize(methodName, method, paramStart, isVoid);
+
+            return new MethodCode(methodName, output.toString(), e, 0, 0, null, null, isVoid);
         }
-        catch (IOException e) {
-            e.printStackTrace();
+    }
+
+    /**
+     * @param log Stream where the allocation of a method is logged
+     *
+     * @return Register Allocator of a method
+     */
+    private RegisterAllocator registerAllocator(PrintStream log) {
+        return maxRegisters > 0 ? new GraphColoringAllocator(maxRegisters, log) : new NaiveRegisterAllocator();
+    }
+
+    private void emitMethod(PrintWriter pw, boolean render, ClassFileWriter classFile, String name, String descriptor,
+                            boolean isStatic, MethodCode method) throws AllocationException, GenerationException {
+        out.print(method.log);
+        if (method.error != null)   throw method.error;
+
+        final PhaseTimer.Mark mark = timer.start();
+        if (render) {
+            pw.println(".limit stack " + method.maxStack);
+            pw.println(".limit locals " + method.maxLocals);
+            pw.print(method.getCode());
         }
+
+        classFile.addMethod(name, descriptor, isStatic, method.maxStack, method.maxLocals, method.instructions);
+        timer.stop(mark, PhaseTimer.Phase.EMISSION, method.methodName);
     }
 
-    private void generateMethod(PrintWriter pw, FunctionTable method, int paramStart) throws AllocationException {
-        pw.println(".limit stack " + stackSlots(method));
-        pw.println(".limit locals " +  registerAllocator.allocate(method, paramStart));
+    public Path getFilePath() {
+        return filePath;
+    }
 
-        if (optimize)   pw.print(Optimizer.optimize(method));
-        else            pw.print(Optimizer.cleanupCode(method.methodCode()));
+    /**
+     * @return Pass Manager optimizing the methods, with the changes made by each pass to the ones generated so far
+     */
+    public PassManager getPassManager() {
+        return passes;
     }
 
-    private int stackSlots(FunctionTable method) {
+    private static int stackSlots(FunctionTable method) {
         int stackSlots = 0, maxStackSlots = 0;
 
-        for (IntermediateInstruction instruction : method.getIntermediateInstructions()) {
-            stackSlots += instruction.stackSlots();
+        final InstructionTable instructions = method.getIntermediateInstructions();
+        for (int i = 0; i < instructions.size(); i++) {
+            stackSlots += instructions.stackSlots(i);
 
             if (stackSlots > maxStackSlots)
                 maxStackSlots = stackSlots;
@@ -0,0 +1,10 @@
+package generation;
+
+/**
+ * Error found while writing the class file, when the generated code doesn't fit the limits of the class file format
+ */
+public class GenerationException extends Exception {
+    GenerationException(String s) {
+        super(s);
+    }
+}
@@ -1,131 +1,135 @@
 package generation;
 
+import semantic.ControlFlowGraph;
 import semantic.FunctionTable;
-import semantic.IntermediateInstruction;
+import semantic.InstructionTable;
+import semantic.Symbol;
 
+import java.io.PrintStream;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.stream.IntStream;
 
 class GraphColoringAllocator implements RegisterAllocator {
     private final int maxRegisters;
+    private final PrintStream log;
 
-    GraphColoringAllocator(int maxRegisters) {
+    GraphColoringAllocator(int maxRegisters, PrintStream log) {
         this.maxRegisters = maxRegisters;
+        this.log = log;
     }
 
     @Override
     public int allocate(FunctionTable method, int paramStart) throws AllocationException {
         // Initialize Data
-        final ArrayList<IntermediateInstruction> instructionList = new ArrayList<>(method.getIntermediateInstructions());
-        final int instructionSize = instructionList.size();
+        final InstructionTable instructions = method.getIntermediateInstructions();
+        final ControlFlowGraph controlFlow = method.getControlFlowGraph();
+        final int blockCount = controlFlow.getBlockCount();
 
-        final Map<String, Integer> labelIndexes = labelIndexes(instructionList);
-
-        final ArrayList<String> variableList = new ArrayList<>();
+        // Local variables (not parameters) in order of appearance, by their index in the table
+        final ArrayList<Integer> variableList = new ArrayList<>();
         final ArrayList<Boolean> typeList = new ArrayList<>();
 
-        final ArrayList<String> parameterList = new ArrayList<>(method.getParameters().keySet());
-
-        final ArrayList<int[]> successorsList = new ArrayList<>(instructionSize);
+        final int[] localIndexes = new int[instructions.getVariableCount()];
+        Arrays.fill(localIndexes, -1);
 
-        for (int i = 0; i < instructionSize; i++) {
-            final IntermediateInstruction instruction = instructionList.get(i);
+        final int parameterCount = method.getParameters().getSymbols().size();
 
-            if (instruction.isGoto()) {
-                successorsList.add(i, new int[]{labelIndexes.get(instruction.getValue())});
-            } else if (instruction.isBranch()) {
-                successorsList.add(i, new int[]{i + 1, labelIndexes.get(instruction.getValue())});
-            }
-            else {
-                successorsList.add(i, new int[]{i + 1});
+        for (int i = 0; i < instructions.size(); i++) {
+            if (!instructions.isLocal(i))   continue;
 
-                if (instruction.isLocal()) {
-                    String varIdentifier = instruction.getValue();
+            final int variable = instructions.getVariable(i);
 
-                    if (!variableList.contains(varIdentifier) && !parameterList.contains(varIdentifier)) {
-                        variableList.add(varIdentifier);
-                        typeList.add(instruction.getRegisterType());
-                    }
-                }
+            if (localIndexes[variable] < 0 && instructions.getSymbol(variable).getKind() != Symbol.Kind.PARAMETER) {
+                localIndexes[variable] = variableList.size();
+                variableList.add(variable);
+                typeList.add(instructions.getRegisterType(i));
             }
         }
 
         final int variableSize = variableList.size();
 
-        // Calculate use and def sets
-        final BitSet[] use = new BitSet[instructionSize];
-        final BitSet[] def = new BitSet[instructionSize];
+        // Calculate use (before any def) and def sets of each block
+        final BitSet[] use = new BitSet[blockCount];
+        final BitSet[] def = new BitSet[blockCount];
 
-        for (int i = 0; i < instructionSize; i++) {
-            use[i] = new BitSet(variableSize);
-            def[i] = new BitSet(variableSize);
+        for (int block = 0; block < blockCount; block++) {
+            use[block] = new BitSet(variableSize);
+            def[block] = new BitSet(variableSize);
 
-            final IntermediateInstruction instruction = instructionList.get(i);
-            if (!variableList.contains(instruction.getValue())) continue;
+            for (int i = controlFlow.getStart(block); i < controlFlow.getEnd(block); i++) {
+                final int local = localIndex(instructions, localIndexes, i);
+                if (local < 0)  continue;
 
-            if (instruction.isStore()) {
-                def[i].set(variableList.indexOf(instruction.getValue()));
-            }
-            else if (instruction.isLoad()) {
-                use[i].set(variableList.indexOf(instruction.getValue()));
+                if (instructions.isStore(i))    def[block].set(local);
+                else if (!def[block].get(local))    use[block].set(local);
             }
         }
 
-        //System.out.println(Arrays.toString(use));
-        //System.out.println(Arrays.toString(def));
-
-        // Calculate in and out sets
-        final BitSet[] out = new BitSet[instructionSize];
-        final BitSet[] in = new BitSet[instructionSize];
-
-        for (int i = 0; i < instructionSize; i++) {
-            out[i] = new BitSet(variableSize);
-            in[i] = new BitSet(variableSize);
+        // Calculate in and out sets of each block, revisiting the predecessors of the blocks whose in set changes
+        final BitSet[] out = new BitSet[blockCount];
+        final BitSet[] in = new BitSet[blockCount];
+        final ArrayDeque<Integer> worklist = new ArrayDeque<>(blockCount);
+        final boolean[] queued = new boolean[blockCount];
+
+        for (int block = blockCount - 1; block >= 0; block--) {
+            out[block] = new BitSet(variableSize);
+            in[block] = (BitSet) use[block].clone();
+            worklist.add(block);
+            queued[block] = true;
         }
 
-        boolean notFinalIteration = true;
-        while (notFinalIteration) {
-            notFinalIteration = false;
+        while (!worklist.isEmpty()) {
+            final int block = worklist.poll();
+            queued[block] = false;
 
-            for (int i = instructionSize - 1; i >= 0; i--) {
-                final BitSet currOut = new BitSet(variableSize);
-                final BitSet currIn = (BitSet) use[i].clone();
+            for (int successor : controlFlow.getSuccessors(block))
+                out[block].or(in[successor]);
 
-                for (int successor : successorsList.get(i)) {
-                    if (successor < instructionSize) {
-                        currOut.or(in[successor]);
-                    }
-                }
+            final BitSet currIn = (BitSet) out[block].clone();
+            currIn.andNot(def[block]);
+            currIn.or(use[block]);
 
-                if (!currOut.equals(out[i]))    notFinalIteration = true;
-                out[i] = (BitSet) currOut.clone();
+            if (currIn.equals(in[block]))   continue;
+            in[block] = currIn;
 
-                currOut.andNot(def[i]);
-                currIn.or(currOut);
+            for (int predecessor : controlFlow.getPredecessors(block)) {
+                if (queued[predecessor])    continue;
 
-                if (!currIn.equals(in[i]))      notFinalIteration = true;
-                in[i] = currIn;
+                worklist.add(predecessor);
+                queued[predecessor] = true;
             }
         }
 
-        //System.out.println(Arrays.toString(out));
-        //System.out.println(Arrays.toString(in));
-
-        // Calculate interference graph
+        // Calculate interference graph, from the variables live between each pair of instructions of the blocks
         final BitSet[] graph = new BitSet[variableSize];
         for (int i = 0; i < graph.length; i++) {
             graph[i] = new BitSet(variableSize);
         }
 
-        for (int i = 0; i < instructionSize; i++) {
-            addToGraph(graph, out[i].stream().toArray());
-            addToGraph(graph, in[i].stream().toArray());
+        for (int block = 0; block < blockCount; block++) {
+            final BitSet live = (BitSet) out[block].clone();
+            addToGraph(graph, live.stream().toArray());
+
+            for (int i = controlFlow.getEnd(block) - 1; i >= controlFlow.getStart(block); i--) {
+                final int local = localIndex(instructions, localIndexes, i);
+
+                if (local >= 0) {
+                    if (instructions.isStore(i)) {
+                        // Even a store whose value is never read must not overwrite the variables live after it
+                        interfere(graph, local, live);
+                        live.clear(local);
+                    }
+                    else {
+                        live.set(local);
+                    }
+                }
+
+                addToGraph(graph, live.stream().toArray());
+            }
         }
 
         //System.out.println(Arrays.toString(graph));
@@ -162,33 +166,28 @@ class GraphColoringAllocator implements RegisterAllocator {
         }
 
 
-        System.out.println("Register Allocation");
+        log.println("Register Allocation");
 
         int n = 0;
         for (int i = 0; i < allocation.length; i++) {
             if (allocation[i] > n)  n = allocation[i];
 
-            System.out.println("\t" + variableList.get(i) + " -> " + allocation[i]);
+            log.println("\t" + instructions.getSymbol(variableList.get(i)).getName() + " -> " + allocation[i]);
         }
 
-        System.out.println("Number of Registers: " + (++n > 1 ? n : 0));
+        log.println("Number of Registers: " + (++n > 1 ? n : 0));
 
         if (n > maxRegisters)
             throw new AllocationException("ABORT: The input source code requires at least " + n + " local variables.");
 
-        for (IntermediateInstruction instruction : instructionList) {
-            if (instruction.isLocal()) {
-                if (variableList.contains(instruction.getValue())) {
-                    instruction.setVarNum(allocation[variableList.indexOf(instruction.getValue())]
-                            + paramStart + parameterList.size());
-                }
-                else {
-                    instruction.setVarNum(parameterList.indexOf(instruction.getValue()) + paramStart);
-                }
-            }
+        for (int variable = 0; variable < localIndexes.length; variable++) {
+            if (localIndexes[variable] >= 0)
+                instructions.setVarNum(variable, allocation[localIndexes[variable]] + paramStart + parameterCount);
+            else if (instructions.getSymbol(variable).getKind() == Symbol.Kind.PARAMETER)
+                instructions.setVarNum(variable, instructions.getSymbol(variable).getIndex() + paramStart);
         }
 
-        return paramStart + n + parameterList.size();
+        return paramStart + n + parameterCount;
     }
 
     private void addToGraph(BitSet[] graph, int[] array) {
@@ -200,6 +199,13 @@ class GraphColoringAllocator implements RegisterAllocator {
         }
     }
 
+    private void interfere(BitSet[] graph, int variable, BitSet live) {
+        live.stream().filter(other -> other != variable).forEach(other -> {
+            graph[variable].set(other);
+            graph[other].set(variable);
+        });
+    }
+
     private void removeFromGraph(BitSet[] graph, int candidateNode) {
         graph[candidateNode].stream().forEach(i -> {
             graph[i].set(candidateNode, false);
@@ -210,14 +216,14 @@ class GraphColoringAllocator implements RegisterAllocator {
         graph[candidateNode].set(0, graph[candidateNode].size());
     }
 
-    private Map<String, Integer> labelIndexes(ArrayList<IntermediateInstruction> intermediateList) {
-        final Map<String, Integer> labelIndexes = new HashMap<>();
-
-        for (int i = 0; i < intermediateList.size(); i++) {
-            final String label = intermediateList.get(i).getLabel();
-            if (label != null) labelIndexes.put(label, i);
-        }
-
-        return labelIndexes;
+    /**
+     * @param instructions Intermediate Instructions of the method
+     * @param localIndexes Index of each variable among the local variables, -1 for the parameters
+     * @param i Index of an Instruction
+     *
+     * @return Index of the local variable loaded or stored by the Instruction, -1 if it doesn't access one
+     */
+    private int localIndex(InstructionTable instructions, int[] localIndexes, int i) {
+        return instructions.isLocal(i) ? localIndexes[instructions.getVariable(i)] : -1;
     }
 }
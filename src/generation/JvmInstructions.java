@@ -0,0 +1,276 @@
+package generation;
+
+import parser.ParserTreeConstants;
+import semantic.InstructionTable;
+import semantic.Symbol;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Code of a method in JVM instructions with symbolic operands, between its optimized Instructions and its bytecode
+ *
+ * Instructions are kept as parallel arrays (opcode, operand and reference) and identified by their index. Opcodes are
+ * those of the JVM, but for the labels. Operands are left for the encoding to resolve:
+ *
+ * - Constants hold their value, whatever constant pool entry they end up in
+ * - Loads, stores and increments hold the slot of their local variable, increments keeping their constant alongside
+ * - Branches and labels hold the label number
+ * - Field accesses, invocations and object creations hold the member or class they refer to, in Jasmin syntax
+ *   (class/name descriptor for fields, class/name(parameters)return for methods)
+ *
+ * They are translated from the Instructions once the method is allocated and optimized, kept as they are by the
+ * MethodCache, and encoded by the ClassFileWriter, so the methods generated and the ones reused from the cache are
+ * encoded by the same code.
+ *
+ * @see ClassFileWriter
+ * @see MethodCache
+ */
+class JvmInstructions {
+    static final int LABEL = -1;
+
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC = 0x12;
+    static final int ILOAD = 0x15;
+    static final int ALOAD = 0x19;
+    static final int ALOAD_0 = 0x2a;
+    static final int IALOAD = 0x2e;
+    static final int AALOAD = 0x32;
+    static final int ISTORE = 0x36;
+    static final int ASTORE = 0x3a;
+    static final int IASTORE = 0x4f;
+    static final int AASTORE = 0x53;
+    static final int POP = 0x57;
+    static final int DUP = 0x59;
+    static final int IADD = 0x60;
+    static final int ISUB = 0x64;
+    static final int IMUL = 0x68;
+    static final int IDIV = 0x6c;
+    static final int IINC = 0x84;
+    static final int IFEQ = 0x99;
+    static final int IFGT = 0x9d;
+    static final int IF_ICMPLT = 0xa1;
+    static final int IF_ICMPGE = 0xa2;
+    static final int GOTO = 0xa7;
+    static final int IRETURN = 0xac;
+    static final int ARETURN = 0xb0;
+    static final int RETURN = 0xb1;
+    static final int GETFIELD = 0xb4;
+    static final int PUTFIELD = 0xb5;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int NEW = 0xbb;
+    static final int NEWARRAY = 0xbc;
+    static final int ARRAYLENGTH = 0xbe;
+
+    private int size = 0;
+    private int[] opcodes;
+    private int[] operands;
+    private int[] increments;
+    private String[] references;
+
+    private JvmInstructions(int capacity) {
+        opcodes = new int[Math.max(capacity, 8)];
+        operands = new int[opcodes.length];
+        increments = new int[opcodes.length];
+        references = new String[opcodes.length];
+    }
+
+    /**
+     * Translates the Instructions of a method
+     *
+     * @param instructions Instructions of the method, with their variables allocated
+     * @param className Internal name of the class of the method, owning the fields it accesses
+     * @param isVoid Whether the method returns void, so a return is added after its Instructions
+     */
+    JvmInstructions(InstructionTable instructions, String className, boolean isVoid) {
+        this(instructions.size() + 1);
+
+        for (int i = 0; i < instructions.size(); i++) {
+            final int opcode = instructions.getOpcode(i), operand = instructions.getOperand(i);
+
+            switch (opcode) {
+                case InstructionTable.LABEL:                add(LABEL, operand); break;
+                case InstructionTable.BIPUSH:               add(BIPUSH, operand); break;
+                case InstructionTable.SIPUSH:               add(SIPUSH, operand); break;
+                case InstructionTable.LDC:                  add(LDC, operand); break;
+                case ParserTreeConstants.JJTTRUE:           add(ICONST_1); break;
+                case ParserTreeConstants.JJTFALSE:          add(ICONST_0); break;
+                case ParserTreeConstants.JJTTHIS:           add(ALOAD_0); break;
+                case InstructionTable.ILOAD:                add(ILOAD, instructions.getSlot(operand)); break;
+                case InstructionTable.ALOAD:                add(ALOAD, instructions.getSlot(operand)); break;
+                case InstructionTable.ISTORE:               add(ISTORE, instructions.getSlot(operand)); break;
+                case InstructionTable.ASTORE:               add(ASTORE, instructions.getSlot(operand)); break;
+                case InstructionTable.IINC:
+                    add(IINC, instructions.getSlot(operand));
+                    increments[size - 1] = instructions.getIncrement(i);
+                    break;
+                case InstructionTable.IALOAD:               add(IALOAD); break;
+                case InstructionTable.AALOAD:               add(AALOAD); break;
+                case InstructionTable.IASTORE:              add(IASTORE); break;
+                case InstructionTable.AASTORE:              add(AASTORE); break;
+                case InstructionTable.IRETURN:              add(IRETURN); break;
+                case InstructionTable.ARETURN:              add(ARETURN); break;
+                case InstructionTable.POP:                  add(POP); break;
+                case ParserTreeConstants.JJTPLUS:           add(IADD); break;
+                case ParserTreeConstants.JJTMINUS:          add(ISUB); break;
+                case ParserTreeConstants.JJTTIMES:          add(IMUL); break;
+                case ParserTreeConstants.JJTDIVIDE:         add(IDIV); break;
+                case ParserTreeConstants.JJTLENGTH:         add(ARRAYLENGTH); break;
+                case ParserTreeConstants.JJTNEWARRAY:       add(NEWARRAY); break;
+                case ParserTreeConstants.JJTNEWOBJ:
+                    final String objectClass = instructions.getClassName(i);
+                    add(NEW, objectClass);
+                    add(DUP);
+                    add(INVOKESPECIAL, objectClass + "/<init>()V");
+                    break;
+                case InstructionTable.GETFIELD:
+                case InstructionTable.PUTFIELD:
+                    final Symbol field = instructions.getField(operand);
+                    add(opcode == InstructionTable.GETFIELD ? GETFIELD : PUTFIELD,
+                            className + "/" + field.getName() + " " + field.getType().toDescriptor());
+                    break;
+                case InstructionTable.INVOKEVIRTUAL:
+                    add(INVOKEVIRTUAL, instructions.getMethodDescriptor(i));
+                    break;
+                case InstructionTable.INVOKESTATIC:
+                    add(INVOKESTATIC, instructions.getMethodDescriptor(i));
+                    break;
+                case InstructionTable.IFEQ:                 add(IFEQ, operand); break;
+                case InstructionTable.IFGT:                 add(IFGT, operand); break;
+                case InstructionTable.IFCMPLT:              add(IF_ICMPLT, operand); break;
+                case InstructionTable.IFCMPGE:              add(IF_ICMPGE, operand); break;
+                case InstructionTable.GOTO:                 add(GOTO, operand); break;
+                default:
+                    throw new IllegalArgumentException("Unsupported instruction: " + instructions.toString(i));
+            }
+        }
+
+        if (isVoid)     add(RETURN);
+    }
+
+    private void add(int opcode) {
+        add(opcode, 0);
+    }
+
+    private void add(int opcode, String reference) {
+        add(opcode, 0);
+        references[size - 1] = reference;
+    }
+
+    private void add(int opcode, int operand) {
+        if (size == opcodes.length) {
+            final int capacity = size * 2;
+
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            operands = Arrays.copyOf(operands, capacity);
+            increments = Arrays.copyOf(increments, capacity);
+            references = Arrays.copyOf(references, capacity);
+        }
+
+        opcodes[size] = opcode;
+        operands[size] = operand;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param i Index of an instruction
+     *
+     * @return JVM opcode of the instruction, LABEL for a label
+     */
+    int getOpcode(int i) {
+        return opcodes[i];
+    }
+
+    /**
+     * @param i Index of an instruction
+     *
+     * @return Constant value, local variable slot or label number of the instruction
+     */
+    int getOperand(int i) {
+        return operands[i];
+    }
+
+    /**
+     * @param i Index of an iinc instruction
+     *
+     * @return Constant added to the variable
+     */
+    int getIncrement(int i) {
+        return increments[i];
+    }
+
+    /**
+     * @param i Index of a field access, invocation or object creation
+     *
+     * @return Member or class the instruction refers to, in Jasmin syntax
+     */
+    String getReference(int i) {
+        return references[i];
+    }
+
+    /**
+     * Writes the instructions, to be read back by {@link #read(DataInputStream)}
+     *
+     * @param out Stream where the instructions are written to
+     *
+     * @throws IOException If the stream fails
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+
+        for (int i = 0; i < size; i++) {
+            out.writeShort(opcodes[i]);
+            out.writeInt(operands[i]);
+
+            if (opcodes[i] == IINC)                 out.writeInt(increments[i]);
+            else if (hasReference(opcodes[i]))      out.writeUTF(references[i]);
+        }
+    }
+
+    /**
+     * @param in Stream where the instructions were written to by {@link #write(DataOutputStream)}
+     *
+     * @return Instructions read
+     *
+     * @throws IOException If the stream fails or ends before the instructions
+     */
+    static JvmInstructions read(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final JvmInstructions instructions = new JvmInstructions(size);
+
+        for (int i = 0; i < size; i++) {
+            final int opcode = in.readShort();
+            instructions.add(opcode, in.readInt());
+
+            if (opcode == IINC)                 instructions.increments[i] = in.readInt();
+            else if (hasReference(opcode))      instructions.references[i] = in.readUTF();
+        }
+
+        return instructions;
+    }
+
+    private static boolean hasReference(int opcode) {
+        switch (opcode) {
+            case GETFIELD:
+            case PUTFIELD:
+            case INVOKEVIRTUAL:
+            case INVOKESPECIAL:
+            case INVOKESTATIC:
+            case NEW:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package generation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * On-disk cache of the generated code of methods, for incremental recompilation
+ *
+ * Entries are identified by the content hash of their method (covering its AST, the environment of its class and the
+ * options of the compilation), each one kept in its own file named after it. An entry holds the body of the method as
+ * emitted (its stack and local limits, its JVM instructions, encoded like those of a generated method, and their
+ * Jasmin text), along with the messages its generation logged, so a method whose hash is unchanged skips the register
+ * allocation and optimizations and prints the same output. Entries are
+ * written to a temporary file and moved in place, so concurrent compilations never read partially written entries;
+ * unreadable entries are treated as missing.
+ *
+ * @see CodeGenerator
+ */
+public class MethodCache {
+    private static final int VERSION = 6;
+
+    private final Path directory;
+
+    /**
+     * @param directory Directory holding the entries (created on the first store)
+     */
+    public MethodCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param hash Content hash of a method
+     * @param methodName Name of the method in the measurements
+     *
+     * @return Code of the method stored under the hash, null if there is none
+     */
+    CodeGenerator.MethodCode load(String hash, String methodName) {
+        final Path entry = directory.resolve(hash);
+        if (!Files.isRegularFile(entry))    return null;
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(entry)))) {
+            if (in.readInt() != VERSION)    return null;
+
+            final int maxStack = in.readInt();
+            final int maxLocals = in.readInt();
+            final String log = readString(in);
+            final JvmInstructions instructions = JvmInstructions.read(in);
+            final String code = readString(in);
+
+            return new CodeGenerator.MethodCode(methodName, log, maxLocals, maxStack, instructions, code);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores the code of a method under its hash (methods that failed to be generated aren't stored)
+     *
+     * @param hash Content hash of the method
+     * @param method Code of the method
+     */
+    void store(String hash, CodeGenerator.MethodCode method) {
+        if (method.error != null)   return;
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(VERSION);
+            out.writeInt(method.maxStack);
+            out.writeInt(method.maxLocals);
+            writeString(out, method.log);
+            method.instructions.write(out);
+            writeString(out, method.getCode());
+        } catch (IOException e) {
+            return;
+        }
+
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+
+            temporary = Files.createTempFile(directory, hash, ".tmp");
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, directory.resolve(hash), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The entry is only an optimization, so the compilation goes on without it
+            try {
+                if (temporary != null)  Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
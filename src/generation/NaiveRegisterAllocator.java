@@ -1,26 +1,35 @@
 package generation;
 
 import semantic.FunctionTable;
-import semantic.IntermediateInstruction;
+import semantic.InstructionTable;
+import semantic.Symbol;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 class NaiveRegisterAllocator implements RegisterAllocator {
     @Override
     public int allocate(FunctionTable method, int paramStart) {
-        final ArrayList<String> parameterVar = new ArrayList<>(method.getParameters().keySet());
+        final InstructionTable instructions = method.getIntermediateInstructions();
+        final int parameterCount = method.getParameters().getSymbols().size();
 
-        for (IntermediateInstruction instruction : method.getIntermediateInstructions()) {
-            if (instruction.isLocal()) {
-                final String varIdentifier = instruction.getValue();
+        final int[] slots = new int[instructions.getVariableCount()];
+        Arrays.fill(slots, -1);
 
-                if (!parameterVar.contains(varIdentifier))
-                    parameterVar.add(varIdentifier);
+        int localCount = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            if (instructions.isLocal(i)) {
+                final int variable = instructions.getVariable(i);
+                if (slots[variable] >= 0)   continue;
 
-                instruction.setVarNum(parameterVar.indexOf(varIdentifier) + paramStart);
+                final Symbol symbol = instructions.getSymbol(variable);
+                slots[variable] = symbol.getKind() == Symbol.Kind.PARAMETER
+                        ? symbol.getIndex()
+                        : parameterCount + localCount++;
+
+                instructions.setVarNum(variable, slots[variable] + paramStart);
             }
         }
 
-        return parameterVar.size() + paramStart;
+        return parameterCount + localCount + paramStart;
     }
 }
@@ -1,9 +1,15 @@
 /* Generated By:JavaCC: Do not edit this line. JJTParserState.java Version 6.0_1 */
 package parser;
 
+/* Closed nodes are not linked to each other: each one is added to a NodeTable
+   when its scope is closed, along with the indexes of its children, and kept
+   on the stack (with its index) only until its parent is closed, so its value
+   can still be set by the final action of its scope. */
 public class JJTParserState {
   private java.util.List<Node> nodes;
+  private int[] indexes;
   private java.util.List<Integer> marks;
+  private NodeTable table;
 
   private int sp;        // number of nodes on stack
   private int mk;        // current mark
@@ -11,7 +17,9 @@ public class JJTParserState {
 
   public JJTParserState() {
     nodes = new java.util.ArrayList<Node>();
+    indexes = new int[16];
     marks = new java.util.ArrayList<Integer>();
+    table = new NodeTable();
     sp = 0;
     mk = 0;
   }
@@ -28,6 +36,7 @@ public class JJTParserState {
   public void reset() {
     nodes.clear();
     marks.clear();
+    table = new NodeTable();
     sp = 0;
     mk = 0;
   }
@@ -38,10 +47,34 @@ public class JJTParserState {
     return nodes.get(0);
   }
 
-  /* Pushes a node on to the stack. */
-  public void pushNode(Node n) {
+  /* Returns the table of the AST, its root being the node on the bottom of
+     the stack.  It only makes sense to call this after a successful
+     parse. */
+  public NodeTable nodeTable(TokenTable tokens) {
+    table.setValue(indexes[0], nodes.get(0).jjtGetValue());
+    table.setRoot(indexes[0], tokens);
+    return table;
+  }
+
+  /* Pushes a node on to the stack, with its index in the table. */
+  private void pushNode(Node n, int index) {
+    if (sp == indexes.length) {
+      indexes = java.util.Arrays.copyOf(indexes, sp * 2);
+    }
     nodes.add(n);
-    ++sp;
+    indexes[sp++] = index;
+  }
+
+  /* Adds a node to the table, with the num nodes on the top of the stack as
+     its children, once their values are final, and pops them. */
+  private int addNode(Node n, int num) {
+    for (int i = sp - num; i < sp; i++) {
+      table.setValue(indexes[i], nodes.get(i).jjtGetValue());
+    }
+    int index = table.add(n.getId(), n.jjtGetFirstToken(), indexes, sp - num, num);
+    nodes.subList(sp - num, sp).clear();
+    sp -= num;
+    return index;
   }
 
   /* Returns the node on the top of the stack, and remove it from the
@@ -82,37 +115,29 @@ public class JJTParserState {
 
   /* A definite node is constructed from a specified number of
      children.  That number of nodes are popped from the stack and
-     made the children of the definite node.  Then the definite node
+     added to the table as the children of the definite node.  Then the definite node
      is pushed on to the stack. */
   public void closeNodeScope(Node n, int num) {
     mk = marks.remove(marks.size()-1);
-    while (num-- > 0) {
-      Node c = popNode();
-      c.jjtSetParent(n);
-      n.jjtAddChild(c, num);
-    }
+    int index = addNode(n, num);
     n.jjtClose();
-    pushNode(n);
+    pushNode(n, index);
     node_created = true;
   }
 
 
   /* A conditional node is constructed if its condition is true.  All
      the nodes that have been pushed since the node was opened are
-     made children of the conditional node, which is then pushed
+     added to the table as children of the conditional node, which is then pushed
      on to the stack.  If the condition is false the node is not
      constructed and they are left on the stack. */
   public void closeNodeScope(Node n, boolean condition) {
     if (condition) {
       int a = nodeArity();
       mk = marks.remove(marks.size()-1);
-      while (a-- > 0) {
-        Node c = popNode();
-        c.jjtSetParent(n);
-        n.jjtAddChild(c, a);
-      }
+      int index = addNode(n, a);
       n.jjtClose();
-      pushNode(n);
+      pushNode(n, index);
       node_created = true;
     } else {
       mk = marks.remove(marks.size()-1);
@@ -0,0 +1,347 @@
+package parser;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CharStream over a memory-mapped source file (or a source already in memory)
+ *
+ * The file is decoded once (ASCII directly, UTF-8 otherwise) into a single flat buffer holding the whole source, so
+ * reading and backing up are simple index moves and token images are taken straight from the buffer. Lines and columns
+ * are not tracked per character: those of the tokens being read come from a cursor moving forward with them, so each
+ * character is counted once, and those of the tokens in the TokenTable are computed from their offsets only when
+ * requested, using an index of the line starts built on the first request. Columns follow the same rules as JavaCC's
+ * SimpleCharStream (1-based, tabs expanded to the tab size, "\r\n" as a single line break). The index may be requested
+ * by several threads at once (Semantic errors of methods analysed in parallel), so it is published as a whole once
+ * built, while the cursor is only used by the thread parsing the source.
+ */
+public class MappedCharStream implements CharStream {
+    private final char[] buffer;
+    private final int length;
+
+    private int position = 0;
+    private int tokenBegin = 0;
+
+    private volatile int[] lineStarts;
+
+    // Offset of the next character the cursor counts, its line (0-based) and the number of columns before it
+    private int cursor = 0;
+    private int cursorLine = 0;
+    private int cursorColumn = 0;
+
+    private int tabSize = 8;
+    private boolean trackLineColumn = true;
+
+    /**
+     * Maps and decodes a source file
+     *
+     * @param file Path of the source file
+     *
+     * @throws IOException when the file can't be read
+     */
+    public MappedCharStream(Path file) throws IOException {
+        final MappedByteBuffer bytes;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final int size = bytes.limit();
+        char[] chars = new char[size];
+
+        int i = 0;
+        for (; i < size; i++) {
+            final byte b = bytes.get(i);
+            if (b < 0)  break;
+
+            chars[i] = (char) b;
+        }
+
+        if (i < size) {
+            // Not plain ASCII, decode the whole file as UTF-8
+            final CharBuffer decoded = StandardCharsets.UTF_8.decode(bytes);
+
+            chars = new char[decoded.remaining()];
+            decoded.get(chars);
+        }
+
+        this.buffer = chars;
+        this.length = chars.length;
+    }
+
+    /**
+     * Copies a source held in memory
+     *
+     * @param source Contents of the source
+     */
+    public MappedCharStream(CharSequence source) {
+        this.buffer = source.toString().toCharArray();
+        this.length = buffer.length;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        if (position >= length)
+            throw new IOException("End of file");
+
+        return buffer[position++];
+    }
+
+    @Override
+    public char BeginToken() throws IOException {
+        tokenBegin = position;
+        return readChar();
+    }
+
+    @Override
+    public void backup(int amount) {
+        position -= amount;
+    }
+
+    @Override
+    public String GetImage() {
+        return new String(buffer, tokenBegin, position - tokenBegin);
+    }
+
+    @Override
+    public char[] GetSuffix(int len) {
+        final char[] suffix = new char[len];
+        System.arraycopy(buffer, position - len, suffix, 0, len);
+
+        return suffix;
+    }
+
+    @Override
+    public void Done() {
+        lineStarts = null;
+    }
+
+    @Override
+    public int getBeginLine() {
+        return trackLineColumn ? cursorLineAt(tokenBegin) : 0;
+    }
+
+    @Override
+    public int getBeginColumn() {
+        return trackLineColumn ? cursorColumnAt(tokenBegin) : 0;
+    }
+
+    @Override
+    public int getEndLine() {
+        return trackLineColumn ? cursorLineAt(position - 1) : 0;
+    }
+
+    @Override
+    public int getEndColumn() {
+        return trackLineColumn ? cursorColumnAt(position - 1) : 0;
+    }
+
+    @Override
+    @Deprecated
+    public int getLine() {
+        return getEndLine();
+    }
+
+    @Override
+    @Deprecated
+    public int getColumn() {
+        return getEndColumn();
+    }
+
+    @Override
+    public void setTabSize(int i) {
+        tabSize = i;
+    }
+
+    @Override
+    public int getTabSize() {
+        return tabSize;
+    }
+
+    @Override
+    public boolean getTrackLineColumn() {
+        return trackLineColumn;
+    }
+
+    @Override
+    public void setTrackLineColumn(boolean trackLineColumn) {
+        this.trackLineColumn = trackLineColumn;
+    }
+
+    /**
+     * @return Number of characters of the source
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * @return Offset of the first character of the current token
+     */
+    int getTokenStart() {
+        return tokenBegin;
+    }
+
+    /**
+     * @return Number of characters of the current token
+     */
+    int getTokenLength() {
+        return position - tokenBegin;
+    }
+
+    /**
+     * @param start Offset of the first character
+     * @param count Number of characters
+     *
+     * @return Characters of the source in the given range
+     */
+    String substring(int start, int count) {
+        return new String(buffer, start, count);
+    }
+
+    /**
+     * @param offset Offset of a character in the buffer
+     *
+     * @return Line (1-based) of the character
+     */
+    int lineAt(int offset) {
+        offset = clamp(offset);
+        if (offset < 0)     return 0;
+
+        return lineIndex(offset) + 1;
+    }
+
+    /**
+     * @param offset Offset of a character in the buffer
+     *
+     * @return Column (1-based, with expanded tabs) of the character
+     */
+    int columnAt(int offset) {
+        offset = clamp(offset);
+        if (offset < 0)     return 0;
+
+        final int line = lineIndex(offset);
+
+        int column = 0;
+        for (int i = lineStarts()[line]; i <= offset; i++)
+            column = nextColumn(column, buffer[i]);
+
+        return column;
+    }
+
+    /**
+     * Same as lineAt, for the tokens being read, moving the cursor to the character
+     */
+    private int cursorLineAt(int offset) {
+        offset = clamp(offset);
+        if (offset < 0)     return 0;
+
+        moveCursor(offset);
+        return cursorLine + 1;
+    }
+
+    /**
+     * Same as columnAt, for the tokens being read, moving the cursor to the character
+     */
+    private int cursorColumnAt(int offset) {
+        offset = clamp(offset);
+        if (offset < 0)     return 0;
+
+        moveCursor(offset);
+        return nextColumn(cursorColumn, buffer[offset]);
+    }
+
+    /**
+     * Moves the cursor forward to a character, counting the lines and columns of those it passes, or back to the start
+     * of its line if the character was already passed (never the case for the tokens read in order)
+     *
+     * @param offset Offset of a character in the buffer
+     */
+    private void moveCursor(int offset) {
+        if (offset < cursor) {
+            cursorLine = lineIndex(offset);
+            cursor = lineStarts()[cursorLine];
+            cursorColumn = 0;
+        }
+
+        for (; cursor < offset; cursor++) {
+            final char c = buffer[cursor];
+
+            if (c == '\n' || (c == '\r' && (cursor + 1 == length || buffer[cursor + 1] != '\n'))) {
+                cursorLine++;
+                cursorColumn = 0;
+            }
+            else {
+                cursorColumn = nextColumn(cursorColumn, c);
+            }
+        }
+    }
+
+    /**
+     * @return Column of a character given the column before it, with tabs expanded to the tab size
+     */
+    private int nextColumn(int column, char c) {
+        return c == '\t' ? column + tabSize - (column % tabSize) : column + 1;
+    }
+
+    private int clamp(int offset) {
+        return Math.min(offset, length - 1);
+    }
+
+    /**
+     * Finds the line of a character using a binary search on the line starts, building them on first use
+     *
+     * @param offset Offset of a character in the buffer
+     *
+     * @return Index (0-based) of the line containing the character
+     */
+    private int lineIndex(int offset) {
+        final int[] lineStarts = lineStarts();
+
+        int low = 0, high = lineStarts.length - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+
+            if (lineStarts[middle] <= offset)   low = middle;
+            else                                high = middle - 1;
+        }
+
+        return low;
+    }
+
+    private int[] lineStarts() {
+        int[] starts = lineStarts;
+        if (starts == null)     lineStarts = starts = buildLineStarts();
+
+        return starts;
+    }
+
+    private int[] buildLineStarts() {
+        int[] starts = new int[16];
+        int lines = 1;
+
+        for (int i = 0; i < length; i++) {
+            final char c = buffer[i];
+
+            if (c == '\n' || (c == '\r' && (i + 1 == length || buffer[i + 1] != '\n'))) {
+                if (lines == starts.length) {
+                    final int[] newStarts = new int[lines * 2];
+                    System.arraycopy(starts, 0, newStarts, 0, lines);
+                    starts = newStarts;
+                }
+
+                starts[lines++] = i + 1;
+            }
+        }
+
+        final int[] lineStarts = new int[lines];
+        System.arraycopy(starts, 0, lineStarts, 0, lines);
+
+        return lineStarts;
+    }
+}
@@ -23,7 +23,9 @@ interface Node {
   void jjtSetValue(Object value);
   Object jjtGetValue();
 
-  Token jjtGetFirstToken();
+  /** Index of the first token of the node in the TokenTable of the tree,
+    -1 if unknown. */
+  int jjtGetFirstToken();
 
   /** This method tells the node to add its argument to the node's
     list of children.  */
@@ -0,0 +1,198 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Flat representation of an AST
+ *
+ * Nodes are identified by their index, and kept as parallel int arrays (kind, first child, next sibling, number of
+ * children, value index and first token), so walking the tree doesn't go through an object per node. The table is
+ * built by the Parser as it goes, a node being added when its scope is closed: nodes are laid out in post-order (the
+ * root being the last one), and the children of each node are also listed contiguously, so child i of a node is found
+ * without walking its siblings. Equal values (identifiers, literals) share the same value index. The table is
+ * read-only once built, so it is shared by the tasks analysing the methods in parallel.
+ *
+ * @see JJTParserState
+ */
+public class NodeTable {
+    private int[] kinds;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] childCounts;
+    private int[] childStarts;
+    private int[] valueIndexes;
+    private int[] firstTokens;
+    private int size = 0;
+
+    private int[] children;
+    private int childrenSize = 0;
+
+    private final ArrayList<Object> values = new ArrayList<>();
+    private final HashMap<Object, Integer> valueMap = new HashMap<>();
+
+    private int root = -1;
+    private TokenTable tokens;
+
+    /**
+     * Creates an empty table, where the Parser adds the nodes of a tree
+     */
+    NodeTable() {
+        kinds = new int[64];
+        firstChildren = new int[kinds.length];
+        nextSiblings = new int[kinds.length];
+        childCounts = new int[kinds.length];
+        childStarts = new int[kinds.length];
+        valueIndexes = new int[kinds.length];
+        firstTokens = new int[kinds.length];
+        children = new int[kinds.length];
+    }
+
+    /**
+     * Adds a node to the end of the table, after all of its children
+     *
+     * @param kind Kind of the node (from ParserTreeConstants)
+     * @param firstToken Index of the first token of the node in the TokenTable, -1 if unknown
+     * @param stack Array holding the indexes of the children of the node
+     * @param from Position of the first child in the array
+     * @param count Number of children of the node
+     *
+     * @return Index of the added node
+     */
+    int add(int kind, int firstToken, int[] stack, int from, int count) {
+        if (size == kinds.length) {
+            final int capacity = size * 2;
+
+            kinds = Arrays.copyOf(kinds, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            childCounts = Arrays.copyOf(childCounts, capacity);
+            childStarts = Arrays.copyOf(childStarts, capacity);
+            valueIndexes = Arrays.copyOf(valueIndexes, capacity);
+            firstTokens = Arrays.copyOf(firstTokens, capacity);
+        }
+        if (childrenSize + count > children.length)
+            children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + count));
+
+        kinds[size] = kind;
+        firstChildren[size] = count > 0 ? stack[from] : -1;
+        nextSiblings[size] = -1;
+        childCounts[size] = count;
+        childStarts[size] = childrenSize;
+        valueIndexes[size] = -1;
+        firstTokens[size] = firstToken;
+
+        for (int i = 0; i < count; i++) {
+            children[childrenSize++] = stack[from + i];
+            nextSiblings[stack[from + i]] = i + 1 < count ? stack[from + i + 1] : -1;
+        }
+
+        return size++;
+    }
+
+    /**
+     * @param node Index of a node
+     * @param value Value of the node (identifier, literal), null if it has none
+     */
+    void setValue(int node, Object value) {
+        if (value == null)  return;
+
+        valueIndexes[node] = valueMap.computeIfAbsent(value, key -> {
+            values.add(key);
+            return values.size() - 1;
+        });
+    }
+
+    /**
+     * Marks the end of the tree
+     *
+     * @param root Index of the root node
+     * @param tokens Tokens of the file of the tree
+     */
+    void setRoot(int root, TokenTable tokens) {
+        this.root = root;
+        this.tokens = tokens;
+    }
+
+    /**
+     * @return Index of the root node
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param node Index of a node
+     *
+     * @return Kind of the node (from ParserTreeConstants)
+     */
+    public int getKind(int node) {
+        return kinds[node];
+    }
+
+    public int getNumChildren(int node) {
+        return childCounts[node];
+    }
+
+    /**
+     * @param node Index of a node
+     * @param i Position of the child
+     *
+     * @return Index of the i-th child of the node
+     */
+    public int getChild(int node, int i) {
+        return children[childStarts[node] + i];
+    }
+
+    /**
+     * @param node Index of a node
+     *
+     * @return Index of the first child of the node, -1 if it has no children
+     */
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    /**
+     * @param node Index of a node
+     *
+     * @return Index of the next child of the parent of the node, -1 if it is the last one
+     */
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    /**
+     * @param node Index of a node
+     *
+     * @return Index of the value of the node (equal for equal values), -1 if it has none
+     */
+    public int getValueIndex(int node) {
+        return valueIndexes[node];
+    }
+
+    public Object getValue(int node) {
+        return valueIndexes[node] < 0 ? null : values.get(valueIndexes[node]);
+    }
+
+    /**
+     * @param node Index of a node
+     *
+     * @return Index of the first token of the node in the TokenTable, -1 if unknown
+     */
+    public int getFirstToken(int node) {
+        return firstTokens[node];
+    }
+
+    /**
+     * @return Tokens of the file of the tree, null if not available
+     */
+    public TokenTable getTokens() {
+        return tokens;
+    }
+}
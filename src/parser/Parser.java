@@ -3,40 +3,100 @@
 package parser;
 
 public class Parser/*@bgen(jjtree)*/implements ParserTreeConstants, ParserConstants {/*@bgen(jjtree)*/
-  protected static JJTParserState jjtree = new JJTParserState();public static SimpleNode parse(String fileName) {
+  protected JJTParserState jjtree = new JJTParserState();private java.io.PrintStream out = System.out;
+    private java.util.List<Throwable> errors = new java.util.ArrayList<Throwable>();
+
+    public static NodeTable parse(String fileName) {
+        return parse(fileName, System.out);
+    }
+
+    /**
+     * Parses a file with its own Parser instance, reporting progress and errors to the given stream
+     *
+     * Each call creates an independent Parser (the grammar is not STATIC), so multiple files can be parsed
+     * concurrently, as long as each one uses its own output stream
+     *
+     * @param fileName Path of the file to parse
+     * @param out Stream where the parser messages are written to
+     *
+     * @return AST of the file, built as it is parsed, null on error
+     */
+    public static NodeTable parse(String fileName, java.io.PrintStream out) {
         //Parser initialization
         parser.Parser parser;
+        TokenTable tokens;
 
 
-        System.out.println("Parser: Reading file " + fileName + " ..." );
+        out.println("Parser: Reading file " + fileName + " ..." );
         try {
-            parser = new parser.Parser(new java.io.FileInputStream(fileName));
+            MappedCharStream stream = new MappedCharStream(java.nio.file.Paths.get(fileName));
+
+            tokens = new TokenTable(stream);
+            parser = new parser.Parser(new TokenTableManager(stream, tokens));
+            parser.out = out;
         }
-        catch(java.io.FileNotFoundException e) {
-            System.out.println ("Parser: File " + fileName + " not found.");
+        catch(java.nio.file.NoSuchFileException e) {
+            out.println ("Parser: File " + fileName + " not found.");
+            return null;
+        }
+        catch(java.io.IOException e) {
+            out.println ("Parser: File " + fileName + " could not be read.");
             return null;
         }
 
         try {
-            SimpleNode root = parser.Program();
-            System.out.println ("Parser: File parsed successfully.");
+            parser.Program();
+            out.println ("Parser: File parsed successfully.");
 
-            return root;
+            return parser.jjtree.nodeTable(tokens);
         }
         catch(TokenMgrError e){
-            System.out.println ("Parser: Token error.");
-            System.out.println (e.getMessage());
+            out.println ("Parser: Token error.");
+            out.println (e.getMessage());
         }
         catch(ParseException e){
-            System.out.println ("Parser: Parsing error.");
-            System.out.println (e.getMessage());
+            out.println ("Parser: Parsing error.");
+            out.println (e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Parses a source held in memory, without writing any message
+     *
+     * Every error is added to the given list instead of being printed, including the ones the parser recovers from
+     *
+     * @param source Contents of the source
+     * @param errors List where the errors (ParseException or TokenMgrError) are added to
+     *
+     * @return AST of the source, built as it is parsed, null on an unrecoverable error
+     */
+    public static NodeTable parse(CharSequence source, java.util.List<Throwable> errors) {
+        MappedCharStream stream = new MappedCharStream(source);
+        TokenTable tokens = new TokenTable(stream);
+
+        parser.Parser parser = new parser.Parser(new TokenTableManager(stream, tokens));
+        parser.out = new java.io.PrintStream(java.io.OutputStream.nullOutputStream());
+        parser.errors = errors;
+
+        try {
+            parser.Program();
+
+            return parser.jjtree.nodeTable(tokens);
+        }
+        catch(TokenMgrError e) {
+            errors.add(e);
+        }
+        catch(ParseException e) {
+            errors.add(e);
         }
 
         return null;
     }
 
 // Definition of Terminal Leafs
-  static final public void Id() throws ParseException {/*@bgen(jjtree) ID */
+  final public void Id() throws ParseException {/*@bgen(jjtree) ID */
                 SimpleNode jjtn000 = new SimpleNode(JJTID);
                 boolean jjtc000 = true;
                 jjtree.openNodeScope(jjtn000);
@@ -55,7 +115,7 @@ if (jjtc000) {
     }
   }
 
-  static final public void Integer() throws ParseException {/*@bgen(jjtree) INTEGER */
+  final public void Integer() throws ParseException {/*@bgen(jjtree) INTEGER */
                           SimpleNode jjtn000 = new SimpleNode(JJTINTEGER);
                           boolean jjtc000 = true;
                           jjtree.openNodeScope(jjtn000);
@@ -74,7 +134,7 @@ if (jjtc000) {
     }
   }
 
-  static final public void Type() throws ParseException {
+  final public void Type() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case INT:
     case INTARRAY:
@@ -93,7 +153,7 @@ if (jjtc000) {
     }
   }
 
-  static final public void TypeNoId() throws ParseException {
+  final public void TypeNoId() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case INTARRAY:{
 SimpleNode jjtn001 = new SimpleNode(JJTINTARRAY);
@@ -147,7 +207,7 @@ if (jjtc003) {
     }
   }
 
-  static final public void TypeId() throws ParseException {/*@bgen(jjtree) ID */
+  final public void TypeId() throws ParseException {/*@bgen(jjtree) ID */
                     SimpleNode jjtn000 = new SimpleNode(JJTID);
                     boolean jjtc000 = true;
                     jjtree.openNodeScope(jjtn000);
@@ -167,7 +227,7 @@ if (jjtc000) {
   }
 
 // Grammar Definition
-  static final public SimpleNode Program() throws ParseException {/*@bgen(jjtree) PROGRAM */
+  final public SimpleNode Program() throws ParseException {/*@bgen(jjtree) PROGRAM */
   SimpleNode jjtn000 = new SimpleNode(JJTPROGRAM);
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
@@ -202,7 +262,7 @@ if (jjtc000) {
     throw new Error("Missing return statement in function");
   }
 
-  static final public void ClassDeclaration() throws ParseException {/*@bgen(jjtree) CLASS */
+  final public void ClassDeclaration() throws ParseException {/*@bgen(jjtree) CLASS */
   SimpleNode jjtn000 = new SimpleNode(JJTCLASS);
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
@@ -273,7 +333,7 @@ if (jjtc000) {
     }
   }
 
-  static final public void VarDeclaration() throws ParseException {/*@bgen(jjtree) VAR */
+  final public void VarDeclaration() throws ParseException {/*@bgen(jjtree) VAR */
   SimpleNode jjtn000 = new SimpleNode(JJTVAR);
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
@@ -304,7 +364,7 @@ if (jjtc000) {
     }
   }
 
-  static final public void MethodDeclaration() throws ParseException {
+  final public void MethodDeclaration() throws ParseException {
     jj_consume_token(PUBLIC);
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case INT:
@@ -437,7 +497,7 @@ if (jjtc003) {
     }
   }
 
-  static final public void Params() throws ParseException {/*@bgen(jjtree) PARAMETERS */
+  final public void Params() throws ParseException {/*@bgen(jjtree) PARAMETERS */
   SimpleNode jjtn000 = new SimpleNode(JJTPARAMETERS);
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
@@ -493,7 +553,7 @@ if (jjtc000) {
     }
   }
 
-  static final public void Body() throws ParseException {/*@bgen(jjtree) BODY */
+  final public void Body() throws ParseException {/*@bgen(jjtree) BODY */
   SimpleNode jjtn000 = new SimpleNode(JJTBODY);
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
@@ -544,7 +604,7 @@ if (jjtc000) {
     }
   }
 
-  static final public void Return() throws ParseException {/*@bgen(jjtree) RETURN */
+  final public void Return() throws ParseException {/*@bgen(jjtree) RETURN */
   SimpleNode jjtn000 = new SimpleNode(JJTRETURN);
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
@@ -575,7 +635,7 @@ if (jjtc000) {
     }
   }
 
-  static final public void MethodBody() throws ParseException {
+  final public void MethodBody() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case INT:
     case INTARRAY:
@@ -715,7 +775,7 @@ if (jjtc001) {
     }
   }
 
-  static final public void VarDeclarationNoId() throws ParseException {/*@bgen(jjtree) VAR */
+  final public void VarDeclarationNoId() throws ParseException {/*@bgen(jjtree) VAR */
   SimpleNode jjtn000 = new SimpleNode(JJTVAR);
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
@@ -746,30 +806,33 @@ if (jjtc000) {
     }
   }
 
-  static final public void Statements() throws ParseException {
-    switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
-    case OPEN_PAREN:
-    case NOT:
-    case NEW:
-    case THIS:
-    case TRUE:
-    case FALSE:
-    case WHILE:
-    case IF:
-    case OPEN_BRACES:
-    case INTEGER_LITERAL:
-    case IDENTIFIER:{
-      Statement();
-      Statements();
-      break;
+  final public void Statements() throws ParseException {
+    label_4:
+    while (true) {
+      switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
+      case OPEN_PAREN:
+      case NOT:
+      case NEW:
+      case THIS:
+      case TRUE:
+      case FALSE:
+      case WHILE:
+      case IF:
+      case OPEN_BRACES:
+      case INTEGER_LITERAL:
+      case IDENTIFIER:{
+        ;
+        break;
+        }
+      default:
+        jj_la1[15] = jj_gen;
+        break label_4;
       }
-    default:
-      jj_la1[15] = jj_gen;
-      ;
+      Statement();
     }
   }
 
-  static final public void Statement() throws ParseException {
+  final public void Statement() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case OPEN_PAREN:
     case NOT:
@@ -811,7 +874,7 @@ if (jjtc000) {
     }
   }
 
-  static final public void IdStatement() throws ParseException {
+  final public void IdStatement() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case AND:
     case LOWER:
@@ -940,7 +1003,7 @@ if (jjtc003) {
     }
   }
 
-  static final public void NoIdStatement() throws ParseException {boolean error = false;
+  final public void NoIdStatement() throws ParseException {boolean error = false;
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case OPEN_BRACES:{
       jj_consume_token(OPEN_BRACES);
@@ -1096,13 +1159,15 @@ if (jjtc005) {
           jj_consume_token(CLOSE_PAREN);
         } catch (ParseException e) {
 error = true;
-            System.out.println ("Parser: Parsing error.");
-            System.out.println(e.toString());  // Print the error message         
+            errors.add(e);
+            out.println ("Parser: Parsing error.");
+            out.println(e.toString());  // Print the error message         
             error_skip();
         } catch (TokenMgrError e) {
 error = true;
-            System.out.println ("Parser: Token error.");
-            System.out.println(e.toString());  // Print the error message
+            errors.add(e);
+            out.println ("Parser: Token error.");
+            out.println(e.toString());  // Print the error message
             error_skip();
         }
 SimpleNode jjtn006 = new SimpleNode(JJTDO);
@@ -1171,9 +1236,9 @@ if (jjtc007) {
     }
   }
 
-  static final public void FullExpression() throws ParseException {
+  final public void FullExpression() throws ParseException {
     CompExpression();
-    label_4:
+    label_5:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case AND:{
@@ -1182,7 +1247,7 @@ if (jjtc007) {
         }
       default:
         jj_la1[22] = jj_gen;
-        break label_4;
+        break label_5;
       }
       jj_consume_token(AND);
 SimpleNode jjtn001 = new SimpleNode(JJTAND);
@@ -1214,9 +1279,9 @@ if (jjtc001) {
     }
   }
 
-  static final public void FullExpressionNoId() throws ParseException {
+  final public void FullExpressionNoId() throws ParseException {
     CompExpressionNoId();
-    label_5:
+    label_6:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case AND:{
@@ -1225,7 +1290,7 @@ if (jjtc001) {
         }
       default:
         jj_la1[23] = jj_gen;
-        break label_5;
+        break label_6;
       }
       jj_consume_token(AND);
 SimpleNode jjtn001 = new SimpleNode(JJTAND);
@@ -1257,7 +1322,7 @@ if (jjtc001) {
     }
   }
 
-  static final public void FullExpressionNoBrack() throws ParseException {
+  final public void FullExpressionNoBrack() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case AND:{
       jj_consume_token(AND);
@@ -1301,7 +1366,7 @@ if (jjtc001) {
       jj_consume_token(-1);
       throw new ParseException();
     }
-    label_6:
+    label_7:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case AND:{
@@ -1310,7 +1375,7 @@ if (jjtc001) {
         }
       default:
         jj_la1[25] = jj_gen;
-        break label_6;
+        break label_7;
       }
       jj_consume_token(AND);
 SimpleNode jjtn002 = new SimpleNode(JJTAND);
@@ -1342,9 +1407,9 @@ if (jjtc002) {
     }
   }
 
-  static final public void FullExpressionNoFactor() throws ParseException {
+  final public void FullExpressionNoFactor() throws ParseException {
     CompExpressionNoFactor();
-    label_7:
+    label_8:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case AND:{
@@ -1353,7 +1418,7 @@ if (jjtc002) {
         }
       default:
         jj_la1[26] = jj_gen;
-        break label_7;
+        break label_8;
       }
       jj_consume_token(AND);
 SimpleNode jjtn001 = new SimpleNode(JJTAND);
@@ -1385,9 +1450,9 @@ if (jjtc001) {
     }
   }
 
-  static final public void CompExpression() throws ParseException {
+  final public void CompExpression() throws ParseException {
     Expression();
-    label_8:
+    label_9:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case LOWER:{
@@ -1396,7 +1461,7 @@ if (jjtc001) {
         }
       default:
         jj_la1[27] = jj_gen;
-        break label_8;
+        break label_9;
       }
       jj_consume_token(LOWER);
 SimpleNode jjtn001 = new SimpleNode(JJTLOWER);
@@ -1428,9 +1493,9 @@ if (jjtc001) {
     }
   }
 
-  static final public void CompExpressionNoId() throws ParseException {
+  final public void CompExpressionNoId() throws ParseException {
     ExpressionNoId();
-    label_9:
+    label_10:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case LOWER:{
@@ -1439,7 +1504,7 @@ if (jjtc001) {
         }
       default:
         jj_la1[28] = jj_gen;
-        break label_9;
+        break label_10;
       }
       jj_consume_token(LOWER);
 SimpleNode jjtn001 = new SimpleNode(JJTLOWER);
@@ -1471,7 +1536,7 @@ if (jjtc001) {
     }
   }
 
-  static final public void CompExpressionNoBrack() throws ParseException {
+  final public void CompExpressionNoBrack() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case LOWER:{
       jj_consume_token(LOWER);
@@ -1514,7 +1579,7 @@ if (jjtc001) {
       jj_consume_token(-1);
       throw new ParseException();
     }
-    label_10:
+    label_11:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case LOWER:{
@@ -1523,7 +1588,7 @@ if (jjtc001) {
         }
       default:
         jj_la1[30] = jj_gen;
-        break label_10;
+        break label_11;
       }
       jj_consume_token(LOWER);
 SimpleNode jjtn002 = new SimpleNode(JJTLOWER);
@@ -1555,9 +1620,9 @@ if (jjtc002) {
     }
   }
 
-  static final public void CompExpressionNoFactor() throws ParseException {
+  final public void CompExpressionNoFactor() throws ParseException {
     ExpressionNoFactor();
-    label_11:
+    label_12:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case LOWER:{
@@ -1566,7 +1631,7 @@ if (jjtc002) {
         }
       default:
         jj_la1[31] = jj_gen;
-        break label_11;
+        break label_12;
       }
       jj_consume_token(LOWER);
 SimpleNode jjtn001 = new SimpleNode(JJTLOWER);
@@ -1598,9 +1663,9 @@ if (jjtc001) {
     }
   }
 
-  static final public void Expression() throws ParseException {
+  final public void Expression() throws ParseException {
     Term();
-    label_12:
+    label_13:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case PLUS:
@@ -1610,7 +1675,7 @@ if (jjtc001) {
         }
       default:
         jj_la1[32] = jj_gen;
-        break label_12;
+        break label_13;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case PLUS:{
@@ -1681,9 +1746,9 @@ if (jjtc002) {
     }
   }
 
-  static final public void ExpressionNoId() throws ParseException {
+  final public void ExpressionNoId() throws ParseException {
     TermNoId();
-    label_13:
+    label_14:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case PLUS:
@@ -1693,7 +1758,7 @@ if (jjtc002) {
         }
       default:
         jj_la1[34] = jj_gen;
-        break label_13;
+        break label_14;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case PLUS:{
@@ -1764,7 +1829,7 @@ if (jjtc002) {
     }
   }
 
-  static final public void ExpressionNoBrack() throws ParseException {
+  final public void ExpressionNoBrack() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case PLUS:
     case MINUS:{
@@ -1845,7 +1910,7 @@ if (jjtc002) {
       jj_consume_token(-1);
       throw new ParseException();
     }
-    label_14:
+    label_15:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case PLUS:
@@ -1855,7 +1920,7 @@ if (jjtc002) {
         }
       default:
         jj_la1[38] = jj_gen;
-        break label_14;
+        break label_15;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case PLUS:{
@@ -1926,9 +1991,9 @@ if (jjtc004) {
     }
   }
 
-  static final public void ExpressionNoFactor() throws ParseException {
+  final public void ExpressionNoFactor() throws ParseException {
     TermNoFactor();
-    label_15:
+    label_16:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case PLUS:
@@ -1938,7 +2003,7 @@ if (jjtc004) {
         }
       default:
         jj_la1[40] = jj_gen;
-        break label_15;
+        break label_16;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case PLUS:{
@@ -2009,9 +2074,9 @@ if (jjtc002) {
     }
   }
 
-  static final public void Term() throws ParseException {
+  final public void Term() throws ParseException {
     Factor();
-    label_16:
+    label_17:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case TIMES:
@@ -2021,7 +2086,7 @@ if (jjtc002) {
         }
       default:
         jj_la1[42] = jj_gen;
-        break label_16;
+        break label_17;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case TIMES:{
@@ -2092,9 +2157,9 @@ if (jjtc002) {
     }
   }
 
-  static final public void TermNoId() throws ParseException {
+  final public void TermNoId() throws ParseException {
     FactorNoId();
-    label_17:
+    label_18:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case TIMES:
@@ -2104,7 +2169,7 @@ if (jjtc002) {
         }
       default:
         jj_la1[44] = jj_gen;
-        break label_17;
+        break label_18;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case TIMES:{
@@ -2175,7 +2240,7 @@ if (jjtc002) {
     }
   }
 
-  static final public void TermNoBrack() throws ParseException {
+  final public void TermNoBrack() throws ParseException {
     NoBrackNextFactor();
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case DOT:
@@ -2185,7 +2250,7 @@ if (jjtc002) {
       }
     default:
       jj_la1[48] = jj_gen;
-      label_18:
+      label_19:
       while (true) {
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case TIMES:
@@ -2195,7 +2260,7 @@ if (jjtc002) {
           }
         default:
           jj_la1[46] = jj_gen;
-          break label_18;
+          break label_19;
         }
         switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
         case TIMES:{
@@ -2267,8 +2332,8 @@ if (jjtc002) {
     }
   }
 
-  static final public void TermNoFactor() throws ParseException {
-    label_19:
+  final public void TermNoFactor() throws ParseException {
+    label_20:
     while (true) {
       NextFactor();
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
@@ -2279,10 +2344,10 @@ if (jjtc002) {
         }
       default:
         jj_la1[49] = jj_gen;
-        break label_19;
+        break label_20;
       }
     }
-    label_20:
+    label_21:
     while (true) {
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case TIMES:
@@ -2292,7 +2357,7 @@ if (jjtc002) {
         }
       default:
         jj_la1[50] = jj_gen;
-        break label_20;
+        break label_21;
       }
       switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
       case TIMES:{
@@ -2363,7 +2428,7 @@ if (jjtc002) {
     }
   }
 
-  static final public void Factor() throws ParseException {
+  final public void Factor() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case IDENTIFIER:{
       Id();
@@ -2387,12 +2452,12 @@ if (jjtc002) {
     NextFactors();
   }
 
-  static final public void FactorNoId() throws ParseException {
+  final public void FactorNoId() throws ParseException {
     NoIdFactor();
     NextFactors();
   }
 
-  static final public void NoIdFactor() throws ParseException {
+  final public void NoIdFactor() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case INTEGER_LITERAL:{
       Integer();
@@ -2559,7 +2624,7 @@ if (jjtc006) {
     }
   }
 
-  static final public void NextFactors() throws ParseException {
+  final public void NextFactors() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case DOT:
     case OPEN_BRACK:{
@@ -2573,7 +2638,7 @@ if (jjtc006) {
     }
   }
 
-  static final public void NextFactor() throws ParseException {
+  final public void NextFactor() throws ParseException {
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case DOT:{
       NoBrackNextFactor();
@@ -2617,7 +2682,7 @@ if (jjtc001) {
     }
   }
 
-  static final public void NoBrackNextFactor() throws ParseException {
+  final public void NoBrackNextFactor() throws ParseException {
     jj_consume_token(DOT);
     switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
     case LENGTH:{
@@ -2660,7 +2725,7 @@ if (jjtc002) {
     }
   }
 
-  static final public void FunctionCallParams() throws ParseException {/*@bgen(jjtree) PARAMETERS */
+  final public void FunctionCallParams() throws ParseException {/*@bgen(jjtree) PARAMETERS */
   SimpleNode jjtn000 = new SimpleNode(JJTPARAMETERS);
   boolean jjtc000 = true;
   jjtree.openNodeScope(jjtn000);
@@ -2676,7 +2741,7 @@ if (jjtc002) {
       case INTEGER_LITERAL:
       case IDENTIFIER:{
         FullExpression();
-        label_21:
+        label_22:
         while (true) {
           switch ((jj_ntk==-1)?jj_ntk_f():jj_ntk) {
           case COMMA:{
@@ -2685,7 +2750,7 @@ if (jjtc002) {
             }
           default:
             jj_la1[58] = jj_gen;
-            break label_21;
+            break label_22;
           }
           jj_consume_token(COMMA);
           FullExpression();
@@ -2718,7 +2783,7 @@ if (jjtc000) {
     }
   }
 
-  static void error_skip() throws ParseException {Token t = getToken(1);
+  void error_skip() throws ParseException {Token t = getToken(1);
 
     while(t.kind != CLOSE_PAREN && t.kind != OPEN_BRACES && t.kind != IF && t.kind != WHILE && t.kind != SEMI_COLON) {
         t = getNextToken();
@@ -2726,21 +2791,19 @@ if (jjtc000) {
 
     if(t.kind == CLOSE_PAREN || t.kind == SEMI_COLON) {
         getNextToken();
-        System.out.println("T-> " + t.kind);
+        out.println("T-> " + t.kind);
     }
   }
 
-  static private boolean jj_initialized_once = false;
   /** Generated Token Manager. */
-  static public ParserTokenManager token_source;
-  static SimpleCharStream jj_input_stream;
+  public ParserTokenManager token_source;
   /** Current token. */
-  static public Token token;
+  public Token token;
   /** Next token. */
-  static public Token jj_nt;
-  static private int jj_ntk;
-  static private int jj_gen;
-  static final private int[] jj_la1 = new int[60];
+  public Token jj_nt;
+  private int jj_ntk;
+  private int jj_gen;
+  final private int[] jj_la1 = new int[60];
   static private int[] jj_la1_0;
   static private int[] jj_la1_1;
   static {
@@ -2754,53 +2817,9 @@ if (jjtc000) {
       jj_la1_1 = new int[] {0x4001,0x1,0x800,0x4001,0x80,0x602d,0x4101,0x0,0x4001,0x602d,0x602d,0x602d,0x0,0x4002,0x602d,0x602c,0x0,0x602c,0x0,0x0,0x0,0x202c,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x0,0x6000,0x4000,0x2000,0x0,0x0,0x4000,0x0,0x6000,};
    }
 
-  /** Constructor with InputStream. */
-  public Parser(java.io.InputStream stream) {
-     this(stream, null);
-  }
-  /** Constructor with InputStream and supplied encoding */
-  public Parser(java.io.InputStream stream, String encoding) {
-    if (jj_initialized_once) {
-      System.out.println("ERROR: Second call to constructor of static parser.  ");
-      System.out.println("       You must either use ReInit() or set the JavaCC option STATIC to false");
-      System.out.println("       during parser generation.");
-      throw new Error();
-    }
-    jj_initialized_once = true;
-    try { jj_input_stream = new SimpleCharStream(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-    token_source = new ParserTokenManager(jj_input_stream);
-    token = new Token();
-    jj_ntk = -1;
-    jj_gen = 0;
-    for (int i = 0; i < 60; i++) jj_la1[i] = -1;
-  }
-
-  /** Reinitialise. */
-  static public void ReInit(java.io.InputStream stream) {
-     ReInit(stream, null);
-  }
-  /** Reinitialise. */
-  static public void ReInit(java.io.InputStream stream, String encoding) {
-    try { jj_input_stream.ReInit(stream, encoding, 1, 1); } catch(java.io.UnsupportedEncodingException e) { throw new RuntimeException(e); }
-    token_source.ReInit(jj_input_stream);
-    token = new Token();
-    jj_ntk = -1;
-    jjtree.reset();
-    jj_gen = 0;
-    for (int i = 0; i < 60; i++) jj_la1[i] = -1;
-  }
-
-  /** Constructor. */
-  public Parser(java.io.Reader stream) {
-    if (jj_initialized_once) {
-      System.out.println("ERROR: Second call to constructor of static parser. ");
-      System.out.println("       You must either use ReInit() or set the JavaCC option STATIC to false");
-      System.out.println("       during parser generation.");
-      throw new Error();
-    }
-    jj_initialized_once = true;
-    jj_input_stream = new SimpleCharStream(stream, 1, 1);
-    token_source = new ParserTokenManager(jj_input_stream);
+  /** Constructor with user supplied CharStream. */
+  public Parser(CharStream stream) {
+    token_source = new ParserTokenManager(stream);
     token = new Token();
     jj_ntk = -1;
     jj_gen = 0;
@@ -2808,9 +2827,8 @@ if (jjtc000) {
   }
 
   /** Reinitialise. */
-  static public void ReInit(java.io.Reader stream) {
-    jj_input_stream.ReInit(stream, 1, 1);
-    token_source.ReInit(jj_input_stream);
+  public void ReInit(CharStream stream) {
+    token_source.ReInit(stream);
     token = new Token();
     jj_ntk = -1;
     jjtree.reset();
@@ -2820,13 +2838,6 @@ if (jjtc000) {
 
   /** Constructor with generated Token Manager. */
   public Parser(ParserTokenManager tm) {
-    if (jj_initialized_once) {
-      System.out.println("ERROR: Second call to constructor of static parser. ");
-      System.out.println("       You must either use ReInit() or set the JavaCC option STATIC to false");
-      System.out.println("       during parser generation.");
-      throw new Error();
-    }
-    jj_initialized_once = true;
     token_source = tm;
     token = new Token();
     jj_ntk = -1;
@@ -2844,7 +2855,7 @@ if (jjtc000) {
     for (int i = 0; i < 60; i++) jj_la1[i] = -1;
   }
 
-  static private Token jj_consume_token(int kind) throws ParseException {
+  private Token jj_consume_token(int kind) throws ParseException {
     Token oldToken;
     if ((oldToken = token).next != null) token = token.next;
     else token = token.next = token_source.getNextToken();
@@ -2860,7 +2871,7 @@ if (jjtc000) {
 
 
 /** Get the next Token. */
-  static final public Token getNextToken() {
+  final public Token getNextToken() {
     if (token.next != null) token = token.next;
     else token = token.next = token_source.getNextToken();
     jj_ntk = -1;
@@ -2869,7 +2880,7 @@ if (jjtc000) {
   }
 
 /** Get the specific Token. */
-  static final public Token getToken(int index) {
+  final public Token getToken(int index) {
     Token t = token;
     for (int i = 0; i < index; i++) {
       if (t.next != null) t = t.next;
@@ -2878,19 +2889,19 @@ if (jjtc000) {
     return t;
   }
 
-  static private int jj_ntk_f() {
+  private int jj_ntk_f() {
     if ((jj_nt=token.next) == null)
       return (jj_ntk = (token.next=token_source.getNextToken()).kind);
     else
       return (jj_ntk = jj_nt.kind);
   }
 
-  static private java.util.List<int[]> jj_expentries = new java.util.ArrayList<int[]>();
-  static private int[] jj_expentry;
-  static private int jj_kind = -1;
+  private java.util.List<int[]> jj_expentries = new java.util.ArrayList<int[]>();
+  private int[] jj_expentry;
+  private int jj_kind = -1;
 
   /** Generate ParseException. */
-  static public ParseException generateParseException() {
+  public ParseException generateParseException() {
     jj_expentries.clear();
     boolean[] la1tokens = new boolean[47];
     if (jj_kind >= 0) {
@@ -2924,11 +2935,11 @@ if (jjtc000) {
   }
 
   /** Enable tracing. */
-  static final public void enable_tracing() {
+  final public void enable_tracing() {
   }
 
   /** Disable tracing. */
-  static final public void disable_tracing() {
+  final public void disable_tracing() {
   }
 
 }
@@ -10,8 +10,8 @@ class SimpleNode implements Node {
   protected int id;
   protected Object value;
   protected Parser parser;
-  protected Token firstToken;
-  protected Token lastToken;
+  protected int firstToken = -1;
+  protected int lastToken = -1;
 
   public SimpleNode(int i) {
     id = i;
@@ -53,10 +53,12 @@ class SimpleNode implements Node {
   public void jjtSetValue(Object value) { this.value = value; }
   public Object jjtGetValue() { return value; }
 
-  public Token jjtGetFirstToken() { return firstToken; }
-  public void jjtSetFirstToken(Token token) { this.firstToken = token; }
-  public Token jjtGetLastToken() { return lastToken; }
-  public void jjtSetLastToken(Token token) { this.lastToken = token; }
+  /* Tokens are stored by their index in the TokenTable of the tree, the
+     Token objects themselves are not kept after parsing. */
+  public int jjtGetFirstToken() { return firstToken; }
+  public void jjtSetFirstToken(Token token) { this.firstToken = token.index; }
+  public int jjtGetLastToken() { return lastToken; }
+  public void jjtSetLastToken(Token token) { this.lastToken = token.index; }
 
   /* You can override these two methods in subclasses of SimpleNode to
      customize the way the node appears when the tree is dumped.  If
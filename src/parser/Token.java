@@ -20,6 +20,9 @@ public class Token implements java.io.Serializable {
    */
   public int kind;
 
+  /** Index of this Token in the TokenTable of the source. */
+  public int index = -1;
+
   /** The line number of the first character of this Token. */
   public int beginLine;
   /** The column number of the first character of this Token. */
@@ -0,0 +1,86 @@
+package parser;
+
+import java.util.Arrays;
+
+/**
+ * Compact store of the tokens of a source file
+ *
+ * Tokens are kept as parallel int arrays (kind, start offset and length in the source) and identified by their index,
+ * so the AST doesn't keep the Token objects of the parser alive. Lines, columns and images are only computed from the
+ * source when they are requested, usually to report an error.
+ */
+public class TokenTable {
+    private final MappedCharStream source;
+
+    private int[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int size = 0;
+
+    /**
+     * Creates an empty table for the tokens of a source
+     *
+     * @param source Stream from where the tokens are read
+     */
+    TokenTable(MappedCharStream source) {
+        this.source = source;
+
+        final int capacity = Math.max(16, source.length() / 4);
+        this.kinds = new int[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    /**
+     * Adds a token to the end of the table
+     *
+     * @param kind Kind of the token (from ParserConstants)
+     * @param start Offset of the first character of the token
+     * @param length Number of characters of the token
+     *
+     * @return Index of the added token
+     */
+    int add(int kind, int start, int length) {
+        if (size == kinds.length) {
+            final int capacity = size * 2;
+
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+
+        kinds[size] = kind;
+        starts[size] = start;
+        lengths[size] = length;
+
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getKind(int token) {
+        return kinds[token];
+    }
+
+    public int getStart(int token) {
+        return starts[token];
+    }
+
+    public int getLength(int token) {
+        return lengths[token];
+    }
+
+    public String getImage(int token) {
+        return source.substring(starts[token], lengths[token]);
+    }
+
+    public int getBeginLine(int token) {
+        return source.lineAt(starts[token]);
+    }
+
+    public int getBeginColumn(int token) {
+        return source.columnAt(starts[token]);
+    }
+}
@@ -0,0 +1,23 @@
+package parser;
+
+/**
+ * Token Manager that records every token it creates in a TokenTable, setting the index of the token
+ */
+class TokenTableManager extends ParserTokenManager {
+    private final MappedCharStream stream;
+    private final TokenTable tokens;
+
+    TokenTableManager(MappedCharStream stream, TokenTable tokens) {
+        super(stream);
+        this.stream = stream;
+        this.tokens = tokens;
+    }
+
+    @Override
+    protected Token jjFillToken() {
+        final Token token = super.jjFillToken();
+        token.index = tokens.add(token.kind, stream.getTokenStart(), stream.getTokenLength());
+
+        return token;
+    }
+}
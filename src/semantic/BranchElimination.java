@@ -0,0 +1,123 @@
+package semantic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Replaces the gotos to a return with the return itself, threads the gotos to a goto straight to its final label and
+ * inverts the branches over a goto, so they jump where the goto did and fall through to what they jumped to
+ *
+ * The destination of each label is resolved once, following its chain of gotos (gotos in a cycle are left as they are),
+ * so every goto is rewritten in a single traversal.
+ *
+ * @see PassManager
+ */
+class BranchElimination implements InstructionPass {
+    // Destinations of the labels, the label itself being unresolved
+    private static final int UNRESOLVED = -1;
+    private static final int IN_PROGRESS = -2;
+
+    @Override
+    public int run(InstructionTable instructions, InstructionTable rewritten) {
+        final int size = instructions.size();
+
+        int labelCount = 0;
+        for (int i = 0; i < size; i++)
+            labelCount = Math.max(labelCount, instructions.getLabel(i) + 1);
+
+        // Index of the first Instruction following each label (other than a label)
+        final int[] targets = new int[labelCount];
+        for (int i = size - 1, next = size; i >= 0; i--) {
+            final int label = instructions.getLabel(i);
+
+            if (label >= 0)     targets[label] = next;
+            else                next = i;
+        }
+
+        final int[] destinations = new int[labelCount];
+        Arrays.fill(destinations, UNRESOLVED);
+
+        int changes = 0;
+        for (int i = 0; i < size; i++) {
+            if (instructions.isBranch(i) && i + 1 < size && instructions.isGoto(i + 1)
+                    && targets[instructions.getTarget(i)] == following(instructions, i + 1)) {
+                final int destination = resolve(instructions, targets, destinations, instructions.getTarget(i + 1));
+
+                rewritten.add(InstructionTable.invertedBranch(instructions.getOpcode(i)), destination);
+                changes++;
+                i++;
+                continue;
+            }
+
+            if (!instructions.isGoto(i)) {
+                rewritten.addCopy(instructions, i);
+                continue;
+            }
+
+            final int label = instructions.getTarget(i);
+            final int destination = resolve(instructions, targets, destinations, label);
+            final int target = targets[destination];
+
+            if (target < size && instructions.isReturn(target)) {
+                rewritten.addCopy(instructions, target);
+                changes++;
+            }
+            else {
+                rewritten.addGoto(destination);
+                if (destination != label)   changes++;
+            }
+        }
+
+        return changes;
+    }
+
+    /**
+     * @param instructions Instructions of the Function
+     * @param i Index of an Instruction
+     *
+     * @return Index of the first Instruction after it other than a label
+     */
+    private static int following(InstructionTable instructions, int i) {
+        do {
+            i++;
+        } while (i < instructions.size() && instructions.getLabel(i) >= 0);
+
+        return i;
+    }
+
+    /**
+     * @param instructions Instructions of the Function
+     * @param targets Index of the first Instruction following each label
+     * @param destinations Destinations of the labels resolved so far
+     * @param label Number of a label
+     *
+     * @return Last label of the chain of gotos starting at the label (itself if it is part of a cycle)
+     */
+    private static int resolve(InstructionTable instructions, int[] targets, int[] destinations, int label) {
+        final ArrayList<Integer> chain = new ArrayList<>();
+        int destination = label;
+
+        while (destinations[destination] == UNRESOLVED) {
+            final int target = targets[destination];
+            if (target >= instructions.size() || !instructions.isGoto(target))  break;
+
+            destinations[destination] = IN_PROGRESS;
+            chain.add(destination);
+            destination = instructions.getTarget(target);
+        }
+
+        if (destinations[destination] == IN_PROGRESS) {
+            // Cycle of gotos, none of them leading anywhere else
+            for (int chained : chain)
+                destinations[chained] = chained;
+        }
+        else {
+            if (destinations[destination] >= 0)     destination = destinations[destination];
+
+            for (int chained : chain)
+                destinations[chained] = destination;
+        }
+
+        return destinations[label] >= 0 ? destinations[label] : label;
+    }
+}
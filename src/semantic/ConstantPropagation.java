@@ -0,0 +1,442 @@
+package semantic;
+
+import parser.ParserTreeConstants;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Sparse conditional constant propagation over the Control-Flow Graph of a Function, for int and boolean values
+ *
+ * Each local variable (by its slot) and operand stack slot is either a known constant or varying. The blocks are
+ * evaluated from the first one, only following the edges that may be taken: a branch whose condition is known only
+ * reaches its taken successor. A block is evaluated again only when the values it is entered with change, merging
+ * those of the predecessors reached so far, so constants flow through branches and loops (a variable only being
+ * varying in a loop once a different value reaches its header through a back edge).
+ *
+ * The Instructions are then rewritten with the values found: loads of constant variables become constants, arithmetic
+ * on constants loaded right before it is folded, branches whose condition is known become gotos (or are removed, along
+ * with their operands), and the blocks never reached are removed, as are the gotos left jumping to the next block.
+ *
+ * @see PassManager
+ * @see ControlFlowGraph
+ */
+class ConstantPropagation implements InstructionPass {
+    // Value of a variable or stack slot that isn't a known constant
+    private static final long VARYING = Long.MIN_VALUE;
+
+    // Outcomes of a branch
+    private static final int UNKNOWN = 0;
+    private static final int TAKEN = 1;
+    private static final int NOT_TAKEN = 2;
+
+    @Override
+    public int run(InstructionTable instructions, InstructionTable rewritten) {
+        return new Traversal(instructions, rewritten).run();
+    }
+
+    /**
+     * State of a traversal, the pass itself being shared by the Functions optimized in parallel
+     */
+    private static class Traversal {
+        private final InstructionTable instructions;
+        private final InstructionTable rewritten;
+        private final ControlFlowGraph graph;
+
+        private final int[] locals;
+        private final int localCount;
+        private final int[] labelBlocks;
+
+        // Values each block is entered with (locals, then the operand stack), null for the blocks not reached
+        private final long[][] entries;
+
+        // Values of the block being evaluated, with the index of the constant Instruction (rewritten) that pushed
+        // each stack slot, -1 if it wasn't a single constant of this block
+        private long[] values;
+        private int[] pushes;
+        private int depth;
+
+        private Traversal(InstructionTable instructions, InstructionTable rewritten) {
+            this.instructions = instructions;
+            this.rewritten = rewritten;
+            this.graph = new ControlFlowGraph(instructions);
+
+            // Local of each variable: its slot, or one of its own if it isn't allocated
+            final int variableCount = instructions.getVariableCount();
+            int slotCount = 0;
+            for (int variable = 0; variable < variableCount; variable++)
+                slotCount = Math.max(slotCount, instructions.getSlot(variable) + 1);
+
+            this.locals = new int[variableCount];
+            for (int variable = 0; variable < variableCount; variable++) {
+                final int slot = instructions.getSlot(variable);
+                locals[variable] = slot >= 0 ? slot : slotCount + variable;
+            }
+            this.localCount = slotCount + variableCount;
+
+            int labelCount = 0;
+            for (int i = 0; i < instructions.size(); i++)
+                labelCount = Math.max(labelCount, instructions.getLabel(i) + 1);
+
+            this.labelBlocks = new int[labelCount];
+            for (int i = 0; i < instructions.size(); i++)
+                if (instructions.getLabel(i) >= 0)  labelBlocks[instructions.getLabel(i)] = graph.getBlock(i);
+
+            this.entries = new long[graph.getBlockCount()][];
+            this.values = new long[localCount + 8];
+            this.pushes = new int[values.length];
+        }
+
+        private int run() {
+            if (graph.getBlockCount() == 0)     return 0;
+
+            propagate();
+            return rewrite();
+        }
+
+        /**
+         * Evaluates the blocks reached from the first one, until the values they are entered with settle
+         */
+        private void propagate() {
+            final ArrayDeque<Integer> worklist = new ArrayDeque<>();
+            final boolean[] queued = new boolean[graph.getBlockCount()];
+
+            // Parameters (and variables not yet stored) are varying
+            entries[0] = new long[localCount];
+            Arrays.fill(entries[0], VARYING);
+            worklist.add(0);
+            queued[0] = true;
+
+            while (!worklist.isEmpty()) {
+                final int block = worklist.poll();
+                queued[block] = false;
+
+                enter(block);
+
+                final int last = graph.getEnd(block) - 1;
+                for (int i = graph.getStart(block); i < last; i++)
+                    evaluate(i);
+
+                final int outcome = instructions.isBranch(last) ? outcome(last) : UNKNOWN;
+                evaluate(last);
+
+                for (int successor : successors(block, outcome)) {
+                    if (!merge(successor) || queued[successor])     continue;
+
+                    worklist.add(successor);
+                    queued[successor] = true;
+                }
+            }
+        }
+
+        /**
+         * @param block Index of a block
+         * @param outcome Outcome of the branch ending the block (UNKNOWN if it doesn't end with one)
+         *
+         * @return Successors of the block that are reached
+         */
+        private int[] successors(int block, int outcome) {
+            final int last = graph.getEnd(block) - 1;
+            final int[] successors = graph.getSuccessors(block);
+
+            if (outcome == TAKEN)
+                return new int[]{labelBlocks[instructions.getTarget(last)]};
+            else if (outcome == NOT_TAKEN)
+                return block + 1 < graph.getBlockCount() ? new int[]{block + 1} : new int[0];
+            else
+                return successors;
+        }
+
+        /**
+         * Merges the values at the end of the block being evaluated into those a successor is entered with
+         *
+         * @param successor Index of the successor
+         *
+         * @return Whether the values the successor is entered with changed
+         */
+        private boolean merge(int successor) {
+            final long[] entry = entries[successor];
+
+            if (entry == null) {
+                entries[successor] = Arrays.copyOf(values, localCount + depth);
+                return true;
+            }
+
+            boolean changed = false;
+            for (int k = 0; k < entry.length; k++) {
+                if (entry[k] == VARYING || entry[k] == values[k])   continue;
+
+                entry[k] = VARYING;
+                changed = true;
+            }
+
+            return changed;
+        }
+
+        /**
+         * Takes the values a block is entered with as the current ones
+         */
+        private void enter(int block) {
+            final long[] entry = entries[block];
+
+            depth = entry.length - localCount;
+            System.arraycopy(entry, 0, values, 0, entry.length);
+            Arrays.fill(pushes, 0, depth, -1);
+        }
+
+        /**
+         * Updates the current values with the effect of an Instruction
+         *
+         * @param i Index of the Instruction
+         */
+        private void evaluate(int i) {
+            final int opcode = instructions.getOpcode(i), operand = instructions.getOperand(i);
+
+            switch (opcode) {
+                case InstructionTable.LABEL:
+                    break;
+                case InstructionTable.ILOAD:
+                    push(values[locals[operand]]);
+                    break;
+                case InstructionTable.ISTORE:
+                    values[locals[operand]] = pop();
+                    break;
+                case InstructionTable.ASTORE:
+                    pop();
+                    values[locals[operand]] = VARYING;
+                    break;
+                case InstructionTable.IINC:
+                    final long value = values[locals[operand]];
+                    if (value != VARYING)   values[locals[operand]] = (int) (value + instructions.getIncrement(i));
+                    break;
+                case InstructionTable.BIPUSH:
+                case InstructionTable.SIPUSH:
+                case InstructionTable.LDC:
+                    push(operand);
+                    break;
+                case ParserTreeConstants.JJTTRUE:
+                    push(1);
+                    break;
+                case ParserTreeConstants.JJTFALSE:
+                    push(0);
+                    break;
+                case ParserTreeConstants.JJTPLUS:
+                case ParserTreeConstants.JJTMINUS:
+                case ParserTreeConstants.JJTTIMES:
+                case ParserTreeConstants.JJTDIVIDE:
+                    final long second = pop(), first = pop();
+                    push(fold(opcode, first, second));
+                    break;
+                default:
+                    depth -= instructions.popCount(opcode, operand);
+                    for (int k = instructions.pushCount(opcode, operand); k > 0; k--)
+                        push(VARYING);
+            }
+        }
+
+        private void push(long value) {
+            if (localCount + depth == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+                pushes = Arrays.copyOf(pushes, values.length);
+            }
+
+            pushes[depth] = -1;
+            values[localCount + depth++] = value;
+        }
+
+        private long pop() {
+            return values[localCount + --depth];
+        }
+
+        /**
+         * @return Value of an arithmetic Instruction on two values, varying unless both are constant (and the divisor
+         * isn't 0)
+         */
+        private static long fold(int opcode, long first, long second) {
+            if (first == VARYING || second == VARYING)  return VARYING;
+
+            switch (opcode) {
+                case ParserTreeConstants.JJTPLUS:
+                    return (int) first + (int) second;
+                case ParserTreeConstants.JJTMINUS:
+                    return (int) first - (int) second;
+                case ParserTreeConstants.JJTTIMES:
+                    return (int) first * (int) second;
+                default:
+                    return second != 0 ? (int) first / (int) second : VARYING;
+            }
+        }
+
+        /**
+         * @param i Index of a branch Instruction, its operands being on top of the current stack
+         *
+         * @return Whether the branch is taken, not taken, or unknown
+         */
+        private int outcome(int i) {
+            final int opcode = instructions.getOpcode(i);
+            final long second = values[localCount + depth - 1];
+            final long first = opcode == InstructionTable.IFEQ || opcode == InstructionTable.IFGT
+                    ? 0 : values[localCount + depth - 2];
+
+            if (first == VARYING || second == VARYING)  return UNKNOWN;
+
+            final boolean taken;
+            switch (opcode) {
+                case InstructionTable.IFEQ:
+                    taken = second == 0;
+                    break;
+                case InstructionTable.IFGT:
+                    taken = second > 0;
+                    break;
+                case InstructionTable.IFCMPGE:
+                    taken = first >= second;
+                    break;
+                default:
+                    taken = first < second;
+            }
+
+            return taken ? TAKEN : NOT_TAKEN;
+        }
+
+        /**
+         * Rewrites the blocks reached, in their order, with the values they were found to be entered with
+         *
+         * @return Number of changes made
+         */
+        private int rewrite() {
+            int changes = 0;
+
+            for (int block = 0; block < graph.getBlockCount(); block++) {
+                if (entries[block] == null) {
+                    changes++;
+                    continue;
+                }
+
+                enter(block);
+
+                final int last = graph.getEnd(block) - 1;
+                for (int i = graph.getStart(block); i <= last; i++) {
+                    if (instructions.isBranch(i)) {
+                        final int outcome = outcome(i);
+
+                        if (outcome == UNKNOWN) {
+                            rewritten.addCopy(instructions, i);
+                            evaluate(i);
+                            continue;
+                        }
+
+                        removeOperands(instructions.popCount(instructions.getOpcode(i), instructions.getOperand(i)));
+
+                        if (outcome == TAKEN && !isNextBlock(block, instructions.getTarget(i)))
+                            rewritten.addGoto(instructions.getTarget(i));
+
+                        changes++;
+                    }
+                    else if (instructions.isGoto(i) && isNextBlock(block, instructions.getTarget(i))) {
+                        changes++;
+                    }
+                    else if (rewrite(i)) {
+                        changes++;
+                    }
+                }
+            }
+
+            return changes;
+        }
+
+        /**
+         * Writes an Instruction, replaced by a constant when its value is known and it can be, updating the current
+         * values with its effect
+         *
+         * @param i Index of the Instruction
+         *
+         * @return Whether the Instruction was replaced
+         */
+        private boolean rewrite(int i) {
+            final int opcode = instructions.getOpcode(i);
+
+            switch (opcode) {
+                case InstructionTable.ILOAD:
+                    final long value = values[locals[instructions.getOperand(i)]];
+                    if (value == VARYING)   break;
+
+                    pushConstant((int) value);
+                    return true;
+                case InstructionTable.BIPUSH:
+                case InstructionTable.SIPUSH:
+                case InstructionTable.LDC:
+                case ParserTreeConstants.JJTTRUE:
+                case ParserTreeConstants.JJTFALSE:
+                    rewritten.addCopy(instructions, i);
+                    evaluate(i);
+                    pushes[depth - 1] = rewritten.size() - 1;
+                    return false;
+                case ParserTreeConstants.JJTPLUS:
+                case ParserTreeConstants.JJTMINUS:
+                case ParserTreeConstants.JJTTIMES:
+                case ParserTreeConstants.JJTDIVIDE:
+                    final long result = fold(opcode, values[localCount + depth - 2], values[localCount + depth - 1]);
+                    if (result == VARYING || !areOperandsLast(2))   break;
+
+                    removeOperands(2);
+                    pushConstant((int) result);
+                    return true;
+            }
+
+            rewritten.addCopy(instructions, i);
+            evaluate(i);
+            return false;
+        }
+
+        private void pushConstant(int value) {
+            rewritten.addConstant(value);
+            push(value);
+            pushes[depth - 1] = rewritten.size() - 1;
+        }
+
+        /**
+         * @param count Number of values on top of the current stack
+         *
+         * @return Whether the values were pushed by the last constant Instructions written, one each
+         */
+        private boolean areOperandsLast(int count) {
+            for (int k = 1; k <= count; k++)
+                if (pushes[depth - k] != rewritten.size() - k)  return false;
+
+            return true;
+        }
+
+        /**
+         * Removes values from the top of the current stack, removing the constants that pushed them if they were the
+         * last Instructions written, or popping them otherwise
+         *
+         * @param count Number of values
+         */
+        private void removeOperands(int count) {
+            if (areOperandsLast(count)) {
+                rewritten.truncate(rewritten.size() - count);
+            }
+            else {
+                for (int k = 0; k < count; k++)
+                    rewritten.addPop();
+            }
+
+            depth -= count;
+        }
+
+        /**
+         * @param block Index of a block
+         * @param label Number of a label
+         *
+         * @return Whether the label starts the first block reached after the given one (so jumping to it is the same as
+         * falling through)
+         */
+        private boolean isNextBlock(int block, int label) {
+            int next = block + 1;
+            while (next < graph.getBlockCount() && entries[next] == null)
+                next++;
+
+            return next < graph.getBlockCount() && labelBlocks[label] == next;
+        }
+    }
+}
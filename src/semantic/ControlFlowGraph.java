@@ -0,0 +1,437 @@
+package semantic;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Control-Flow Graph of the Intermediate Code of a Function
+ *
+ * Instructions are split into basic blocks, identified by their index, in the order of the Instructions: a block starts
+ * at the first Instruction, at a label (consecutive labels share their block) and after a goto, branch or return, and
+ * holds the Instructions up to the next start. Besides the edges between blocks, the graph keeps the reverse postorder
+ * of the blocks reachable from the first one, their dominator tree and the natural loops they form, so that the passes
+ * over a Function share a single construction and work on blocks rather than on single Instructions.
+ *
+ * The graph describes the Instructions as they were when it was built, so it must be built again after changing them.
+ *
+ * @see InstructionTable
+ * @see FunctionTable
+ */
+public class ControlFlowGraph {
+    private static final int[] NO_BLOCKS = new int[0];
+
+    private final int blockCount;
+    private final int[] starts;
+    private final int[] blocks;
+
+    private final int[][] successors;
+    private final int[][] predecessors;
+
+    private final int[] reversePostorder;
+    private final int[] postorderIndexes;
+    private final int[] immediateDominators;
+
+    private int loopCount = 0;
+    private int[] loopHeaders = new int[4];
+    private int[] loopParents = new int[4];
+    private BitSet[] loopBlocks = new BitSet[4];
+    private final int[] innermostLoops;
+    private final int[] loopDepths;
+
+    /**
+     * Builds the graph of the Instructions of a Function
+     *
+     * @param instructions Intermediate Instructions of the Function
+     */
+    ControlFlowGraph(InstructionTable instructions) {
+        final int size = instructions.size();
+
+        // Basic blocks
+        final int[] blockStarts = new int[size + 1];
+        int count = 0;
+
+        for (int i = 0; i < size; i++)
+            if (i == 0 || isTerminator(instructions, i - 1)
+                    || (instructions.getLabel(i) >= 0 && instructions.getLabel(i - 1) < 0))
+                blockStarts[count++] = i;
+
+        blockStarts[count] = size;
+
+        this.blockCount = count;
+        this.starts = Arrays.copyOf(blockStarts, count + 1);
+        this.blocks = new int[size];
+
+        int[] labelBlocks = new int[16];
+        for (int block = 0; block < blockCount; block++) {
+            for (int i = starts[block]; i < starts[block + 1]; i++) {
+                blocks[i] = block;
+
+                final int label = instructions.getLabel(i);
+                if (label < 0)  continue;
+
+                if (label >= labelBlocks.length)    labelBlocks = Arrays.copyOf(labelBlocks, label * 2);
+                labelBlocks[label] = block;
+            }
+        }
+
+        // Edges
+        this.successors = new int[blockCount][];
+        final int[] predecessorCounts = new int[blockCount];
+
+        for (int block = 0; block < blockCount; block++) {
+            final int last = starts[block + 1] - 1;
+            final boolean fallsThrough = block + 1 < blockCount;
+
+            if (instructions.isGoto(last))
+                successors[block] = new int[]{labelBlocks[instructions.getTarget(last)]};
+            else if (instructions.isBranch(last))
+                successors[block] = fallsThrough
+                        ? new int[]{block + 1, labelBlocks[instructions.getTarget(last)]}
+                        : new int[]{labelBlocks[instructions.getTarget(last)]};
+            else if (instructions.isReturn(last) || !fallsThrough)
+                successors[block] = NO_BLOCKS;
+            else
+                successors[block] = new int[]{block + 1};
+
+            for (int successor : successors[block])
+                predecessorCounts[successor]++;
+        }
+
+        this.predecessors = new int[blockCount][];
+        for (int block = 0; block < blockCount; block++)
+            predecessors[block] = predecessorCounts[block] > 0 ? new int[predecessorCounts[block]] : NO_BLOCKS;
+
+        Arrays.fill(predecessorCounts, 0);
+        for (int block = 0; block < blockCount; block++)
+            for (int successor : successors[block])
+                predecessors[successor][predecessorCounts[successor]++] = block;
+
+        // Reverse postorder of the reachable blocks
+        this.postorderIndexes = new int[blockCount];
+        Arrays.fill(postorderIndexes, -1);
+        this.reversePostorder = postorder();
+
+        for (int i = 0, j = reversePostorder.length - 1; i < j; i++, j--) {
+            final int block = reversePostorder[i];
+            reversePostorder[i] = reversePostorder[j];
+            reversePostorder[j] = block;
+        }
+
+        // Dominator tree and loops
+        this.immediateDominators = dominators();
+
+        this.innermostLoops = new int[blockCount];
+        this.loopDepths = new int[blockCount];
+        Arrays.fill(innermostLoops, -1);
+        findLoops();
+    }
+
+    private static boolean isTerminator(InstructionTable instructions, int i) {
+        return instructions.isGoto(i) || instructions.isBranch(i) || instructions.isReturn(i);
+    }
+
+    /**
+     * Numbers the blocks reachable from the first one in postorder, with an iterative depth-first search
+     *
+     * @return Reachable blocks in postorder
+     */
+    private int[] postorder() {
+        if (blockCount == 0)    return NO_BLOCKS;
+
+        final int[] order = new int[blockCount];
+        final int[] nextSuccessor = new int[blockCount];
+        final boolean[] visited = new boolean[blockCount];
+        final ArrayDeque<Integer> stack = new ArrayDeque<>();
+        int count = 0;
+
+        stack.push(0);
+        visited[0] = true;
+
+        while (!stack.isEmpty()) {
+            final int block = stack.peek();
+
+            if (nextSuccessor[block] < successors[block].length) {
+                final int successor = successors[block][nextSuccessor[block]++];
+
+                if (!visited[successor]) {
+                    visited[successor] = true;
+                    stack.push(successor);
+                }
+            }
+            else {
+                stack.pop();
+                postorderIndexes[block] = count;
+                order[count++] = block;
+            }
+        }
+
+        return Arrays.copyOf(order, count);
+    }
+
+    /**
+     * Computes the immediate dominators of the reachable blocks, iterating over them in reverse postorder until they
+     * settle (Cooper, Harvey and Kennedy)
+     *
+     * @return Immediate dominator of each block (the first one dominating itself, -1 for unreachable blocks)
+     */
+    private int[] dominators() {
+        final int[] dominators = new int[blockCount];
+        Arrays.fill(dominators, -1);
+        if (blockCount == 0)    return dominators;
+
+        dominators[0] = 0;
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int i = 1; i < reversePostorder.length; i++) {
+                final int block = reversePostorder[i];
+                int dominator = -1;
+
+                for (int predecessor : predecessors[block]) {
+                    if (dominators[predecessor] < 0)    continue;
+
+                    dominator = dominator < 0 ? predecessor : intersect(dominators, predecessor, dominator);
+                }
+
+                if (dominators[block] != dominator) {
+                    dominators[block] = dominator;
+                    changed = true;
+                }
+            }
+        }
+
+        return dominators;
+    }
+
+    private int intersect(int[] dominators, int first, int second) {
+        while (first != second) {
+            while (postorderIndexes[first] < postorderIndexes[second])  first = dominators[first];
+            while (postorderIndexes[second] < postorderIndexes[first])  second = dominators[second];
+        }
+
+        return first;
+    }
+
+    /**
+     * Finds the natural loops, one per header (merging the back edges to the same header), ordered by their header in
+     * reverse postorder, so every loop comes after the loops containing it
+     */
+    private void findLoops() {
+        for (int header : reversePostorder) {
+            BitSet body = null;
+            final ArrayDeque<Integer> worklist = new ArrayDeque<>();
+
+            for (int latch : predecessors[header]) {
+                if (!isReachable(latch) || !dominates(header, latch))   continue;
+
+                if (body == null) {
+                    body = new BitSet(blockCount);
+                    body.set(header);
+                }
+
+                if (!body.get(latch)) {
+                    body.set(latch);
+                    worklist.push(latch);
+                }
+            }
+
+            if (body == null)   continue;
+
+            while (!worklist.isEmpty()) {
+                for (int predecessor : predecessors[worklist.pop()]) {
+                    if (!isReachable(predecessor) || body.get(predecessor))     continue;
+
+                    body.set(predecessor);
+                    worklist.push(predecessor);
+                }
+            }
+
+            addLoop(header, body);
+        }
+    }
+
+    private void addLoop(int header, BitSet body) {
+        if (loopCount == loopHeaders.length) {
+            loopHeaders = Arrays.copyOf(loopHeaders, loopCount * 2);
+            loopParents = Arrays.copyOf(loopParents, loopCount * 2);
+            loopBlocks = Arrays.copyOf(loopBlocks, loopCount * 2);
+        }
+
+        // Loops containing this one were found before it, the innermost of them being the last one
+        loopParents[loopCount] = innermostLoops[header];
+        loopHeaders[loopCount] = header;
+        loopBlocks[loopCount] = body;
+
+        for (int block = body.nextSetBit(0); block >= 0; block = body.nextSetBit(block + 1)) {
+            innermostLoops[block] = loopCount;
+            loopDepths[block]++;
+        }
+
+        loopCount++;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @param block Index of a block
+     *
+     * @return Index of the first Instruction of the block
+     */
+    public int getStart(int block) {
+        return starts[block];
+    }
+
+    /**
+     * @param block Index of a block
+     *
+     * @return Index following the last Instruction of the block
+     */
+    public int getEnd(int block) {
+        return starts[block + 1];
+    }
+
+    /**
+     * @param i Index of an Instruction
+     *
+     * @return Index of the block containing the Instruction
+     */
+    public int getBlock(int i) {
+        return blocks[i];
+    }
+
+    /**
+     * @param block Index of a block
+     *
+     * @return Blocks that may follow the block (fall-through first), not to be modified
+     */
+    public int[] getSuccessors(int block) {
+        return successors[block];
+    }
+
+    /**
+     * @param block Index of a block
+     *
+     * @return Blocks that may precede the block, in ascending order, not to be modified
+     */
+    public int[] getPredecessors(int block) {
+        return predecessors[block];
+    }
+
+    /**
+     * @return Blocks reachable from the first one, in reverse postorder, not to be modified
+     */
+    public int[] getReversePostorder() {
+        return reversePostorder;
+    }
+
+    public boolean isReachable(int block) {
+        return postorderIndexes[block] >= 0;
+    }
+
+    /**
+     * @param block Index of a block
+     *
+     * @return Immediate dominator of the block, -1 for the first block and unreachable blocks
+     */
+    public int getImmediateDominator(int block) {
+        return block != 0 ? immediateDominators[block] : -1;
+    }
+
+    /**
+     * @param dominator Index of a block
+     * @param block Index of a block
+     *
+     * @return Whether every path from the first block to the given block goes through the dominator (a reachable
+     * block dominates itself)
+     */
+    public boolean dominates(int dominator, int block) {
+        if (!isReachable(dominator) || !isReachable(block))     return false;
+
+        while (postorderIndexes[block] < postorderIndexes[dominator])
+            block = immediateDominators[block];
+
+        return block == dominator;
+    }
+
+    public int getLoopCount() {
+        return loopCount;
+    }
+
+    /**
+     * @param loop Index of a loop
+     *
+     * @return Header of the loop, the single block through which it is entered
+     */
+    public int getLoopHeader(int loop) {
+        return loopHeaders[loop];
+    }
+
+    /**
+     * @param loop Index of a loop
+     *
+     * @return Blocks of the loop (including its header and inner loops), not to be modified
+     */
+    public BitSet getLoopBlocks(int loop) {
+        return loopBlocks[loop];
+    }
+
+    /**
+     * @param loop Index of a loop
+     *
+     * @return Innermost loop containing the loop, -1 if it is not nested
+     */
+    public int getLoopParent(int loop) {
+        return loopParents[loop];
+    }
+
+    /**
+     * @param block Index of a block
+     *
+     * @return Innermost loop containing the block, -1 if it is not in a loop
+     */
+    public int getLoop(int block) {
+        return innermostLoops[block];
+    }
+
+    /**
+     * @param block Index of a block
+     *
+     * @return Number of loops containing the block
+     */
+    public int getLoopDepth(int block) {
+        return loopDepths[block];
+    }
+
+    /**
+     * @return Human readable format of the blocks, with their edges, dominators and loops
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+
+        for (int block = 0; block < blockCount; block++) {
+            sb.append("B").append(block).append(" [").append(starts[block]).append(", ").append(starts[block + 1])
+                    .append(") ->");
+
+            for (int successor : successors[block])
+                sb.append(" B").append(successor);
+
+            if (!isReachable(block))
+                sb.append(" (unreachable)");
+            else if (block != 0)
+                sb.append(" idom B").append(immediateDominators[block]);
+
+            if (innermostLoops[block] >= 0)
+                sb.append(" loop ").append(innermostLoops[block]).append(" depth ").append(loopDepths[block]);
+
+            sb.append(System.lineSeparator());
+        }
+
+        return sb.toString();
+    }
+}
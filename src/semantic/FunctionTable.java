@@ -1,60 +1,72 @@
 package semantic;
 
-import parser.Node;
+import parser.NodeTable;
 import parser.ParserTreeConstants;
-
-import java.util.Collections;
-import java.util.LinkedList;
+import timing.PhaseTimer;
 
 /**
  * Abstract Class containing all relevant information of a Function (Method or Main)
  *
  * Keeps its return type, Symbol Tables of its parameters and local variables, references to the AST Node containing
- * the function body and the IR to which the function belongs to, and the function's Intermediate Code.
+ * the function body and the IR to which the function belongs to, and the function's Intermediate Code, along with its
+ * Control-Flow Graph (built on the first request).
  *
  * @see IntermediateRepresentation
  * @see SymbolTable
  * @see IntermediateCode
+ * @see ControlFlowGraph
  */
 public abstract class FunctionTable {
-    private final Node bodyNode;
+    final NodeTable nodes;
+    private final int functionNode;
+    private final int bodyNode;
 
     private final IntermediateRepresentation classTable;
+    private final TypeTable types;
 
     private final LinkedSymbolTable parameters = new LinkedSymbolTable();
-    private final ValueTable variables = new ValueTable();
+    private final SymbolTable variables = new SymbolTable(Symbol.Kind.LOCAL);
 
     private final Type returnType;
 
-    private final IntermediateCode intermediateCode = new IntermediateCode(this);
+    private final IntermediateCode intermediateCode;
+    private ControlFlowGraph controlFlowGraph;
 
-    private final LinkedList<Type> typeList = new LinkedList<>();
-    private final LinkedList<MethodSignature> methodList = new LinkedList<>();
+    // Intermediate Code before its SSA optimization, and what the last one did that keeps values in local variables
+    private InstructionTable unoptimizedInstructions;
+    private boolean invariantsMoved;
+    private boolean valuesReused;
 
     private final boolean optimize;
 
     /**
      * Constructor of the class, initializing the Function Table with its AST body Node and its belonging IR without a
      * return type (Only case is Main)
-     *  @param bodyNode AST Root of the Function body
+     *  @param functionNode AST Root of the Function
+     * @param bodyNode AST Root of the Function body
      * @param ir IntermediateRepresentation to which this Function Table belongs to
      * @param optimize
      */
-    FunctionTable(Node bodyNode, IntermediateRepresentation ir, boolean optimize) {
-        this(bodyNode, ir, null, optimize);
+    FunctionTable(int functionNode, int bodyNode, IntermediateRepresentation ir, boolean optimize) {
+        this(functionNode, bodyNode, ir, null, optimize);
     }
 
     /**
      * Constructor of the class, initializing the Function Table with its AST body Node, its belonging IR and its
      * Return Type
-     *  @param bodyNode AST Root of the Function body
+     *  @param functionNode AST Root of the Function
+     * @param bodyNode AST Root of the Function body
      * @param ir IntermediateRepresentation to which this Function Table belongs to
      * @param returnType Return Type of the Function
      * @param optimize
      */
-    FunctionTable(Node bodyNode, IntermediateRepresentation ir, Type returnType, boolean optimize) {
+    FunctionTable(int functionNode, int bodyNode, IntermediateRepresentation ir, Type returnType, boolean optimize) {
+        this.nodes = ir.getNodes();
+        this.functionNode = functionNode;
         this.bodyNode = bodyNode;
         this.classTable = ir;
+        this.types = ir.getTypes();
+        this.intermediateCode = new IntermediateCode(this, ir);
         this.returnType = returnType;
         this.optimize = optimize;
     }
@@ -68,349 +80,205 @@ public abstract class FunctionTable {
      */
     private int fillVariables() throws SemanticException {
         int i = 0;
-        while (i < bodyNode.jjtGetNumChildren()) {
-            Node varNode = bodyNode.jjtGetChild(i++);
+        while (i < nodes.getNumChildren(bodyNode)) {
+            int varNode = nodes.getChild(bodyNode, i++);
 
-            if (varNode.getId() != ParserTreeConstants.JJTVAR)  return i - 1;
+            if (nodes.getKind(varNode) != ParserTreeConstants.JJTVAR)  return i - 1;
 
-            Node idNode = varNode.jjtGetChild(1);
+            int idNode = nodes.getChild(varNode, 1);
 
-            if (parameters.containsId(idNode) || (returnType == null && isClassField(idNode)))
-                throw new SemanticException(idNode, "Redefinition of variable (Conflicting Ids within scope)");
+            if (parameters.containsId(identifier(idNode))
+                    || (returnType == null && classTable.getAttributes().containsId(identifier(idNode))))
+                throw new SemanticException(nodes, idNode, "Redefinition of variable (Conflicting Ids within scope)");
 
-            variables.addDeclaration(varNode);
+            variables.addDeclaration(nodes, types, varNode);
         }
 
         return i;
     }
 
     /**
-     * Analyses the body for Semantic Errors and, afterwards, generates Intermediate Code
+     * Declares and binds the variables of the body and, afterwards, analyses it for Semantic Errors while generating
+     * its Intermediate Code, in a single traversal
+     *
+     * @param timer Timer where both phases are measured (the traversal is measured as IR Generation)
+     * @param name Name of the Function in the measurements
      *
      * @throws SemanticException on Semantic Error
      */
-    void analyseAndGenerateBody() throws SemanticException {
+    void analyseAndGenerateBody(PhaseTimer timer, String name) throws SemanticException {
+        PhaseTimer.Mark mark = timer.start();
         final int firstStatement = fillVariables();
-        analyseStatements(bodyNode, firstStatement);
-        intermediateCode.generateFunctionCode(bodyNode, firstStatement, typeList, methodList);
+        resolveIdentifiers(bodyNode, firstStatement);
+        timer.stop(mark, PhaseTimer.Phase.SEMANTIC_ANALYSIS, name);
+
+        mark = timer.start();
+        intermediateCode.generateFunctionCode(bodyNode, firstStatement);
+        timer.stop(mark, PhaseTimer.Phase.IR_GENERATION, name);
     }
 
     /**
-     * Analyses a series of statements (compound statement or body statements)
+     * Optimizes the Intermediate Code in SSA form (-O2), translating it back to stack code with local variables
      *
-     * @param statementsNode AST Root containing the statements to be analysed
-     * @param i Index of the first statement child in the provided node
+     * @param timer Timer where the translations and optimizations are measured
+     * @param name Name of the Function in the measurements
      *
-     * @throws SemanticException on Semantic Error
+     * @see SSAForm
      */
-    private void analyseStatements(Node statementsNode, int i) throws SemanticException {
-        Node statementNode;
-        while (i < statementsNode.jjtGetNumChildren()) {
-            statementNode = statementsNode.jjtGetChild(i++);
-
-            switch(statementNode.getId()) {
-                case ParserTreeConstants.JJTASSIGN:
-                    final Node assignNode = statementNode.jjtGetChild(0);
-                    final Node expressionNode = statementNode.jjtGetChild(1);
-
-                    final Type assignType = analyseExpression(assignNode, typeList, Type.UNKNOWN());
-                    final Type expressionType = analyseExpression(expressionNode, typeList, assignType);
-
-                    if (notInheritance(assignType, expressionType)) {
-                        if (!assignType.equals(expressionType)) {
-                            throw new SemanticException(statementNode,
-                                    "Invalid assignment of " + expressionType + " to variable of type " + assignType);
-                        } else if (variables.hasValue(assignNode)) {
-                            variables.putValue(assignNode, null);
-                        } else if (expressionNode.getId() == ParserTreeConstants.JJTINTEGER && optimize) {
-                            variables.putValue(assignNode,
-                                    Integer.parseInt(String.valueOf(expressionNode.jjtGetValue())));
-                        }
-                    }
-                    else {
-                        setIdType(statementNode.jjtGetChild(0), expressionType);
-                    }
-
-                    typeList.add(expressionType);
-                    break;
-                case ParserTreeConstants.JJTIF:
-                case ParserTreeConstants.JJTWHILE:
-                    final Type conditionType = analyseExpression(statementNode.jjtGetChild(0).jjtGetChild(0),
-                            typeList, Type.BOOLEAN());
-
-                    if (!conditionType.isBoolean())
-                        throw new SemanticException(statementNode,
-                                "Invalid condition of non-boolean type ( " + conditionType + " )");
+    void optimizeSSA(PhaseTimer timer, String name) {
+        final PhaseTimer.Mark mark = timer.start();
 
-                    analyseStatements(statementNode.jjtGetChild(1), 0);
+        final InstructionTable instructions = getIntermediateInstructions();
+        unoptimizedInstructions = instructions.emptyCopy();
+        for (int i = 0; i < instructions.size(); i++)
+            unoptimizedInstructions.addCopy(instructions, i);
 
-                    if (statementNode.jjtGetNumChildren() == 3)
-                        analyseStatements(statementNode.jjtGetChild(2), 0);
-                    break;
-                case ParserTreeConstants.JJTFCALL:
-                    final Node classNode = statementNode.jjtGetChild(0);
-                    Type classType;
-                    if (classNode.getId() == ParserTreeConstants.JJTID && getIdType(classNode) == null)
-                        classType = Type.CLASS(String.valueOf(classNode.jjtGetValue()));
-                    else
-                        classType = analyseExpression(statementNode.jjtGetChild(0), typeList, Type.UNKNOWN());
-                    final String methodId = String.valueOf(statementNode.jjtGetChild(1).jjtGetValue());
-                    final Type[] parameterTypes = analyseParameters(statementNode.jjtGetChild(2), typeList);
-
-                    MethodSignature methodSignature = classTable.checkMethod(statementNode, classType,
-                            methodId, parameterTypes);
-
-                    // Deduce the return type of unknown methods
-                    if (methodSignature.getReturnType() == null)
-                        methodSignature.setReturnType(Type.VOID());
-
-                    if (methodSignature.isParent())
-                        typeList.add(Type.ID(classTable.getExtendIdentifier()));
-                    else
-                        typeList.add(classType);
-
-                    methodList.add(methodSignature);
-
-                    break;
-                case ParserTreeConstants.JJTRETURN:
-                    final Type returnType = analyseExpression(statementNode.jjtGetChild(0), typeList, this.returnType);
-
-                    if (!this.returnType.equals(returnType))
-                        throw new SemanticException(statementNode,
-                                "Invalid return expression type, expected " + this.returnType
-                                        + " instead of " + returnType + ",");
-
-                    typeList.add(returnType);
-                    break;
-                default:
-                    throw new SemanticException(statementNode, "Invalid statement");
-            }
-        }
-    }
+        optimizeSSA(true, true);
 
-    private boolean notInheritance(Type parentClass, Type childClass) {
-        return !parentClass.equals(Type.ID(classTable.getExtendIdentifier()))
-                && !childClass.equals(Type.ID(classTable.getClassIdentifier()));
+        timer.stop(mark, PhaseTimer.Phase.SSA, name);
     }
 
     /**
-     * Analyses the parameters from a function call
+     * Optimizes the Intermediate Code again, from the code it was generated with, without the last SSA optimization
+     * that keeps more values in local variables: the loop invariants are left in their loops first, then no value is
+     * reused either, and at last the SSA optimization is left out altogether, keeping the code of -o
      *
-     * @param parameterNode AST Root containing the parameters being called
-     * @param typeList List of Types kept during the Semantic Analysis that are useful for the Intermediate Code Gen
+     * The values moved out of a loop stay in local variables through all of it, and so do the values reused after
+     * calls and loops, so the register allocation may fail to fit them in the allowed number of local variables, where
+     * the code without them fits.
      *
-     * @return Types of each analysed parameter
+     * @param timer Timer where the translations and optimizations are measured
+     * @param name Name of the Function in the measurements
      *
-     * @throws SemanticException on Semantic Error
+     * @return Whether the Intermediate Code changed, false if it already is the code it was generated with
      */
-    private Type[] analyseParameters(Node parameterNode, LinkedList<Type> typeList) throws SemanticException {
-        Type[] parameterTypes = new Type[parameterNode.jjtGetNumChildren()];
+    public boolean optimizeWithFewerVariables(PhaseTimer timer, String name) {
+        if (unoptimizedInstructions == null)    return false;
 
-        for (int i = 0; i < parameterTypes.length; i++) {
-            parameterTypes[i] = analyseExpression(parameterNode.jjtGetChild(i), typeList, Type.UNKNOWN());
-        }
+        final PhaseTimer.Mark mark = timer.start();
+
+        final InstructionTable instructions = getIntermediateInstructions();
+        instructions.truncate(0);
+        for (int i = 0; i < unoptimizedInstructions.size(); i++)
+            instructions.addCopy(unoptimizedInstructions, i);
+
+        controlFlowGraph = null;
+
+        if (invariantsMoved || valuesReused)    optimizeSSA(false, invariantsMoved);
+        else                                    unoptimizedInstructions = null;
 
-        return parameterTypes;
+        timer.stop(mark, PhaseTimer.Phase.SSA, name);
+        return true;
     }
 
     /**
-     * Analyses an expression
-     *
-     * @param expressionNode AST Root containing the expression
-     * @param typeList List of Types kept during the Semantic Analysis that are useful for the Intermediate Code Gen
-     * @param desiredType Desired Type for this expression. Used to infer return types of unknown methods
+     * @param moveInvariants Whether the loop invariants are moved out of their loops
+     * @param reuseValues Whether the values computed again are replaced by those computed before
+     */
+    private void optimizeSSA(boolean moveInvariants, boolean reuseValues) {
+        final SSAForm ssa = new SSAForm(this, moveInvariants, reuseValues);
+        ssa.optimize();
+        ssa.translate();
+        controlFlowGraph = null;
+
+        invariantsMoved = ssa.movedInvariants();
+        valuesReused = ssa.reusedValues();
+    }
+
+    /**
+     * Binds the Identifiers used in a series of statements to their Symbols (local variables first, then parameters
+     * and class fields), so they are looked up by name only once
      *
-     * @return Final Type of the expression
+     * Identifiers that aren't declared are left unbound: they are either class references for static invocations or
+     * Semantic Errors, reported by the analysis. When optimizing, local int variables assigned an integer literal are
+     * given its value (cleared for good by any later assignment), so the analysis can replace them by it.
      *
-     * @throws SemanticException on Semantic Error
+     * @param node AST Root containing the statements
+     * @param i Index of the first statement child in the provided node
      */
-    private Type analyseExpression(Node expressionNode, LinkedList<Type> typeList, Type desiredType)
-            throws SemanticException {
-        switch(expressionNode.getId()) {
-            case ParserTreeConstants.JJTFCALL:
-                final int typeIndex = typeList.size(), methodIndex = methodList.size();
-
-                final Node classNode = expressionNode.jjtGetChild(0);
-
-                Type classType;
-                if (classNode.getId() == ParserTreeConstants.JJTID && getIdType(classNode) == null)
-                    classType = Type.CLASS(String.valueOf(classNode.jjtGetValue()));
-                else
-                    classType = analyseExpression(expressionNode.jjtGetChild(0), typeList, Type.UNKNOWN());
+    private void resolveIdentifiers(int node, int i) {
+        for (; i < nodes.getNumChildren(node); i++)
+            resolveIdentifier(nodes.getChild(node, i));
+    }
 
-                final String methodId = String.valueOf(expressionNode.jjtGetChild(1).jjtGetValue());
-                final Type[] parameterTypes = analyseParameters(expressionNode.jjtGetChild(2), typeList);
+    private void resolveIdentifier(int node) {
+        switch (nodes.getKind(node)) {
+            case ParserTreeConstants.JJTID:
+                final String id = identifier(node);
 
-                MethodSignature methodSignature = classTable.checkMethod(expressionNode, classType,
-                        methodId, parameterTypes);
+                Symbol symbol = variables.getSymbol(id);
+                if (symbol == null)     symbol = parameters.getSymbol(id);
+                if (symbol == null)     symbol = classTable.getAttributes().getSymbol(id);
 
-                // Deduce the return type of unknown methods
-                if (methodSignature.getReturnType() == null) {
-                    if (desiredType.isUnknown())
-                        throw new SemanticException(expressionNode,
-                                "Return type of unknown method could not be inferred");
+                if (symbol != null)     classTable.bind(node, symbol);
+                break;
+            case ParserTreeConstants.JJTASSIGN:
+                resolveIdentifiers(node, 0);
 
-                    methodSignature.setReturnType(desiredType);
-                }
+                final Symbol assignSymbol = classTable.getSymbol(nodes.getChild(node, 0));
+                if (!optimize || assignSymbol == null || !assignSymbol.isLocal() || !assignSymbol.getType().isInt())
+                    break;
 
-                if (methodSignature.isParent())
-                    typeList.add(Type.ID(classTable.getExtendIdentifier()));
+                final int expressionNode = nodes.getChild(node, 1);
+                if (!assignSymbol.isAssigned() && nodes.getKind(expressionNode) == ParserTreeConstants.JJTINTEGER)
+                    assignSymbol.setValue(Integer.parseInt(String.valueOf(nodes.getValue(expressionNode))));
                 else
-                    typeList.add(classType);
-
-                methodList.add(methodSignature);
-
-                // When generating stack based intermediate code, the traversal order of parameters is reversed
-                Collections.reverse(typeList.subList(typeIndex, typeList.size()));
-                Collections.reverse(methodList.subList(methodIndex, methodList.size()));
-
-                return methodSignature.getReturnType();
-            case ParserTreeConstants.JJTINDEX:
-                final Type indexType = analyseExpression(expressionNode.jjtGetChild(1), typeList, Type.INT());
-
-                if (!indexType.isInt())
-                    throw new SemanticException(expressionNode.jjtGetChild(1),
-                            "Invalid index, must be an integer instead of " + indexType);
-
-                // TODO Use the current desired type to deduce desired type of arrayType
-                final Type arrayType = analyseExpression(expressionNode.jjtGetChild(0), typeList, Type.UNKNOWN());
-
-                if (arrayType.isIntArray()) {
-                    expressionNode.jjtSetValue(Type.INT());
-                    return Type.INT();
-                } else if (arrayType.isStringArray()) {
-                    expressionNode.jjtSetValue(Type.STRING());
-                    return Type.STRING();
-                } else
-                    throw new SemanticException(expressionNode.jjtGetChild(0), "Trying to access index of non array");
-            case ParserTreeConstants.JJTLENGTH:
-                final Type targetType = analyseExpression(expressionNode.jjtGetChild(0), typeList, Type.UNKNOWN());
-
-                if (!targetType.isIntArray() && !targetType.isStringArray())
-                    throw new SemanticException(expressionNode,
-                            "Attempting to retrieve length of non array ( " + targetType + " )");
-
-                return Type.INT();
-            case ParserTreeConstants.JJTAND:
-                final Type secondBool = analyseExpression(expressionNode.jjtGetChild(1), typeList, Type.BOOLEAN());
-
-                if (!secondBool.isBoolean())
-                    throw new SemanticException(expressionNode.jjtGetChild(1),
-                            "Invalid expression of non-boolean type " + secondBool);
-
-                final Type firstBool = analyseExpression(expressionNode.jjtGetChild(0), typeList, Type.BOOLEAN());
-
-                if (!firstBool.isBoolean())
-                    throw new SemanticException(expressionNode.jjtGetChild(0),
-                            "Invalid expression of non-boolean type " + firstBool);
-
-                return Type.BOOLEAN();
-            case ParserTreeConstants.JJTLOWER:
-            case ParserTreeConstants.JJTPLUS:
-            case ParserTreeConstants.JJTMINUS:
-            case ParserTreeConstants.JJTTIMES:
-            case ParserTreeConstants.JJTDIVIDE:
-                final Type secondOp = analyseExpression(expressionNode.jjtGetChild(1), typeList, Type.INT());
-
-                if (!secondOp.isInt())
-                    throw new SemanticException(expressionNode.jjtGetChild(1),
-                        "Invalid expression of type " + secondOp + " instead of int");
-
-                final Type firstOp = analyseExpression(expressionNode.jjtGetChild(0), typeList, Type.INT());
-
-                if (!firstOp.isInt())
-                    throw new SemanticException(expressionNode.jjtGetChild(0),
-                            "Invalid expression of type " + firstOp + " instead of int");
-
-                if (expressionNode.getId() == ParserTreeConstants.JJTLOWER)     return Type.BOOLEAN();
-                else                                                            return Type.INT();
-            case ParserTreeConstants.JJTID:
-                final Type idType = getIdType(expressionNode);
-
-                if (idType == null || (returnType == null && isClassField(expressionNode)))
-                    throw new SemanticException(expressionNode,
-                            "Variable " + expressionNode.jjtGetValue() + " not found");
-
-                return idType;
-            case ParserTreeConstants.JJTINTEGER:
-                return Type.INT();
-            case ParserTreeConstants.JJTNOT:
-                final Type expressionType = analyseExpression(expressionNode.jjtGetChild(0), typeList, Type.BOOLEAN());
-
-                if (!expressionType.isBoolean())
-                    throw new SemanticException(expressionNode.jjtGetChild(0),
-                            "Invalid expression of type " + expressionType + ". Must be a boolean to apply negate op.");
-                return Type.BOOLEAN();
-            case ParserTreeConstants.JJTTRUE:
-            case ParserTreeConstants.JJTFALSE:
-                return Type.BOOLEAN();
-            case ParserTreeConstants.JJTTHIS:
-                if (this.returnType == null)
-                    throw new SemanticException(expressionNode,
-                            "Invalid attempt of getting current instance from a static method");
-
-                return Type.ID(classTable.getClassIdentifier());
-            case ParserTreeConstants.JJTNEWARRAY:
-                final Type lengthType = analyseExpression(expressionNode.jjtGetChild(0), typeList, Type.INT());
-
-                if (!lengthType.isInt())
-                    throw new SemanticException(expressionNode,
-                            "Invalid array size expression, expected int instead of " + lengthType);
-
-                return Type.INTARRAY();
+                    assignSymbol.setValue(null);
+
+                assignSymbol.setAssigned();
+                break;
+            case ParserTreeConstants.JJTFCALL:
+                // The method Identifier isn't a Symbol
+                resolveIdentifier(nodes.getChild(node, 0));
+                resolveIdentifiers(nodes.getChild(node, 2), 0);
+                break;
             case ParserTreeConstants.JJTNEWOBJ:
-                return new Type(expressionNode.jjtGetChild(0));
+                break;
             default:
-                throw new SemanticException(expressionNode, "Invalid expression");
+                resolveIdentifiers(node, 0);
         }
     }
 
     /**
-     * Retrieves the Type, from a Symbol Table, of a certain variable being used
+     * Retrieves the Symbol of a certain variable being used, as bound before the analysis
      *
      * @param idNode Node containing the Symbol Identifier
      *
-     * @return Type of the Symbol, null if it does not exist in this class
+     * @return Symbol of the variable, null if it does not exist in this class
      */
-    Type getIdType(Node idNode) {
-        if (variables.containsId(idNode))           return variables.getId(idNode);
-        else if (parameters.containsId(idNode))     return parameters.getId(idNode);
-        else if (isClassField(idNode))              return classTable.getAttributes().getId(idNode);
-
-        return null;
+    Symbol getSymbol(int idNode) {
+        return classTable.getSymbol(idNode);
     }
 
     /**
-     * Sets the Type of a variable on its Symbol Table
+     * @param idNode Node containing an Identifier
      *
-     * @param idNode Node containing the Symbol Identifier
-     *
-     * @param newType New Type of the Symbol
+     * @return The Identifier
      */
-    private void setIdType(Node idNode, Type newType) {
-        if (variables.containsId(idNode))           variables.setId(idNode, newType);
-        else if (parameters.containsId(idNode))     parameters.setId(idNode, newType);
-        else if (isClassField(idNode))              classTable.getAttributes().setId(idNode, newType);
+    private String identifier(int idNode) {
+        return String.valueOf(nodes.getValue(idNode));
     }
 
-    boolean isClassField(Node idNode) {
-        return classTable.getAttributes().containsId(idNode);
+    /**
+     * @return AST Root of the Function (its declaration, body included)
+     */
+    int getFunctionNode() {
+        return functionNode;
     }
 
     public LinkedSymbolTable getParameters() {
         return parameters;
     }
 
-    ValueTable getVariables() {
-        return variables;
-    }
-
-    Type getReturnType() {
+    public Type getReturnType() {
         return returnType;
     }
 
-    String getClassIdentifier() {
-        return classTable.getClassIdentifier();
+    /**
+     * Gives the class fields the Types they were assigned by this Function, once every method has been analysed
+     */
+    void applyFieldTypes() {
+        intermediateCode.applyFieldTypes();
     }
 
     /**
@@ -426,10 +294,19 @@ public abstract class FunctionTable {
                 + intermediateCode;
     }
 
-    public LinkedList<IntermediateInstruction> getIntermediateInstructions() {
+    public InstructionTable getIntermediateInstructions() {
         return intermediateCode.getInstructions();
     }
 
+    /**
+     * @return Control-Flow Graph of the Intermediate Code, built once and shared by every pass over the Function
+     */
+    public ControlFlowGraph getControlFlowGraph() {
+        if (controlFlowGraph == null)   controlFlowGraph = new ControlFlowGraph(getIntermediateInstructions());
+
+        return controlFlowGraph;
+    }
+
     public String methodCode() {
         return intermediateCode.toString();
     }
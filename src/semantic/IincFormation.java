@@ -0,0 +1,47 @@
+package semantic;
+
+import parser.ParserTreeConstants;
+
+/**
+ * Replaces the increments of int variables by a constant (load, constant, add and store of the same variable) with
+ * iinc Instructions, as long as the constant fits in one (a signed short)
+ *
+ * @see PassManager
+ */
+class IincFormation implements InstructionPass {
+    @Override
+    public int run(InstructionTable instructions, InstructionTable rewritten) {
+        final int size = instructions.size();
+        int changes = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (i + 3 < size && isIncrement(instructions, i)) {
+                rewritten.addIncrement(instructions.getOperand(i + 3), instructions.getOperand(i + 1));
+                i += 3;
+                changes++;
+            }
+            else
+                rewritten.addCopy(instructions, i);
+        }
+
+        return changes;
+    }
+
+    private static boolean isIncrement(InstructionTable instructions, int i) {
+        return instructions.getOpcode(i) == InstructionTable.ILOAD
+                && instructions.isIntConstant(i + 1)
+                && instructions.getOpcode(i + 2) == ParserTreeConstants.JJTPLUS
+                && instructions.getOpcode(i + 3) == InstructionTable.ISTORE
+                && instructions.isSameLocal(instructions.getOperand(i), instructions.getOperand(i + 3))
+                && fitsIncrement(instructions.getOperand(i + 1));
+    }
+
+    /**
+     * @param value Value of an int constant
+     *
+     * @return Whether the constant can be the one of an iinc Instruction
+     */
+    static boolean fitsIncrement(long value) {
+        return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+    }
+}
@@ -0,0 +1,66 @@
+package semantic;
+
+/**
+ * Combines each iinc Instruction with a previous iinc of the same variable (as long as their sum fits in it), or with
+ * a previous store of a constant to its variable, adding it to the stored constant
+ *
+ * The previous Instruction is looked for among the increments and constant stores right before the iinc, which can be
+ * reordered as long as they write other variables, so whole runs of them (such as the bodies of fully unrolled loops)
+ * are combined in a single traversal. Instructions are combined with the ones already written.
+ *
+ * @see PassManager
+ */
+class InstructionCombining implements InstructionPass {
+    @Override
+    public int run(InstructionTable instructions, InstructionTable rewritten) {
+        int changes = 0;
+
+        for (int i = 0; i < instructions.size(); i++) {
+            if (instructions.getOpcode(i) != InstructionTable.IINC || !combine(instructions, rewritten, i))
+                rewritten.addCopy(instructions, i);
+            else
+                changes++;
+        }
+
+        return changes;
+    }
+
+    /**
+     * @param instructions Instructions being rewritten
+     * @param rewritten Instructions already written
+     * @param i Index of an iinc Instruction
+     *
+     * @return Whether the iinc was combined with a written Instruction
+     */
+    private static boolean combine(InstructionTable instructions, InstructionTable rewritten, int i) {
+        final int variable = instructions.getOperand(i), increment = instructions.getIncrement(i);
+
+        int j = rewritten.size() - 1;
+        while (j >= 0) {
+            if (rewritten.getOpcode(j) == InstructionTable.IINC) {
+                if (!rewritten.isSameLocal(rewritten.getOperand(j), variable)) {
+                    j--;
+                    continue;
+                }
+
+                final long combined = (long) rewritten.getIncrement(j) + increment;
+                if (!IincFormation.fitsIncrement(combined))     return false;
+
+                rewritten.setIncrement(j, (int) combined);
+                return true;
+            }
+
+            if (j < 1 || rewritten.getOpcode(j) != InstructionTable.ISTORE || !rewritten.isIntConstant(j - 1))
+                return false;
+
+            if (rewritten.isSameLocal(rewritten.getOperand(j), variable)) {
+                rewritten.setConstant(j - 1, rewritten.getOperand(j - 1) + increment);
+                return true;
+            }
+
+            j -= 2;
+        }
+
+        return false;
+    }
+}
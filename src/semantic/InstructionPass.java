@@ -0,0 +1,20 @@
+package semantic;
+
+/**
+ * Optimization pass over the allocated Instructions of a Function, run by the PassManager
+ *
+ * A pass reads the Instructions in a single traversal, writing them (rewritten where it applies) into an empty table
+ * sharing the variables, fields, invocations and values of the read one, which is left as it is.
+ *
+ * @see PassManager
+ * @see InstructionTable
+ */
+interface InstructionPass {
+    /**
+     * @param instructions Instructions to rewrite
+     * @param rewritten Empty table where every Instruction is written, rewritten or not
+     *
+     * @return Number of changes made to the Instructions (0 if the rewritten ones are the same)
+     */
+    int run(InstructionTable instructions, InstructionTable rewritten);
+}
@@ -0,0 +1,807 @@
+package semantic;
+
+import parser.ParserTreeConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact store of the Intermediate Instructions of a Function
+ *
+ * Instructions are kept as parallel int arrays (opcode and operand) and identified by their index, in their final
+ * order. Instructions are identified using the Constants defined in the Parser, as well as by some extra Identifiers
+ * where needed. Operands are structured, their meaning depending on the opcode:
+ *
+ * - Constants and label numbers are kept as they are
+ * - Loads and stores hold the index of their variable, whose Symbol and allocated slot the table keeps
+ * - Invocations hold the index of their Invocation, which keeps the descriptor and the slots of the call
+ * - Fields hold the index of their Symbol, whose descriptor is only taken when printed (once the Types of the fields
+ *   are settled by every method of the class)
+ * - Object creations hold the index of the name of their class, kept once per table
+ * - Increments (only formed by the passes over allocated code) hold the index of their variable, their constant being
+ *   kept alongside the operand
+ *
+ * The Instructions are printed in Jasmin syntax, and translated to JVM instructions from their opcodes and operands.
+ *
+ * @see IntermediateCode
+ * @see ParserTreeConstants
+ */
+public class InstructionTable {
+    public static final int ISTORE = -1;
+    public static final int ASTORE = -2;
+
+    public static final int IASTORE = -3;
+    public static final int AASTORE = -4;
+
+    public static final int GETFIELD = -5;
+    public static final int PUTFIELD = -6;
+
+    public static final int ILOAD = -7;
+    public static final int ALOAD = -8;
+
+    public static final int IALOAD = -9;
+    public static final int AALOAD = -10;
+
+    public static final int INVOKEVIRTUAL = -11;
+    public static final int INVOKESTATIC  = -12;
+    public static final int POP = -13;
+
+    public static final int IRETURN = -14;
+    public static final int ARETURN = -15;
+
+    public static final int IFEQ = -16;
+    public static final int IFGT = -17;
+    public static final int IFCMPGE = -18;
+    public static final int IFCMPLT = -19;
+    public static final int GOTO = -20;
+
+    public static final int BIPUSH = -21;
+    public static final int SIPUSH = -22;
+    public static final int LDC = -23;
+
+    public static final int LABEL = -24;
+
+    public static final int IINC = -25;
+
+    public static final int NO_OPERAND = -1;
+
+
+    private final static Map<Integer, String> stringMap;
+
+    static {
+        Map<Integer, String> tempMap = new HashMap<>();
+
+        // LOAD
+        tempMap.put(ILOAD,                              "iload");
+        tempMap.put(ALOAD,                              "aload");
+        tempMap.put(IALOAD,                             "iaload");
+        tempMap.put(AALOAD,                             "aaload");
+        tempMap.put(ParserTreeConstants.JJTTHIS,        "aload_0");
+
+        // CONSTANT LOADS
+        tempMap.put(BIPUSH,     "bipush");
+        tempMap.put(SIPUSH,     "sipush");
+        tempMap.put(LDC,     "ldc");
+        tempMap.put(ParserTreeConstants.JJTTRUE,        "iconst_1");
+        tempMap.put(ParserTreeConstants.JJTFALSE,       "iconst_0");
+
+        // STORE and RETURN
+        tempMap.put(ISTORE,                             "istore");
+        tempMap.put(ASTORE,                             "astore");
+        tempMap.put(IASTORE,                            "iastore");
+        tempMap.put(AASTORE,                            "aastore");
+        tempMap.put(IRETURN,                            "ireturn");
+        tempMap.put(ARETURN,                            "areturn");
+
+        // FIELDS and FCALL
+        tempMap.put(GETFIELD,                           "getfield");
+        tempMap.put(PUTFIELD,                           "putfield");
+        tempMap.put(INVOKEVIRTUAL,                      "invokevirtual");
+        tempMap.put(INVOKESTATIC,                       "invokestatic");
+        tempMap.put(POP,                                "pop");
+
+        // NEW and LENGTH
+        tempMap.put(ParserTreeConstants.JJTNEWARRAY,    "newarray int");
+        tempMap.put(ParserTreeConstants.JJTNEWOBJ,      "new");
+        tempMap.put(ParserTreeConstants.JJTLENGTH,      "arraylength");
+
+        // ARITHMETIC
+        tempMap.put(ParserTreeConstants.JJTPLUS,        "iadd");
+        tempMap.put(ParserTreeConstants.JJTMINUS,       "isub");
+        tempMap.put(ParserTreeConstants.JJTTIMES,       "imul");
+        tempMap.put(ParserTreeConstants.JJTDIVIDE,      "idiv");
+
+        // CONDITIONS
+        tempMap.put(IFEQ,                               "ifeq");
+        tempMap.put(IFGT,                               "ifgt");
+        tempMap.put(IFCMPGE,                            "if_icmpge");
+        tempMap.put(IFCMPLT,                            "if_icmplt");
+        tempMap.put(GOTO,                               "goto");
+
+        // INCREMENT
+        tempMap.put(IINC,                               "iinc");
+
+        stringMap = Collections.unmodifiableMap(tempMap);
+    }
+
+    private final String classIdentifier;
+
+    private int[] opcodes;
+    private int[] operands;
+    private int[] increments = null;
+    private int size = 0;
+
+    private final ArrayList<String> values;
+    private final HashMap<String, Integer> valueMap;
+
+    private final ArrayList<Invocation> invocations;
+    private final HashMap<Invocation, Integer> invocationMap;
+
+    private final ArrayList<Symbol> variables;
+    private final HashMap<Symbol, Integer> variableMap;
+    private int[] slots = new int[8];
+
+    private final ArrayList<Symbol> fields;
+    private final HashMap<Symbol, Integer> fieldMap;
+
+    /**
+     * @param classIdentifier Identifier of the class containing the Function, owner of the fields it uses
+     */
+    InstructionTable(String classIdentifier) {
+        this.classIdentifier = classIdentifier;
+        this.opcodes = new int[64];
+        this.operands = new int[64];
+        this.values = new ArrayList<>();
+        this.valueMap = new HashMap<>();
+        this.invocations = new ArrayList<>();
+        this.invocationMap = new HashMap<>();
+        this.variables = new ArrayList<>();
+        this.variableMap = new HashMap<>();
+        this.fields = new ArrayList<>();
+        this.fieldMap = new HashMap<>();
+    }
+
+    /**
+     * Creates an empty table sharing the variables (and their slots), fields, invocations and values of another one,
+     * where a pass rewrites its Instructions
+     *
+     * @param table Table whose Instructions are rewritten
+     */
+    private InstructionTable(InstructionTable table) {
+        this.classIdentifier = table.classIdentifier;
+        this.opcodes = new int[Math.max(table.size, 16)];
+        this.operands = new int[opcodes.length];
+        this.values = table.values;
+        this.valueMap = table.valueMap;
+        this.invocations = table.invocations;
+        this.invocationMap = table.invocationMap;
+        this.variables = table.variables;
+        this.variableMap = table.variableMap;
+        this.slots = table.slots;
+        this.fields = table.fields;
+        this.fieldMap = table.fieldMap;
+    }
+
+    /**
+     * @return Empty table for the rewrite of the Instructions of this one (which is left as it is)
+     */
+    InstructionTable emptyCopy() {
+        return new InstructionTable(this);
+    }
+
+    /**
+     * Adds an Instruction as it is stored
+     *
+     * @param opcode Opcode of the Instruction
+     * @param operand Operand of the Instruction, with the meaning its opcode gives it
+     */
+    void add(int opcode, int operand) {
+        if (size == opcodes.length) {
+            final int capacity = size * 2;
+
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            operands = Arrays.copyOf(operands, capacity);
+            if (increments != null)     increments = Arrays.copyOf(increments, capacity);
+        }
+
+        opcodes[size] = opcode;
+        operands[size] = operand;
+        size++;
+    }
+
+    private int valueIndex(String value) {
+        return valueMap.computeIfAbsent(value, key -> {
+            values.add(key);
+            return values.size() - 1;
+        });
+    }
+
+    private int invocationIndex(Invocation invocation) {
+        return invocationMap.computeIfAbsent(invocation, key -> {
+            invocations.add(key);
+            return invocations.size() - 1;
+        });
+    }
+
+    /**
+     * @param symbol Symbol of a local variable or parameter
+     *
+     * @return Index of the variable, added to the table if it wasn't in it
+     */
+    int variableIndex(Symbol symbol) {
+        return variableMap.computeIfAbsent(symbol, key -> {
+            if (variables.size() == slots.length)   slots = Arrays.copyOf(slots, slots.length * 2);
+
+            slots[variables.size()] = -1;
+            variables.add(key);
+            return variables.size() - 1;
+        });
+    }
+
+    private int fieldIndex(Symbol field) {
+        return fieldMap.computeIfAbsent(field, key -> {
+            fields.add(key);
+            return fields.size() - 1;
+        });
+    }
+
+    /**
+     * Adds an Instruction without any explicit parameter
+     *
+     * @param instructionId Instruction Identifier
+     */
+    void add(int instructionId) {
+        add(instructionId, NO_OPERAND);
+    }
+
+    /**
+     * Adds the increment of an int variable by a constant (iinc)
+     *
+     * @param variable Index of the variable
+     * @param increment Value of the constant
+     */
+    void addIncrement(int variable, int increment) {
+        add(IINC, variable);
+
+        if (increments == null)     increments = new int[opcodes.length];
+        increments[size - 1] = increment;
+    }
+
+    /**
+     * Replaces the constant loaded by an Instruction, using the smallest instruction able to hold it
+     *
+     * @param i Index of a bipush, sipush or ldc Instruction
+     * @param value Value of the constant
+     */
+    void setConstant(int i, int value) {
+        opcodes[i] = constantOpcode(value);
+        operands[i] = value;
+    }
+
+    /**
+     * @param i Index of an iinc Instruction
+     * @param increment Constant added to the variable
+     */
+    void setIncrement(int i, int increment) {
+        increments[i] = increment;
+    }
+
+    /**
+     * Adds a copy of an Instruction of another table sharing the variables, fields, invocations and values of this one
+     *
+     * @param table Table containing the Instruction
+     * @param i Index of the Instruction
+     */
+    void addCopy(InstructionTable table, int i) {
+        if (table.opcodes[i] == IINC)   addIncrement(table.operands[i], table.increments[i]);
+        else                            add(table.opcodes[i], table.operands[i]);
+    }
+
+    void addGoto(int labelNum) {
+        add(GOTO, labelNum);
+    }
+
+    void addLabel(int labelNum) {
+        add(LABEL, labelNum);
+    }
+
+    void addPop() {
+        add(POP, NO_OPERAND);
+    }
+
+    /**
+     * Adds the load of an integer constant, using the smallest instruction able to hold it
+     *
+     * @param value Value of the constant
+     */
+    void addConstant(int value) {
+        add(constantOpcode(value), value);
+    }
+
+    /**
+     * @param value Value of an integer constant
+     *
+     * @return Opcode of the smallest instruction able to load the constant
+     */
+    static int constantOpcode(int value) {
+        if (value >= -128 && value <= 127)              return BIPUSH;
+        else if (value >= -32768 && value <= 32767)     return SIPUSH;
+        else                                            return LDC;
+    }
+
+    /**
+     * Adds an Instruction with an explicit textual parameter
+     *
+     * @param instructionId Instruction Identifier
+     * @param value Instruction Parameter
+     */
+    void add(int instructionId, String value) {
+        add(instructionId, valueIndex(value));
+    }
+
+    /**
+     * Adds a If Instruction
+     * @param instructionId Instruction Identifier
+     * @param eval Evaluation being performed (Condition must be true or false)
+     * @param labelNum Label Identifier Number
+     */
+    void addBranch(int instructionId, boolean eval, int labelNum) {
+        if (instructionId == ParserTreeConstants.JJTLOWER)  add(eval ? IFCMPGE : IFCMPLT, labelNum);
+        else                                                add(eval ? IFEQ : IFGT, labelNum);
+    }
+
+    /**
+     * Adds a Type specific Instruction without any explicit parameter (array element load or store, return)
+     *
+     * @param instructionId Instruction Identifier
+     * @param type Desired Type
+     */
+    void add(int instructionId, Type type) {
+        switch (instructionId) {
+            case ParserTreeConstants.JJTASSIGN:
+                if (type.isInt())                           add(IASTORE, NO_OPERAND);
+                else                                        add(AASTORE, NO_OPERAND);
+                break;
+            case ParserTreeConstants.JJTINDEX:
+                if (type.isInt())                           add(IALOAD, NO_OPERAND);
+                else                                        add(AALOAD, NO_OPERAND);
+                break;
+            case ParserTreeConstants.JJTRETURN:
+                if (type.isInt() || type.isBoolean())       add(IRETURN, NO_OPERAND);
+                else                                        add(ARETURN, NO_OPERAND);
+                break;
+            default:
+                add(instructionId, NO_OPERAND);
+        }
+    }
+
+    /**
+     * Adds a load (JJTID) or store (JJTASSIGN) of a local variable or parameter
+     *
+     * @param instructionId Instruction Identifier
+     * @param symbol Symbol of the variable
+     * @param type Type of the loaded or stored value
+     */
+    void addLocal(int instructionId, Symbol symbol, Type type) {
+        final boolean isInt = type.isInt() || type.isBoolean();
+
+        if (instructionId == ParserTreeConstants.JJTASSIGN)     add(isInt ? ISTORE : ASTORE, variableIndex(symbol));
+        else                                                    add(isInt ? ILOAD : ALOAD, variableIndex(symbol));
+    }
+
+    /**
+     * Adds a read (JJTID) or write (JJTASSIGN) of a class field
+     *
+     * @param instructionId Instruction Identifier
+     * @param field Symbol of the field
+     */
+    void addField(int instructionId, Symbol field) {
+        final int operand = fieldIndex(field);
+
+        if (instructionId == ParserTreeConstants.JJTASSIGN)     add(PUTFIELD, operand);
+        else                                                    add(GETFIELD, operand);
+    }
+
+    /**
+     * Adds a Function Call Instruction
+     *
+     * @param invocation Invoked method
+     */
+    void addInvoke(Invocation invocation) {
+        if (invocation.getTargetType().isId())  add(INVOKEVIRTUAL, invocationIndex(invocation));
+        else                                    add(INVOKESTATIC, invocationIndex(invocation));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Discards the Instructions added after a certain point
+     *
+     * @param size Number of Instructions to keep
+     */
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    /**
+     * @param i Index of an Instruction
+     *
+     * @return Whether the Instruction is using a local variable or not (Loads and Stores)
+     */
+    public boolean isLocal(int i) {
+        return isLoad(i) || isStore(i);
+    }
+
+    public boolean isLoad(int i) {
+        return opcodes[i] == ILOAD || opcodes[i] == ALOAD;
+    }
+
+    public boolean isStore(int i) {
+        return opcodes[i] == ISTORE || opcodes[i] == ASTORE;
+    }
+
+    public boolean isGoto(int i) {
+        return opcodes[i] == GOTO;
+    }
+
+    public boolean isBranch(int i) {
+        return opcodes[i] == IFCMPGE || opcodes[i] == IFCMPLT || opcodes[i] == IFEQ || opcodes[i] == IFGT;
+    }
+
+    /**
+     * @param opcode Opcode of a branch Instruction
+     *
+     * @return Opcode of the branch taken exactly when it isn't (ifeq and ifgt only ever test booleans)
+     */
+    static int invertedBranch(int opcode) {
+        switch (opcode) {
+            case IFEQ:      return IFGT;
+            case IFGT:      return IFEQ;
+            case IFCMPGE:   return IFCMPLT;
+            default:        return IFCMPGE;
+        }
+    }
+
+    public boolean isReturn(int i) {
+        return opcodes[i] == IRETURN || opcodes[i] == ARETURN;
+    }
+
+    /**
+     * @param i Index of an Instruction
+     *
+     * @return Number of the label defined by the Instruction, -1 if it isn't a label
+     */
+    public int getLabel(int i) {
+        return opcodes[i] == LABEL ? operands[i] : -1;
+    }
+
+    /**
+     * @param i Index of a goto or branch Instruction
+     *
+     * @return Number of the label it jumps to
+     */
+    public int getTarget(int i) {
+        return operands[i];
+    }
+
+    /**
+     * @param i Index of a load or store Instruction
+     *
+     * @return Index of the variable used
+     */
+    public int getVariable(int i) {
+        return operands[i];
+    }
+
+    /**
+     * @return Number of distinct variables loaded or stored (including those of discarded Instructions)
+     */
+    public int getVariableCount() {
+        return variables.size();
+    }
+
+    /**
+     * @param variable Index of a variable
+     *
+     * @return Symbol of the variable
+     */
+    public Symbol getSymbol(int variable) {
+        return variables.get(variable);
+    }
+
+    /**
+     * @param i Index of an Instruction
+     *
+     * @return Opcode of the Instruction
+     */
+    public int getOpcode(int i) {
+        return opcodes[i];
+    }
+
+    /**
+     * @param i Index of an Instruction
+     *
+     * @return Operand of the Instruction, with the meaning its opcode gives it
+     */
+    public int getOperand(int i) {
+        return operands[i];
+    }
+
+    /**
+     * @param invocation Operand of an invoke Instruction
+     *
+     * @return Invocation of the Instruction
+     */
+    Invocation getInvocation(int invocation) {
+        return invocations.get(invocation);
+    }
+
+    /**
+     * @param field Operand of a getfield or putfield Instruction
+     *
+     * @return Symbol of the field of the Instruction
+     */
+    public Symbol getField(int field) {
+        return fields.get(field);
+    }
+
+    /**
+     * @param i Index of an invoke Instruction
+     *
+     * @return Descriptor of the invoked method, including its class (class/name(parameters)return)
+     */
+    public String getMethodDescriptor(int i) {
+        return invocations.get(operands[i]).getDescriptor();
+    }
+
+    /**
+     * @param i Index of an object creation Instruction
+     *
+     * @return Name of the class of the created object
+     */
+    public String getClassName(int i) {
+        return values.get(operands[i]);
+    }
+
+    /**
+     * @param i Index of an iinc Instruction
+     *
+     * @return Constant added to the variable
+     */
+    public int getIncrement(int i) {
+        return increments[i];
+    }
+
+    /**
+     * @param i Index of an Instruction
+     *
+     * @return Whether the Instruction loads an int constant (bipush, sipush or ldc), its operand being the constant
+     */
+    boolean isIntConstant(int i) {
+        return opcodes[i] == BIPUSH || opcodes[i] == SIPUSH || opcodes[i] == LDC;
+    }
+
+    /**
+     * @param first Index of a variable
+     * @param second Index of a variable
+     *
+     * @return Whether both variables are the same local variable (the same variable, or allocated to the same slot)
+     */
+    boolean isSameLocal(int first, int second) {
+        return first == second || (slots[first] >= 0 && slots[first] == slots[second]);
+    }
+
+    /**
+     * @param variable Index of a variable
+     *
+     * @return Slot the variable is allocated to, -1 if it isn't allocated yet
+     */
+    public int getSlot(int variable) {
+        return slots[variable];
+    }
+
+    public boolean getRegisterType(int i) {
+        return opcodes[i] == ILOAD || opcodes[i] == ISTORE;
+    }
+
+    /**
+     * Allocates a variable, so its loads and stores use the given slot
+     *
+     * @param variable Index of the variable
+     * @param slot Slot of the variable
+     */
+    public void setVarNum(int variable, int slot) {
+        slots[variable] = slot;
+    }
+
+    /**
+     * @param i Index of an Instruction
+     *
+     * @return Human readable (Jasmin) format of the Instruction
+     */
+    public String toString(int i) {
+        final int opcode = opcodes[i], operand = operands[i];
+
+        switch (opcode) {
+            case LABEL:
+                return "L" + operand + ":";
+            case GOTO:
+            case IFEQ:
+            case IFGT:
+            case IFCMPGE:
+            case IFCMPLT:
+                return stringMap.get(opcode) + " L" + operand;
+            case BIPUSH:
+            case SIPUSH:
+            case LDC:
+                return stringMap.get(opcode) + " " + operand;
+            case ILOAD:
+            case ALOAD:
+            case ISTORE:
+            case ASTORE:
+                return stringMap.get(opcode) + " "
+                        + (slots[operand] >= 0 ? String.valueOf(slots[operand]) : variables.get(operand).getName());
+            case IINC:
+                return stringMap.get(opcode) + " "
+                        + (slots[operand] >= 0 ? String.valueOf(slots[operand]) : variables.get(operand).getName())
+                        + " " + increments[i];
+            case GETFIELD:
+            case PUTFIELD:
+                final Symbol field = fields.get(operand);
+                return stringMap.get(opcode) + " " + classIdentifier + "/" + field.getName() + " "
+                        + field.getType().toDescriptor();
+            case INVOKESTATIC:
+            case INVOKEVIRTUAL:
+                return stringMap.get(opcode) + " " + invocations.get(operand).getDescriptor();
+            case ParserTreeConstants.JJTNEWOBJ:
+                final String className = values.get(operand);
+                return stringMap.get(opcode) + " " + className + System.lineSeparator()
+                        + "\tdup" + System.lineSeparator()
+                        + "\tinvokespecial " + className + "/<init>()V";
+        }
+
+        return (stringMap.containsKey(opcode) ? stringMap.get(opcode) + " " : "")
+                + (operand == NO_OPERAND ? "" : values.get(operand));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < size; i++) {
+            sb.append("\t").append(toString(i)).append(System.lineSeparator());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @param i Index of an Instruction
+     *
+     * @return Change of the size of the operand stack caused by the Instruction
+     */
+    public int stackSlots(int i) {
+        switch(opcodes[i]) {
+            case ISTORE:
+            case ASTORE:
+            case IRETURN:
+            case ARETURN:
+            case PUTFIELD:
+            case IALOAD:
+            case AALOAD:
+            case IFEQ:
+            case IFGT:
+            case ParserTreeConstants.JJTINDEX:
+            case ParserTreeConstants.JJTPLUS:
+            case ParserTreeConstants.JJTMINUS:
+            case ParserTreeConstants.JJTTIMES:
+            case ParserTreeConstants.JJTDIVIDE:
+                return -1;
+            case ILOAD:
+            case ALOAD:
+            case GETFIELD:
+            case BIPUSH:
+            case SIPUSH:
+            case LDC:
+            case ParserTreeConstants.JJTTRUE:
+            case ParserTreeConstants.JJTFALSE:
+            case ParserTreeConstants.JJTTHIS:
+            case ParserTreeConstants.JJTNEWOBJ:
+                return 1;
+            case IFCMPLT:
+            case IFCMPGE:
+                return -2;
+            case IASTORE:
+            case AASTORE:
+                return -3;
+            case INVOKESTATIC:
+            case INVOKEVIRTUAL:
+                final Invocation invocation = invocations.get(operands[i]);
+
+                return invocation.getReturnSlots() - invocation.getArgumentSlots();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @param opcode Opcode of an Instruction
+     * @param operand Operand of the Instruction
+     *
+     * @return Number of values the Instruction pops from the operand stack
+     */
+    int popCount(int opcode, int operand) {
+        switch (opcode) {
+            case IASTORE:
+            case AASTORE:
+                return 3;
+            case PUTFIELD:
+            case IALOAD:
+            case AALOAD:
+            case IFCMPGE:
+            case IFCMPLT:
+            case ParserTreeConstants.JJTPLUS:
+            case ParserTreeConstants.JJTMINUS:
+            case ParserTreeConstants.JJTTIMES:
+            case ParserTreeConstants.JJTDIVIDE:
+                return 2;
+            case ISTORE:
+            case ASTORE:
+            case GETFIELD:
+            case POP:
+            case IRETURN:
+            case ARETURN:
+            case IFEQ:
+            case IFGT:
+            case ParserTreeConstants.JJTLENGTH:
+            case ParserTreeConstants.JJTNEWARRAY:
+                return 1;
+            case INVOKEVIRTUAL:
+                return invocations.get(operand).getArgumentSlots() + 1;
+            case INVOKESTATIC:
+                return invocations.get(operand).getArgumentSlots();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @param opcode Opcode of an Instruction
+     * @param operand Operand of the Instruction
+     *
+     * @return Number of values the Instruction pushes to the operand stack
+     */
+    int pushCount(int opcode, int operand) {
+        switch (opcode) {
+            case INVOKEVIRTUAL:
+            case INVOKESTATIC:
+                return invocations.get(operand).getReturnSlots();
+            case ILOAD:
+            case ALOAD:
+            case GETFIELD:
+            case IALOAD:
+            case AALOAD:
+            case BIPUSH:
+            case SIPUSH:
+            case LDC:
+            case ParserTreeConstants.JJTTRUE:
+            case ParserTreeConstants.JJTFALSE:
+            case ParserTreeConstants.JJTTHIS:
+            case ParserTreeConstants.JJTNEWOBJ:
+            case ParserTreeConstants.JJTNEWARRAY:
+            case ParserTreeConstants.JJTLENGTH:
+            case ParserTreeConstants.JJTPLUS:
+            case ParserTreeConstants.JJTMINUS:
+            case ParserTreeConstants.JJTTIMES:
+            case ParserTreeConstants.JJTDIVIDE:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
@@ -1,433 +1,595 @@
 package semantic;
 
-import parser.Node;
+import parser.NodeTable;
 import parser.ParserTreeConstants;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Class contaning a Function Body's Intermediate Code.
  *
- * It is a stack-based Intermediate Code, with most instructions being the same as JVM's.
+ * It is a stack-based Intermediate Code, with most instructions being the same as JVM's. It is generated by a single
+ * typed traversal of the body, which performs its Semantic Analysis as well: each expression is checked as its code is
+ * emitted, and its Type is handed directly to the instructions that need it. Instructions are emitted in their final
+ * order, to an InstructionTable.
+ *
+ * Fields are shared by every method of the class, which are analysed in parallel, so the Types this Function gives to
+ * the fields it assigns are kept aside and only applied to their Symbols once every method is done.
  *
  * @see FunctionTable
+ * @see InstructionTable
  */
 class IntermediateCode {
     private final FunctionTable functionTable;
-    private LinkedList<IntermediateInstruction> instructions = new LinkedList<>();
+    private final IntermediateRepresentation classTable;
+    private final NodeTable nodes;
+    private final TypeTable types;
+    private final InstructionTable instructions;
+    private final LinkedHashMap<Symbol, Type> fieldTypes = new LinkedHashMap<>();
 
     private int labelId = 0;
 
     /**
      * Creates an Intermediate Code class for a Function
      * @param functionTable Function Table, where the Intermediate Code belongs to
+     * @param ir IntermediateRepresentation of the class containing the Function
      */
-    IntermediateCode(FunctionTable functionTable) {
+    IntermediateCode(FunctionTable functionTable, IntermediateRepresentation ir) {
         this.functionTable = functionTable;
+        this.classTable = ir;
+        this.nodes = ir.getNodes();
+        this.types = ir.getTypes();
+        this.instructions = new InstructionTable(ir.getClassIdentifier());
     }
 
     /**
-     * Generates the Intermediate Code for the Function
-     *  @param bodyNode AST Root of the Function's body
+     * Analyses and generates the Intermediate Code for a series of statements (Function body or compound statement)
+     *  @param bodyNode AST Root containing the statements
      * @param i Index of the first statement child in the provided node
-     * @param typeList List of Types kept during the Semantic Analysis that are useful for the Intermediate Code Gen
-     * @param methodList List of Method Signatures kept during the Semantic Analysis
+     *
+     * @throws SemanticException on Semantic Error
      */
-    void generateFunctionCode(Node bodyNode, int i, LinkedList<Type> typeList, LinkedList<MethodSignature> methodList) {
-        Node statementNode;
+    void generateFunctionCode(int bodyNode, int i) throws SemanticException {
+        int statementNode;
 
-        while (i < bodyNode.jjtGetNumChildren()) {
-            statementNode = bodyNode.jjtGetChild(i++);
+        while (i < nodes.getNumChildren(bodyNode)) {
+            statementNode = nodes.getChild(bodyNode, i++);
 
-            final int id = statementNode.getId();
+            final int id = nodes.getKind(statementNode);
             switch(id) {
                 case ParserTreeConstants.JJTASSIGN:
-                    final Node assignNode = statementNode.jjtGetChild(0);
-
-                    if (assignNode.getId() == ParserTreeConstants.JJTID) {
-                        if (functionTable.isClassField(assignNode)) {
-                            instructions.addLast(new IntermediateInstruction(ParserTreeConstants.JJTTHIS));
-                            generateExpressionCode(statementNode.jjtGetChild(1), typeList, methodList);
-                            instructions.addLast(new IntermediateInstruction(id,
-                                    functionTable.getClassIdentifier() +  "/" + assignNode.jjtGetValue(),
-                                    typeList.remove()));
+                    final int assignNode = nodes.getChild(statementNode, 0);
+                    final int expressionNode = nodes.getChild(statementNode, 1);
+
+                    final Symbol assignSymbol;
+                    final Type assignType, expressionType;
+
+                    if (nodes.getKind(assignNode) == ParserTreeConstants.JJTID) {
+                        assignSymbol = variable(assignNode);
+                        assignType = typeOf(assignSymbol);
+
+                        if (assignSymbol.isField()) {
+                            instructions.add(ParserTreeConstants.JJTTHIS);
+                            expressionType = generateExpressionCode(expressionNode, assignType);
+                            checkAssignment(statementNode, assignSymbol, assignType, expressionType);
+
+                            instructions.addField(id, assignSymbol);
+                            break;
                         }
-                        else {
-                            if (functionTable.isOptimize()) {
-                                if (functionTable.getVariables().hasValue(assignNode)) {
-                                    typeList.remove();
-                                    break;
-                                } else {
-                                    try {
-                                        instructions.addLast(new IntermediateInstruction(ParserTreeConstants.JJTINTEGER,
-                                                String.valueOf(evaluateExpression(statementNode.jjtGetChild(1))))
-                                        );
-
-                                        final int instructionSize = instructions.size();
-                                        generateExpressionCode(statementNode.jjtGetChild(1), typeList, methodList);
-                                        while (instructions.size() > instructionSize)   instructions.removeLast();
-                                    } catch (SemanticException e) {
-                                        generateExpressionCode(statementNode.jjtGetChild(1), typeList, methodList);
-                                    }
-                                }
-                            } else {
-                                generateExpressionCode(statementNode.jjtGetChild(1), typeList, methodList);
-                            }
-
-                            instructions.addLast(new IntermediateInstruction(id,
-                                    String.valueOf(assignNode.jjtGetValue()), typeList.remove()));
+
+                        final int instructionSize = instructions.size();
+
+                        if (assignSymbol.getValue() != null) {
+                            // The variable is replaced by its value wherever it is used, so it is never stored
+                            expressionType = generateExpressionCode(expressionNode, assignType);
+                            instructions.truncate(instructionSize);
+                            checkAssignment(statementNode, assignSymbol, assignType, expressionType);
+                            break;
                         }
+
+                        final Integer constant = constantExpression(expressionNode);
+                        expressionType = generateExpressionCode(expressionNode, assignType);
+
+                        if (constant != null) {
+                            instructions.truncate(instructionSize);
+                            instructions.addConstant(constant);
+                        }
+
+                        checkAssignment(statementNode, assignSymbol, assignType, expressionType);
+                        instructions.addLocal(id, assignSymbol, expressionType);
                     }
                     else {
-                        generateExpressionCode(statementNode.jjtGetChild(0).jjtGetChild(0), typeList, methodList);
-                        generateExpressionCode(statementNode.jjtGetChild(0).jjtGetChild(1), typeList, methodList);
-                        generateExpressionCode(statementNode.jjtGetChild(1), typeList, methodList);
-                        instructions.addLast(new IntermediateInstruction(id, typeList.remove()));
+                        assignSymbol = null;
+
+                        final Type arrayType = generateExpressionCode(nodes.getChild(assignNode, 0), Type.UNKNOWN());
+                        final Type indexType = generateExpressionCode(nodes.getChild(assignNode, 1), Type.INT());
+                        assignType = elementType(assignNode, arrayType, indexType);
+
+                        expressionType = generateExpressionCode(expressionNode, assignType);
+                        checkAssignment(statementNode, assignSymbol, assignType, expressionType);
+
+                        instructions.add(id, expressionType);
                     }
                     break;
                 case ParserTreeConstants.JJTIF:
                     final int resume = labelId++, target = labelId++;
 
-                    final Node condNode = statementNode.jjtGetChild(0).jjtGetChild(0);
-                    if (functionTable.isOptimize()) {
-                        try {
-                            if (evaluateCondition(condNode)) {
-                                generateConditionCode(condNode, new LinkedList<>(), typeList, methodList,
-                                        target, true);
-                                generateFunctionCode(statementNode.jjtGetChild(1), 0, typeList, methodList);
-
-                                final int instructionSize = instructions.size();
-                                generateFunctionCode(statementNode.jjtGetChild(2), 0, typeList, methodList);
-                                while (instructions.size() > instructionSize)   instructions.removeLast();
-                            } else {
-                                generateConditionCode(condNode, new LinkedList<>(), typeList, methodList,
-                                        target, true);
-
-                                final int instructionSize = instructions.size();
-                                generateFunctionCode(statementNode.jjtGetChild(1), 0, typeList, methodList);
-                                while (instructions.size() > instructionSize)   instructions.removeLast();
-
-                                generateFunctionCode(statementNode.jjtGetChild(2), 0, typeList, methodList);
-                            }
-                            break;
-                        } catch (SemanticException ignored) {
+                    final int condNode = nodes.getChild(nodes.getChild(statementNode, 0), 0);
+                    final Boolean condValue = constantCondition(condNode);
+
+                    if (condValue != null) {
+                        final int conditionSize = instructions.size();
+                        checkCondition(statementNode, generateConditionCode(condNode, target, true));
+                        instructions.truncate(conditionSize);
+
+                        // The branch that is never taken is still analysed, but its code is discarded
+                        if (condValue) {
+                            generateFunctionCode(nodes.getChild(statementNode, 1), 0);
+
+                            final int instructionSize = instructions.size();
+                            generateFunctionCode(nodes.getChild(statementNode, 2), 0);
+                            instructions.truncate(instructionSize);
+                        } else {
+                            final int instructionSize = instructions.size();
+                            generateFunctionCode(nodes.getChild(statementNode, 1), 0);
+                            instructions.truncate(instructionSize);
+
+                            generateFunctionCode(nodes.getChild(statementNode, 2), 0);
                         }
+                        break;
                     }
 
-                    generateConditionCode(condNode, instructions, typeList, methodList, target, true);
+                    checkCondition(statementNode, generateConditionCode(condNode, target, true));
 
-                    generateFunctionCode(statementNode.jjtGetChild(1), 0, typeList, methodList);
-                    instructions.addLast(IntermediateInstruction.GOTO(resume));
-                    instructions.addLast(IntermediateInstruction.LABEL(target));
+                    generateFunctionCode(nodes.getChild(statementNode, 1), 0);
+                    instructions.addGoto(resume);
+                    instructions.addLabel(target);
 
-                    generateFunctionCode(statementNode.jjtGetChild(2), 0, typeList, methodList);
-                    instructions.addLast(IntermediateInstruction.LABEL(resume));
+                    generateFunctionCode(nodes.getChild(statementNode, 2), 0);
+                    instructions.addLabel(resume);
                     break;
                 case ParserTreeConstants.JJTWHILE:
                     final int condition = labelId++, body = labelId++;
 
-                    final Node conditionNode = statementNode.jjtGetChild(0).jjtGetChild(0);
-
-                    if (functionTable.isOptimize()) {
-                        try {
-                            if (!evaluateCondition(conditionNode)) {
-                                final int instructionSize = instructions.size();
-                                generateFunctionCode(statementNode.jjtGetChild(1), 0, typeList, methodList);
-                                while (instructions.size() > instructionSize)   instructions.removeLast();
-
-                                generateConditionCode(conditionNode, new LinkedList<>(),
-                                        typeList, methodList, body, false);
-                                break;
-                            }
-                        } catch (SemanticException ignored) {
-                            instructions.addLast(IntermediateInstruction.GOTO(condition));
-                        }
+                    final int conditionNode = nodes.getChild(nodes.getChild(statementNode, 0), 0);
+                    final Boolean conditionValue = constantCondition(conditionNode);
+
+                    if (conditionValue != null && !conditionValue) {
+                        final int instructionSize = instructions.size();
+                        generateFunctionCode(nodes.getChild(statementNode, 1), 0);
+                        checkCondition(statementNode, generateConditionCode(conditionNode, body, false));
+                        instructions.truncate(instructionSize);
+                        break;
                     }
-                    else {
-                        instructions.addLast(IntermediateInstruction.GOTO(condition));
+                    else if (conditionValue == null) {
+                        instructions.addGoto(condition);
                     }
 
-                    instructions.addLast(IntermediateInstruction.LABEL(body));
+                    instructions.addLabel(body);
 
-                    generateFunctionCode(statementNode.jjtGetChild(1), 0, typeList, methodList);
+                    generateFunctionCode(nodes.getChild(statementNode, 1), 0);
 
-                    instructions.addLast(IntermediateInstruction.LABEL(condition));
-                    generateConditionCode(conditionNode, instructions, typeList, methodList, body, false);
+                    instructions.addLabel(condition);
+                    checkCondition(statementNode, generateConditionCode(conditionNode, body, false));
                     break;
                 case ParserTreeConstants.JJTFCALL:
-                    generateExpressionCode(statementNode.jjtGetChild(0), typeList, methodList);
-
-                    Node parameterNode = statementNode.jjtGetChild(2);
-                    for (int j = 0; j < parameterNode.jjtGetNumChildren(); j++) {
-                       if (functionTable.isOptimize()) {
-                            try {
-                                instructions.addLast(new IntermediateInstruction(ParserTreeConstants.JJTINTEGER,
-                                        String.valueOf(evaluateExpression(parameterNode.jjtGetChild(j))))
-                                );
-
-                                final int instructionSize = instructions.size();
-                                generateExpressionCode(parameterNode.jjtGetChild(j), typeList, methodList);
-                                while (instructions.size() > instructionSize)   instructions.removeLast();
-                            } catch (SemanticException e) {
-                                generateExpressionCode(parameterNode.jjtGetChild(j), typeList, methodList);
-                            }
-                        }
-                        else {
-                            generateExpressionCode(parameterNode.jjtGetChild(j), typeList, methodList);
-                        }
-                    }
-
-                    final Type classType = typeList.remove();
-                    final MethodSignature methodSignature = methodList.remove();
-                    instructions.addLast(new IntermediateInstruction(classType,
-                            methodSignature.toDescriptor(classType.toString())));
-
-                    if (!(methodSignature.getReturnType().equals(Type.VOID())))
-                        instructions.addLast(IntermediateInstruction.POP());
+                    // The result of an invocation statement is discarded, so unknown methods are assumed void
+                    if (generateInvocationCode(statementNode, Type.VOID()) != Type.VOID())
+                        instructions.addPop();
                     break;
                 case ParserTreeConstants.JJTRETURN:
-                    generateExpressionCode(statementNode.jjtGetChild(0), typeList, methodList);
-                    instructions.addLast(new IntermediateInstruction(id, typeList.remove()));
+                    final Type returnType = generateExpressionCode(nodes.getChild(statementNode, 0),
+                            functionTable.getReturnType());
+
+                    if (functionTable.getReturnType() != returnType)
+                        throw new SemanticException(nodes, statementNode,
+                                "Invalid return expression type, expected " + functionTable.getReturnType()
+                                        + " instead of " + returnType + ",");
+
+                    instructions.add(id, returnType);
                     break;
+                default:
+                    throw new SemanticException(nodes, statementNode, "Invalid statement");
             }
         }
     }
 
     /**
-     * Generates the Intermediate Code of a condition
+     * Checks an assignment and, when assigning an instance of this class or to a variable of its parent class, takes
+     * the Type of the expression as the Type of the variable
+     *
+     * @param statementNode AST Node of the assignment
+     * @param assignSymbol Symbol of the assigned variable, null when assigning an array element
+     * @param assignType Type of the assigned variable or element
+     * @param expressionType Type of the assigned expression
+     *
+     * @throws SemanticException on Semantic Error
+     */
+    private void checkAssignment(int statementNode, Symbol assignSymbol, Type assignType, Type expressionType)
+            throws SemanticException {
+        if (notInheritance(assignType, expressionType)) {
+            if (assignType != expressionType)
+                throw new SemanticException(nodes, statementNode,
+                        "Invalid assignment of " + expressionType + " to variable of type " + assignType);
+        }
+        else if (assignSymbol != null) {
+            if (assignSymbol.isField())     fieldTypes.put(assignSymbol, expressionType);
+            else                            assignSymbol.setType(expressionType);
+        }
+    }
+
+    /**
+     * @param symbol Symbol of a variable
+     *
+     * @return Type of the variable within this Function (fields with the Type last assigned to them here, if any)
+     */
+    private Type typeOf(Symbol symbol) {
+        return symbol.isField() ? fieldTypes.getOrDefault(symbol, symbol.getType()) : symbol.getType();
+    }
+
+    /**
+     * Gives the fields assigned by this Function the Types they were last assigned, to be called once no other method
+     * is being analysed
+     */
+    void applyFieldTypes() {
+        for (Map.Entry<Symbol, Type> field : fieldTypes.entrySet())
+            field.getKey().setType(field.getValue());
+    }
+
+    private boolean notInheritance(Type parentClass, Type childClass) {
+        return parentClass != classTable.getExtendType() && childClass != classTable.getClassType();
+    }
+
+    private void checkCondition(int statementNode, Type conditionType) throws SemanticException {
+        if (!conditionType.isBoolean())
+            throw new SemanticException(nodes, statementNode,
+                    "Invalid condition of non-boolean type ( " + conditionType + " )");
+    }
+
+    /**
+     * @param idNode Node containing the Identifier of a variable being used
+     *
+     * @return Symbol of the variable
+     *
+     * @throws SemanticException when the variable does not exist, or is a field used by a static method
+     */
+    private Symbol variable(int idNode) throws SemanticException {
+        final Symbol symbol = functionTable.getSymbol(idNode);
+
+        if (symbol == null || (functionTable.getReturnType() == null && symbol.isField()))
+            throw new SemanticException(nodes, idNode, "Variable " + nodes.getValue(idNode) + " not found");
+
+        return symbol;
+    }
+
+    /**
+     * Checks the array and index of an element access
+     *
+     * @param indexNode AST Node of the element access
+     * @param arrayType Type of the accessed array
+     * @param indexType Type of the index expression
+     *
+     * @return Type of the elements of the array
+     *
+     * @throws SemanticException on Semantic Error
+     */
+    private Type elementType(int indexNode, Type arrayType, Type indexType) throws SemanticException {
+        if (!indexType.isInt())
+            throw new SemanticException(nodes, nodes.getChild(indexNode, 1),
+                    "Invalid index, must be an integer instead of " + indexType);
+
+        if (arrayType.isIntArray())             return Type.INT();
+        else if (arrayType.isStringArray())     return Type.STRING();
+        else
+            throw new SemanticException(nodes, nodes.getChild(indexNode, 0), "Trying to access index of non array");
+    }
+
+    /**
+     * Analyses and generates the Intermediate Code of an invocation: its target, its parameters and the call itself
+     *
+     * @param callNode AST Node of the invocation
+     * @param desiredType Desired return Type. Used to infer return types of unknown methods
+     *
+     * @return Return Type of the invoked method
+     *
+     * @throws SemanticException on Semantic Error
+     */
+    private Type generateInvocationCode(int callNode, Type desiredType) throws SemanticException {
+        final int classNode = nodes.getChild(callNode, 0);
+
+        // Class references of static invocations have no code
+        final Type classType;
+        if (nodes.getKind(classNode) == ParserTreeConstants.JJTID && functionTable.getSymbol(classNode) == null)
+            classType = types.classType(String.valueOf(nodes.getValue(classNode)));
+        else
+            classType = generateExpressionCode(classNode, Type.UNKNOWN());
+
+        final int parameterNode = nodes.getChild(callNode, 2);
+        final Type[] parameterTypes = new Type[nodes.getNumChildren(parameterNode)];
+        for (int i = 0; i < parameterTypes.length; i++)
+            parameterTypes[i] = generateParameterCode(nodes.getChild(parameterNode, i));
+
+        final Invocation invocation = classTable.checkMethod(callNode, classType,
+                String.valueOf(nodes.getValue(nodes.getChild(callNode, 1))), parameterTypes, desiredType);
+
+        instructions.addInvoke(invocation);
+        return invocation.getReturnType();
+    }
+
+    /**
+     * Generates the Intermediate Code of a parameter of an invocation, replacing it by its value when constant
+     *
+     * @param parameterNode AST Root containing the parameter
+     *
+     * @return Type of the parameter
+     *
+     * @throws SemanticException on Semantic Error
+     */
+    private Type generateParameterCode(int parameterNode) throws SemanticException {
+        final Integer constant = constantExpression(parameterNode);
+        final int instructionSize = instructions.size();
+
+        final Type parameterType = generateExpressionCode(parameterNode, Type.UNKNOWN());
+
+        if (constant != null) {
+            instructions.truncate(instructionSize);
+            instructions.addConstant(constant);
+        }
+
+        return parameterType;
+    }
+
+    /**
+     * Analyses and generates the Intermediate Code of a condition
      *
      * @param conditionNode AST Root containing the condition
-     * @param typeList List of Types kept during the Semantic Analysis that are useful for the Intermediate Code Gen
-     * @param methodList List of Method Signatures kept during the Semantic Analysis
+     * @param target Label to jump to, depending on the evaluation of the condition
      * @param eval Whether the condition must be evaluated true or false
+     *
+     * @return Type of the condition
+     *
+     * @throws SemanticException on Semantic Error
      */
-    private void generateConditionCode(Node conditionNode, LinkedList<IntermediateInstruction> condInstructions,
-                                       LinkedList<Type> typeList, LinkedList<MethodSignature> methodList,
-                                       int target, boolean eval) {
-        final int id = conditionNode.getId();
+    private Type generateConditionCode(int conditionNode, int target, boolean eval) throws SemanticException {
+        final int id = nodes.getKind(conditionNode);
+        final int firstNode, secondNode;
 
         switch(id) {
             case ParserTreeConstants.JJTAND:
+                firstNode = nodes.getChild(conditionNode, 0);
+                secondNode = nodes.getChild(conditionNode, 1);
+
+                final int andTarget = eval ? target : labelId++;
+                checkBoolean(firstNode, generateConditionCode(firstNode, andTarget, true));
+                checkBoolean(secondNode, generateConditionCode(secondNode, andTarget, true));
+
                 if (!eval) {
-                    final int newTarget = labelId++;
-                    generateConditionCode(conditionNode.jjtGetChild(0), condInstructions, typeList, methodList,
-                            newTarget, true);
-                    generateConditionCode(conditionNode.jjtGetChild(1), condInstructions, typeList, methodList,
-                            newTarget, true);
-                    condInstructions.addLast(IntermediateInstruction.GOTO(target));
-                    condInstructions.addLast(IntermediateInstruction.LABEL(newTarget));
+                    instructions.addGoto(target);
+                    instructions.addLabel(andTarget);
                 }
-                else {
-                    generateConditionCode(conditionNode.jjtGetChild(0), condInstructions, typeList, methodList,
-                            target, true);
-                    generateConditionCode(conditionNode.jjtGetChild(1), condInstructions, typeList, methodList,
-                            target, true);
-                }
-                break;
+                return Type.BOOLEAN();
             case ParserTreeConstants.JJTLOWER:
-                getExpressionCode(conditionNode.jjtGetChild(0), condInstructions, typeList, methodList);
-                getExpressionCode(conditionNode.jjtGetChild(1), condInstructions, typeList, methodList);
-                condInstructions.addLast(new IntermediateInstruction(id, eval, target));
-                break;
+                firstNode = nodes.getChild(conditionNode, 0);
+                secondNode = nodes.getChild(conditionNode, 1);
+
+                checkInt(firstNode, generateExpressionCode(firstNode, Type.INT()));
+                checkInt(secondNode, generateExpressionCode(secondNode, Type.INT()));
+                instructions.addBranch(id, eval, target);
+                return Type.BOOLEAN();
             case ParserTreeConstants.JJTNOT:
-                generateConditionCode(conditionNode.jjtGetChild(0), condInstructions, typeList, methodList,
-                        target, !eval);
-                break;
+                firstNode = nodes.getChild(conditionNode, 0);
+
+                final Type expressionType = generateConditionCode(firstNode, target, !eval);
+
+                if (!expressionType.isBoolean())
+                    throw new SemanticException(nodes, firstNode,
+                            "Invalid expression of type " + expressionType + ". Must be a boolean to apply negate op.");
+                return Type.BOOLEAN();
             default:
-                getExpressionCode(conditionNode, condInstructions, typeList, methodList);
-                condInstructions.addLast(new IntermediateInstruction(id, eval, target));
-                break;
+                final Type conditionType = generateExpressionCode(conditionNode, Type.BOOLEAN());
+                instructions.addBranch(id, eval, target);
+                return conditionType;
+        }
+    }
+
+    private void checkBoolean(int expressionNode, Type type) throws SemanticException {
+        if (!type.isBoolean())
+            throw new SemanticException(nodes, expressionNode, "Invalid expression of non-boolean type " + type);
+    }
+
+    private void checkInt(int expressionNode, Type type) throws SemanticException {
+        if (!type.isInt())
+            throw new SemanticException(nodes, expressionNode, "Invalid expression of type " + type + " instead of int");
+    }
+
+    /**
+     * @param condNode AST Root containing a condition
+     *
+     * @return Value of the condition when optimizing and it is constant, null otherwise
+     */
+    private Boolean constantCondition(int condNode) {
+        if (!functionTable.isOptimize())    return null;
+
+        try {
+            return evaluateCondition(condNode);
+        } catch (SemanticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param exprNode AST Root containing an expression
+     *
+     * @return Value of the expression when optimizing and it is constant, null otherwise
+     */
+    private Integer constantExpression(int exprNode) {
+        if (!functionTable.isOptimize())    return null;
+
+        try {
+            return evaluateExpression(exprNode);
+        } catch (SemanticException e) {
+            return null;
         }
     }
 
-    private boolean evaluateCondition(Node condNode) throws SemanticException {
-        switch (condNode.getId()) {
+    private boolean evaluateCondition(int condNode) throws SemanticException {
+        switch (nodes.getKind(condNode)) {
             case ParserTreeConstants.JJTAND:
-                return evaluateCondition(condNode.jjtGetChild(0))
-                        && evaluateCondition(condNode.jjtGetChild(1));
+                return evaluateCondition(nodes.getChild(condNode, 0))
+                        && evaluateCondition(nodes.getChild(condNode, 1));
             case ParserTreeConstants.JJTNOT:
-                return !evaluateCondition(condNode.jjtGetChild(0));
+                return !evaluateCondition(nodes.getChild(condNode, 0));
             case ParserTreeConstants.JJTTRUE:
                 return true;
             case ParserTreeConstants.JJTFALSE:
                 return false;
             case ParserTreeConstants.JJTLOWER:
-                return evaluateExpression(condNode.jjtGetChild(0)) < evaluateExpression(condNode.jjtGetChild(1));
+                return evaluateExpression(nodes.getChild(condNode, 0))
+                        < evaluateExpression(nodes.getChild(condNode, 1));
             default:
-                throw new SemanticException(condNode, "Can't evaluate (You're not supposed to be seeing this)");
+                throw new SemanticException(nodes, condNode, "Can't evaluate (You're not supposed to be seeing this)");
         }
     }
 
-    private int evaluateExpression(Node exprNode) throws SemanticException {
-        switch (exprNode.getId()) {
+    private int evaluateExpression(int exprNode) throws SemanticException {
+        switch (nodes.getKind(exprNode)) {
             case ParserTreeConstants.JJTPLUS:
-                return evaluateExpression(exprNode.jjtGetChild(0)) + evaluateExpression(exprNode.jjtGetChild(1));
+                return evaluateExpression(nodes.getChild(exprNode, 0))
+                        + evaluateExpression(nodes.getChild(exprNode, 1));
             case ParserTreeConstants.JJTMINUS:
-                return evaluateExpression(exprNode.jjtGetChild(0)) - evaluateExpression(exprNode.jjtGetChild(1));
+                return evaluateExpression(nodes.getChild(exprNode, 0))
+                        - evaluateExpression(nodes.getChild(exprNode, 1));
             case ParserTreeConstants.JJTTIMES:
-                return evaluateExpression(exprNode.jjtGetChild(0)) * evaluateExpression(exprNode.jjtGetChild(1));
+                return evaluateExpression(nodes.getChild(exprNode, 0))
+                        * evaluateExpression(nodes.getChild(exprNode, 1));
             case ParserTreeConstants.JJTDIVIDE:
-                return evaluateExpression(exprNode.jjtGetChild(0)) / evaluateExpression(exprNode.jjtGetChild(1));
+                final int dividend = evaluateExpression(nodes.getChild(exprNode, 0));
+                final int divisor = evaluateExpression(nodes.getChild(exprNode, 1));
+
+                // Left to throw when it is run
+                if (divisor == 0)
+                    throw new SemanticException(nodes, exprNode, "Can't evaluate a division by zero");
+
+                return dividend / divisor;
             case ParserTreeConstants.JJTINTEGER:
-                return Integer.parseInt(String.valueOf(exprNode.jjtGetValue()));
+                return Integer.parseInt(String.valueOf(nodes.getValue(exprNode)));
             case ParserTreeConstants.JJTID:
-                final Integer value = functionTable.getVariables().getValue(exprNode);
-                if (value != null)  return value;
+                final Symbol symbol = functionTable.getSymbol(exprNode);
+                if (symbol != null && symbol.getValue() != null)    return symbol.getValue();
             default:
-                throw new SemanticException(exprNode, "Can't evaluate (You're not supposed to be seeing this)");
+                throw new SemanticException(nodes, exprNode, "Can't evaluate (You're not supposed to be seeing this)");
         }
     }
 
-    private void generateExpressionCode(Node expressionNode, LinkedList<Type> typeList,
-                                        LinkedList<MethodSignature> methodList) {
-        getExpressionCode(expressionNode, instructions, typeList, methodList);
-    }
-
     /**
-     * Generates the Intermediate Code of a full expression
+     * Analyses and generates the Intermediate Code of an expression, in post-order (operands before their operation)
      *
-     * The tree is traversed using DFS and the resulting instruction list is inverted, resulting in a correct order of
-     * instructions, as mentioned in the classes.
      * @param expressionNode AST Root containing the expression
-     * @param instructions List to store the generated Intermediate Code
-     * @param typeList List of Types kept during the Semantic Analysis that are useful for the Intermediate Code Gen
-     * @param methodList List of Method Signatures kept during the Semantic Analysis
+     * @param desiredType Desired Type for this expression. Used to infer return types of unknown methods
+     *
+     * @return Type of the expression
+     *
+     * @throws SemanticException on Semantic Error
      */
-    private void getExpressionCode(Node expressionNode, LinkedList<IntermediateInstruction> instructions,
-                                   LinkedList<Type> typeList, LinkedList<MethodSignature> methodList) {
-        LinkedList<IntermediateInstruction> expInstructions = new LinkedList<>();
-
-        generateExpressionCode(expressionNode, expInstructions, typeList, methodList);
+    private Type generateExpressionCode(int expressionNode, Type desiredType) throws SemanticException {
+        final int id = nodes.getKind(expressionNode);
+        final int firstNode, secondNode;
 
-        expInstructions.descendingIterator().forEachRemaining(instructions::addLast);
-    }
-
-    /**
-     * Generates the Intermediate Code of a nested-expression (Recursion is done here, since the list is only inverted
-     * once after the whole expression is generated)
-     * @param expressionNode AST Root containing the expression
-     * @param expInstructions List of the already generated instructions of the whole expression
-     * @param typeList List of Types kept during the Semantic Analysis that are useful for the Intermediate Code Gen
-     * @param methodList List of Method Signatures kept during the Semantic Analysis
-     */
-    private void generateExpressionCode(Node expressionNode, LinkedList<IntermediateInstruction> expInstructions,
-                                        LinkedList<Type> typeList, LinkedList<MethodSignature> methodList) {
-        final int id = expressionNode.getId();
         switch(id) {
             case ParserTreeConstants.JJTFCALL:
-                final Type classType = typeList.remove();
-                expInstructions.addLast(new IntermediateInstruction(classType,
-                        methodList.remove().toDescriptor(classType.toString())));
-
-                Node parameterNode = expressionNode.jjtGetChild(2);
-                for (int i = parameterNode.jjtGetNumChildren() - 1; i >= 0; i--) {
-                    if (functionTable.isOptimize()) {
-                        try {
-                            expInstructions.addLast(new IntermediateInstruction(ParserTreeConstants.JJTINTEGER,
-                                    String.valueOf(evaluateExpression(parameterNode.jjtGetChild(i))))
-                            );
-
-                            final int instructionSize = expInstructions.size();
-                            generateExpressionCode(parameterNode.jjtGetChild(i), expInstructions, typeList, methodList);
-                            while (expInstructions.size() > instructionSize)   expInstructions.removeLast();
-                        } catch (SemanticException e) {
-                            generateExpressionCode(parameterNode.jjtGetChild(i), expInstructions, typeList, methodList);
-                        }
-                    }
-                    else {
-                        generateExpressionCode(parameterNode.jjtGetChild(i), expInstructions, typeList, methodList);
-                    }
-                }
-
-                generateExpressionCode(expressionNode.jjtGetChild(0), expInstructions, typeList, methodList);
-                break;
+                return generateInvocationCode(expressionNode, desiredType);
             case ParserTreeConstants.JJTINDEX:
-                expInstructions.add(new IntermediateInstruction(id, (Type) expressionNode.jjtGetValue()));
-                generateExpressionCode(expressionNode.jjtGetChild(1), expInstructions, typeList, methodList);
-                generateExpressionCode(expressionNode.jjtGetChild(0), expInstructions, typeList, methodList);
-                break;
+                // TODO Use the current desired type to deduce desired type of arrayType
+                final Type arrayType = generateExpressionCode(nodes.getChild(expressionNode, 0), Type.UNKNOWN());
+                final Type indexType = generateExpressionCode(nodes.getChild(expressionNode, 1), Type.INT());
+                final Type elementType = elementType(expressionNode, arrayType, indexType);
+
+                instructions.add(id, elementType);
+                return elementType;
             case ParserTreeConstants.JJTPLUS:
             case ParserTreeConstants.JJTMINUS:
             case ParserTreeConstants.JJTTIMES:
             case ParserTreeConstants.JJTDIVIDE:
-                expInstructions.addLast(new IntermediateInstruction(id));
-                generateExpressionCode(expressionNode.jjtGetChild(1), expInstructions, typeList, methodList);
-                generateExpressionCode(expressionNode.jjtGetChild(0), expInstructions, typeList, methodList);
-                break;
-            case ParserTreeConstants.JJTID:
-                final Type idType = functionTable.getIdType(expressionNode);
+                firstNode = nodes.getChild(expressionNode, 0);
+                secondNode = nodes.getChild(expressionNode, 1);
 
-                // Single case where this can happen is when it's a class reference for static method invocation
-                if (idType == null)  break;
+                checkInt(firstNode, generateExpressionCode(firstNode, Type.INT()));
+                checkInt(secondNode, generateExpressionCode(secondNode, Type.INT()));
+                instructions.add(id);
+                return Type.INT();
+            case ParserTreeConstants.JJTID:
+                final Symbol symbol = variable(expressionNode);
 
-                if (functionTable.isClassField(expressionNode)) {
-                    expInstructions.addLast(new IntermediateInstruction(id,
-                            functionTable.getClassIdentifier() +  "/" + expressionNode.jjtGetValue(), idType));
-                    expInstructions.addLast(new IntermediateInstruction(ParserTreeConstants.JJTTHIS));
+                if (symbol.isField()) {
+                    instructions.add(ParserTreeConstants.JJTTHIS);
+                    instructions.addField(id, symbol);
+                }
+                else if (symbol.getValue() != null) {
+                    instructions.addConstant(symbol.getValue());
                 }
                 else {
-                    final Integer value = functionTable.getVariables().getValue(expressionNode);
-
-                    if (value != null) {
-                        expInstructions.addLast(new IntermediateInstruction(ParserTreeConstants.JJTINTEGER,
-                                String.valueOf(value)));
-                    }
-                    else {
-                        expInstructions.addLast(new IntermediateInstruction(id,
-                                String.valueOf(expressionNode.jjtGetValue()), idType));
-                    }
+                    instructions.addLocal(id, symbol, symbol.getType());
                 }
-                break;
+                return typeOf(symbol);
             case ParserTreeConstants.JJTINTEGER:
-                expInstructions.addLast(new IntermediateInstruction(id, String.valueOf(expressionNode.jjtGetValue())));
-                break;
+                instructions.addConstant(Integer.parseInt(String.valueOf(nodes.getValue(expressionNode))));
+                return Type.INT();
             case ParserTreeConstants.JJTLENGTH:
+                final Type targetType = generateExpressionCode(nodes.getChild(expressionNode, 0), Type.UNKNOWN());
+
+                if (!targetType.isIntArray() && !targetType.isStringArray())
+                    throw new SemanticException(nodes, expressionNode,
+                            "Attempting to retrieve length of non array ( " + targetType + " )");
+
+                instructions.add(id);
+                return Type.INT();
             case ParserTreeConstants.JJTNEWARRAY:
-                expInstructions.addLast(new IntermediateInstruction(id));
-                generateExpressionCode(expressionNode.jjtGetChild(0), expInstructions, typeList, methodList);
-                break;
+                final Type lengthType = generateExpressionCode(nodes.getChild(expressionNode, 0), Type.INT());
+
+                if (!lengthType.isInt())
+                    throw new SemanticException(nodes, expressionNode,
+                            "Invalid array size expression, expected int instead of " + lengthType);
+
+                instructions.add(id);
+                return Type.INTARRAY();
             case ParserTreeConstants.JJTNEWOBJ:
-                String value = String.valueOf(expressionNode.jjtGetChild(0).jjtGetValue());
-                expInstructions.addLast(new IntermediateInstruction(id,
-                        value + System.lineSeparator()
-                                + "\tdup" + System.lineSeparator()
-                                + "\tinvokespecial " + value + "/<init>()V"));
-                break;
+                instructions.add(id, String.valueOf(nodes.getValue(nodes.getChild(expressionNode, 0))));
+                return types.of(nodes, nodes.getChild(expressionNode, 0));
             case ParserTreeConstants.JJTAND:
             case ParserTreeConstants.JJTLOWER:
             case ParserTreeConstants.JJTNOT:
-                final int resume = labelId++, target = labelId++, expIndex = expInstructions.size();
-
-                generateConditionCode(expressionNode, expInstructions, typeList, methodList, target, true);
-                expInstructions.addLast(new IntermediateInstruction(ParserTreeConstants.JJTTRUE));
-                expInstructions.addLast(IntermediateInstruction.GOTO(resume));
-                expInstructions.addLast(IntermediateInstruction.LABEL(target));
-                expInstructions.addLast(new IntermediateInstruction(ParserTreeConstants.JJTFALSE));
-                expInstructions.addLast(IntermediateInstruction.LABEL(resume));
-
-                Collections.reverse(expInstructions.subList(expIndex, expInstructions.size()));
-                break;
+                final int resume = labelId++, target = labelId++;
+
+                generateConditionCode(expressionNode, target, true);
+                instructions.add(ParserTreeConstants.JJTTRUE);
+                instructions.addGoto(resume);
+                instructions.addLabel(target);
+                instructions.add(ParserTreeConstants.JJTFALSE);
+                instructions.addLabel(resume);
+                return Type.BOOLEAN();
             case ParserTreeConstants.JJTTHIS:
+                if (functionTable.getReturnType() == null)
+                    throw new SemanticException(nodes, expressionNode,
+                            "Invalid attempt of getting current instance from a static method");
+
+                instructions.add(id);
+                return classTable.getClassType();
             case ParserTreeConstants.JJTTRUE:
             case ParserTreeConstants.JJTFALSE:
-                expInstructions.addLast(new IntermediateInstruction(id));
-                break;
+                instructions.add(id);
+                return Type.BOOLEAN();
+            default:
+                throw new SemanticException(nodes, expressionNode, "Invalid expression");
         }
     }
 
-    LinkedList<IntermediateInstruction> getInstructions() {
+    InstructionTable getInstructions() {
         return instructions;
     }
 
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-
-        for (IntermediateInstruction instruction : instructions) {
-            sb.append("\t").append(instruction).append(System.lineSeparator());
-        }
-
-        return sb.toString();
+        return instructions.toString();
     }
 }
@@ -1,16 +1,25 @@
 package semantic;
 
-import parser.Node;
+import parser.NodeTable;
 import parser.ParserTreeConstants;
+import timing.PhaseTimer;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Class containing an Intermediate Representation of the file(class) being compiled
  *
  * Upon creation, it creates a symbol table and performs semantic analysis and Intermediate Code generation
- * for each method.
+ * for each method. Methods are analysed in parallel (as ForkJoin tasks) and their results are put together in the
+ * order of the sequential compilation, so both the IR and the first Semantic Error reported don't depend on it.
+ * Methods are kept in the order they are declared in, which is also the order they are emitted in.
  */
 public class IntermediateRepresentation {
     /**
@@ -22,93 +31,297 @@ public class IntermediateRepresentation {
      * @see FunctionTable
      */
 
+    private final NodeTable nodes;
+    private final TypeTable types = new TypeTable();
+    private final SignatureTable signatures = new SignatureTable(types);
+    private final Symbol[] bindings;
+
     private String classIdentifier;
     private String extendIdentifier;
+    private Type classType;
+    private Type extendType;
 
-    private final SymbolTable attributes = new SymbolTable();
-    private final HashMap<MethodSignature, FunctionTable> methods = new HashMap<>();
+    private final SymbolTable attributes = new SymbolTable(Symbol.Kind.FIELD);
+    private final LinkedHashMap<MethodSignature, FunctionTable> methods = new LinkedHashMap<>();
     private FunctionTable mainMethod;
 
+    private final boolean optimize;
+    private final boolean ssa;
+    private byte[] environmentHash;
+
     /**
      * Constructor of the class, responsible for initializing the Tables and then perform Semantic analysis and
      * generate the Intermediate Code
      *
-     * @param classRoot AST Node representing the root of the IR class
+     * @param nodes AST of the file, whose root contains the IR class
      *
      * @param optimize
      * @throws SemanticException on Semantic Error (Conflicting Symbols / Methods)
      */
-    public IntermediateRepresentation(Node classRoot, boolean optimize) throws SemanticException {
+    public IntermediateRepresentation(NodeTable nodes, boolean optimize) throws SemanticException {
+        this(nodes, optimize, PhaseTimer.DISABLED);
+    }
+
+    /**
+     * Constructor of the class, measuring the time and allocations of each phase of each method
+     *
+     * @param nodes AST of the file, whose root contains the IR class
+     * @param optimize Whether the -o optimizations are performed
+     * @param timer Timer where the measurements are recorded
+     *
+     * @throws SemanticException on Semantic Error (Conflicting Symbols / Methods)
+     */
+    public IntermediateRepresentation(NodeTable nodes, boolean optimize, PhaseTimer timer) throws SemanticException {
+        this(nodes, optimize, false, timer);
+    }
+
+    /**
+     * Constructor of the class, optionally optimizing the Intermediate Code of each method in SSA form (-O2)
+     *
+     * @param nodes AST of the file, whose root contains the IR class
+     * @param optimize Whether the -o optimizations are performed
+     * @param ssa Whether the Intermediate Code is optimized in SSA form
+     * @param timer Timer where the measurements are recorded
+     *
+     * @throws SemanticException on Semantic Error (Conflicting Symbols / Methods)
+     *
+     * @see SSAForm
+     */
+    public IntermediateRepresentation(NodeTable nodes, boolean optimize, boolean ssa,
+                                      PhaseTimer timer) throws SemanticException {
+        this.nodes = nodes;
+        this.bindings = new Symbol[nodes.size()];
+        this.optimize = optimize;
+        this.ssa = ssa;
+
+        final PhaseTimer.Mark mark = timer.start();
+
+        final int classRoot = nodes.getChild(nodes.getRoot(), 0);
         int iterator = 0;
 
-        this.classIdentifier = String.valueOf(classRoot.jjtGetChild(iterator++).jjtGetValue());
+        this.classIdentifier = String.valueOf(nodes.getValue(nodes.getChild(classRoot, iterator++)));
+        this.classType = types.id(classIdentifier);
 
-        if (classRoot.jjtGetChild(iterator).getId() == ParserTreeConstants.JJTID)
-            this.extendIdentifier = String.valueOf(classRoot.jjtGetChild(iterator++).jjtGetValue());
+        if (nodes.getKind(nodes.getChild(classRoot, iterator)) == ParserTreeConstants.JJTID) {
+            this.extendIdentifier = String.valueOf(nodes.getValue(nodes.getChild(classRoot, iterator++)));
+            this.extendType = types.id(extendIdentifier);
+        }
 
-        while (iterator < classRoot.jjtGetNumChildren()) {
-            Node node = classRoot.jjtGetChild(iterator++);
+        while (iterator < nodes.getNumChildren(classRoot)) {
+            int node = nodes.getChild(classRoot, iterator++);
 
-            switch(node.getId()) {
+            switch(nodes.getKind(node)) {
                 case ParserTreeConstants.JJTVAR:
-                    attributes.addDeclaration(node);
+                    attributes.addDeclaration(nodes, types, node);
                     break;
                 case ParserTreeConstants.JJTMAIN:
                     if (mainMethod != null)
-                        throw new SemanticException(node, "Duplicate main method declaration");
+                        throw new SemanticException(nodes, node, "Duplicate main method declaration");
 
                     mainMethod = new MainTable(node, this, optimize);
                     break;
                 case ParserTreeConstants.JJTMETHOD:
-                    MethodSignature methodSignature = new MethodSignature(node);
+                    MethodSignature methodSignature = signatures.of(nodes, node);
 
                     if (methods.containsKey(methodSignature))
-                        throw new SemanticException(node, "Duplicate method declaration");
+                        throw new SemanticException(nodes, node, "Duplicate method declaration");
 
                     methods.put(methodSignature, new MethodTable(node, this, optimize));
                     break;
             }
         }
 
+        timer.stop(mark, PhaseTimer.Phase.SEMANTIC_ANALYSIS, null);
+
         // Semantic Analysis and Intermediate Code generation
-        if (mainMethod != null)     mainMethod.analyseAndGenerateBody();
+        final List<FunctionTable> functions = new ArrayList<>(methods.size() + 1);
+        final List<ForkJoinTask<SemanticException>> tasks = new ArrayList<>(methods.size() + 1);
+
+        if (mainMethod != null) {
+            functions.add(mainMethod);
+            tasks.add(analyseAndGenerateBody(mainMethod, ssa, timer, "main"));
+        }
 
-        for (FunctionTable method : methods.values())
-            method.analyseAndGenerateBody();
+        for (Map.Entry<MethodSignature, FunctionTable> method : methods.entrySet()) {
+            functions.add(method.getValue());
+            tasks.add(analyseAndGenerateBody(method.getValue(), ssa, timer, method.getKey().toString()));
+        }
+
+        SemanticException error = null;
+        for (ForkJoinTask<SemanticException> task : tasks) {
+            final SemanticException exception = task.join();
+            if (error == null)  error = exception;
+        }
+
+        if (error != null)  throw error;
+
+        for (FunctionTable function : functions)
+            function.applyFieldTypes();
+    }
+
+    /**
+     * Starts the Semantic Analysis and Intermediate Code generation (and SSA optimization) of a Function on the
+     * current ForkJoin pool (the common pool, when not called from one)
+     *
+     * @param function Function Table of the Function
+     * @param ssa Whether the Intermediate Code is optimized in SSA form
+     * @param timer Timer where the measurements are recorded
+     * @param name Name of the Function in the measurements
+     *
+     * @return Task of the Function, whose result is its Semantic Error (null if none)
+     */
+    private static ForkJoinTask<SemanticException> analyseAndGenerateBody(FunctionTable function, boolean ssa,
+                                                                           PhaseTimer timer, String name) {
+        return ForkJoinTask.adapt(() -> {
+            try {
+                function.analyseAndGenerateBody(timer, name);
+                if (ssa)    function.optimizeSSA(timer, name);
+
+                return (SemanticException) null;
+            } catch (SemanticException e) {
+                return e;
+            }
+        }).fork();
     }
 
     /**
      * Utility method during Semantic Analysis and ICode generation to check if a method belongs to the class itself
      *
+     * Methods of this class have their declared return type, while the return type of the other ones (including the
+     * inherited ones) is inferred from the desired type of the invocation.
+     *
+     * @param node AST Node of the invocation
      * @param classType Type of the object used to call the Method (class)
      * @param methodId Method Identifier (Not to be confused with its signature)
      * @param parameterTypes Types of the Method parameters
+     * @param desiredType Desired Type for the result of the invocation (unknown if it can't be inferred)
      *
-     * @return Return Type of the method
+     * @return Invocation of the method
      *
-     * @throws SemanticException on Semantic Error (Invalid Class Type or Method not found)
+     * @throws SemanticException on Semantic Error (Invalid Class Type, Method not found or Return Type unknown)
      */
-    MethodSignature checkMethod(Node node, Type classType, String methodId,
-                                Type[] parameterTypes) throws SemanticException {
-        MethodSignature methodSignature = MethodSignature.from(methodId, parameterTypes);
-
-        if (classType.equals(Type.ID(classIdentifier))) {
-            if (methods.containsKey(methodSignature)) {
-                methodSignature.setReturnType(methods.get(methodSignature).getReturnType());
-                return methodSignature;
-            }
-            else if (extendIdentifier != null) {
-                methodSignature.setParent();
-                return methodSignature;
-            }
+    Invocation checkMethod(int node, Type classType, String methodId, Type[] parameterTypes,
+                           Type desiredType) throws SemanticException {
+        final MethodSignature methodSignature = signatures.get(methodId, parameterTypes);
+        Type targetType = classType;
+
+        if (classType == this.classType) {
+            final FunctionTable method = methods.get(methodSignature);
+
+            if (method != null)
+                return methodSignature.invocation(classType, method.getReturnType());
+            else if (extendIdentifier != null)
+                targetType = extendType;
             else
-                throw new SemanticException(node, "Invoked method of " + classIdentifier + " not found");
+                throw new SemanticException(nodes, node, "Invoked method of " + classIdentifier + " not found");
+        }
+        else if (!classType.isId() && !classType.isClass())
+            throw new SemanticException(nodes, node, "Invalid invocation reference (" + classType + ") of method");
+
+        // Deduce the return type of unknown methods
+        if (desiredType.isUnknown())
+            throw new SemanticException(nodes, node, "Return type of unknown method could not be inferred");
+
+        return methodSignature.invocation(targetType, desiredType);
+    }
+
+    /**
+     * Computes the content hash of a Function: a digest of everything its code depends on, which is its own AST
+     * subtree, the environment of the class (its identifiers, the final Types of the fields and the signatures of every
+     * method), the options of this IR and those the code is generated with
+     *
+     * Functions with the same hash are compiled to the same code, so it can be reused from a previous compilation.
+     *
+     * @param function Function Table of the Function
+     * @param generationOptions Options of the Code Generation, as text
+     *
+     * @return Hash of the Function, in hexadecimal
+     */
+    public String contentHash(FunctionTable function, String generationOptions) {
+        final MessageDigest digest = sha256();
+
+        digest.update(environmentHash());
+        update(digest, generationOptions);
+        digestSubtree(digest, function.getFunctionNode());
+
+        final StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest())
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+
+        return sb.toString();
+    }
+
+    /**
+     * @return Digest of the environment of the class, computed on the first request (once the Types of the fields are
+     * settled)
+     */
+    private synchronized byte[] environmentHash() {
+        if (environmentHash != null)    return environmentHash;
+
+        final MessageDigest digest = sha256();
+        update(digest, "optimize=" + optimize + " ssa=" + ssa);
+
+        final int classRoot = nodes.getChild(nodes.getRoot(), 0);
+        for (int i = 0; i < nodes.getNumChildren(classRoot); i++) {
+            final int node = nodes.getChild(classRoot, i);
+
+            // Only the signatures of the methods, their bodies being part of their own hash
+            switch (nodes.getKind(node)) {
+                case ParserTreeConstants.JJTMETHOD:
+                    update(digest, node, 3);
+                    for (int j = 0; j < 3; j++)
+                        digestSubtree(digest, nodes.getChild(node, j));
+                    break;
+                case ParserTreeConstants.JJTMAIN:
+                    update(digest, node, 1);
+                    digestSubtree(digest, nodes.getChild(node, 0));
+                    break;
+                default:
+                    digestSubtree(digest, node);
+            }
         }
 
-        if (!classType.isId() && !classType.isClass())
-            throw new SemanticException(node, "Invalid invocation reference (" + classType + ") of method");
+        for (Symbol field : attributes.getSymbols())
+            update(digest, field.getName() + " " + field.getType().toDescriptor());
+
+        environmentHash = digest.digest();
+        return environmentHash;
+    }
+
+    private void digestSubtree(MessageDigest digest, int node) {
+        update(digest, node, nodes.getNumChildren(node));
+
+        for (int i = 0; i < nodes.getNumChildren(node); i++)
+            digestSubtree(digest, nodes.getChild(node, i));
+    }
+
+    private void update(MessageDigest digest, int node, int childCount) {
+        update(digest, nodes.getKind(node));
+        update(digest, childCount);
+        update(digest, nodes.getValue(node) != null ? String.valueOf(nodes.getValue(node)) : "");
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        update(digest, bytes.length);
+        digest.update(bytes);
+    }
 
-        return methodSignature;
+    private static void update(MessageDigest digest, int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -140,6 +353,47 @@ public class IntermediateRepresentation {
         return sb.toString();
     }
 
+    NodeTable getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Binds an Identifier Node to the Symbol it refers to
+     *
+     * @param idNode AST Node containing an Identifier
+     * @param symbol Symbol of the Identifier
+     */
+    void bind(int idNode, Symbol symbol) {
+        bindings[idNode] = symbol;
+    }
+
+    /**
+     * @param idNode AST Node containing an Identifier
+     *
+     * @return Symbol the Identifier refers to, null if it is not bound to any
+     */
+    Symbol getSymbol(int idNode) {
+        return bindings[idNode];
+    }
+
+    TypeTable getTypes() {
+        return types;
+    }
+
+    /**
+     * @return Type of the instances of this class
+     */
+    Type getClassType() {
+        return classType;
+    }
+
+    /**
+     * @return Type of the instances of the parent class, null if it has none
+     */
+    Type getExtendType() {
+        return extendType;
+    }
+
     public String getClassIdentifier() {
         return classIdentifier;
     }
@@ -0,0 +1,63 @@
+package semantic;
+
+/**
+ * Invocation of a method on a class, with the return type it was declared or inferred with
+ *
+ * Invocations are kept by their MethodSignature, so every call to the same method shares one, along with its
+ * descriptor and the operand stack slots it takes and leaves.
+ *
+ * @see MethodSignature
+ */
+class Invocation {
+    private final Type targetType;
+    private final Type returnType;
+    private final String descriptor;
+    private final int argumentSlots;
+    private final int returnSlots;
+
+    /**
+     * @param targetType Type of the class where the method is invoked
+     * @param returnType Return Type of the method (declared or inferred)
+     * @param descriptor Descriptor of the method, including its class
+     * @param argumentCount Number of parameters of the method
+     */
+    Invocation(Type targetType, Type returnType, String descriptor, int argumentCount) {
+        this.targetType = targetType;
+        this.returnType = returnType;
+        this.descriptor = descriptor;
+        this.argumentSlots = argumentCount;
+        this.returnSlots = returnType == Type.VOID() ? 0 : 1;
+    }
+
+    /**
+     * @return Type of the class where the method is invoked
+     */
+    Type getTargetType() {
+        return targetType;
+    }
+
+    Type getReturnType() {
+        return returnType;
+    }
+
+    /**
+     * @return Descriptor of the method, including its class
+     */
+    String getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * @return Operand stack slots taken by the arguments of the call
+     */
+    int getArgumentSlots() {
+        return argumentSlots;
+    }
+
+    /**
+     * @return Operand stack slots left by the call (its result)
+     */
+    int getReturnSlots() {
+        return returnSlots;
+    }
+}
@@ -1,9 +1,8 @@
 package semantic;
 
-import parser.Node;
+import parser.NodeTable;
 
 import java.util.LinkedHashMap;
-import java.util.Set;
 
 
 /**
@@ -13,38 +12,35 @@ import java.util.Set;
  */
 public class LinkedSymbolTable extends SymbolTable {
     LinkedSymbolTable() {
-        super(new LinkedHashMap<>());
+        super(Symbol.Kind.PARAMETER, new LinkedHashMap<>());
     }
 
     // Uses default Type (String[], used only on main)
-    void addParameter(Node idNode) throws SemanticException {
-        addParameter(Type.STRINGARRAY(), idNode);
+    void addParameter(NodeTable nodes, int idNode) throws SemanticException {
+        addParameter(nodes, Type.STRINGARRAY(), idNode);
     }
 
     // Usual format for adding parameters, creating a type from the given Type Node from the AST
-    void addParameter(Node typeNode, Node idNode) throws SemanticException {
-        addParameter(new Type(typeNode), idNode);
+    void addParameter(NodeTable nodes, TypeTable types, int typeNode, int idNode) throws SemanticException {
+        addParameter(nodes, types.of(nodes, typeNode), idNode);
     }
 
 
     /**
      * Adds a Symbol to the table given a pair of Type and Id (Parameter Format on the AST)
      *
+     * @param nodes AST containing the Parameter
      * @param type Type of the Parameter
      * @param idNode AST Node containing the Parameter Identifier
      *
      * @throws SemanticException on Semantic Error
      */
-    private void addParameter(Type type, Node idNode) throws SemanticException {
-        final String symbolId = String.valueOf(idNode.jjtGetValue());
+    private void addParameter(NodeTable nodes, Type type, int idNode) throws SemanticException {
+        final String symbolId = String.valueOf(nodes.getValue(idNode));
 
         if (symbols.containsKey(symbolId))
-            throw new SemanticException(idNode, "Invalid parameter identifier (Conflicting Identifiers)");
+            throw new SemanticException(nodes, idNode, "Invalid parameter identifier (Conflicting Identifiers)");
 
-        symbols.put(symbolId, type);
-    }
-
-    public Set<String> keySet() {
-        return symbols.keySet();
+        add(symbolId, type);
     }
 }
@@ -0,0 +1,393 @@
+package semantic;
+
+import parser.ParserTreeConstants;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Unrolls the innermost counted loops of a Function, found by the loop detection of its Control-Flow Graph
+ *
+ * Counted loops are the while statements whose condition compares a variable, incremented by a positive constant (a
+ * single iinc) and not otherwise written by the body, against a bound the body doesn't change:
+ *
+ *      goto Lc; Lb: body; Lc: iload v; bound; if_icmplt Lb
+ *
+ * where the bound is an int constant, an int variable or field, or the length of an array variable or field (fields
+ * only when the body neither writes them nor invokes anything). The body may hold any control flow, as long as it only
+ * leaves the loop through its condition (or a return).
+ *
+ * When the start of the variable is a constant stored right before the loop and the bound is a constant as well, the
+ * number of iterations is known and, if the repeated body fits in the size budget, the loop is replaced by it. Otherwise
+ * the body is repeated by the largest factor fitting in the budget, its copies (each one keeping its increment, so they
+ * read the variable as the original does) running while the variable is below the bound by more than the factor's
+ * increments. The remaining iterations are then run by a copy of the original loop, tested on entry, which also runs
+ * them all when the bound is too close to the smallest int for the unrolled condition to be computed. Copies are given
+ * new labels, and the Instructions added to a Function by a traversal are bounded as well.
+ *
+ * Unrolled loops are no longer counted loops (their conditions being tested the other way around), so the PassManager
+ * running the pass again after combining their bodies doesn't unroll them twice.
+ *
+ * @see PassManager
+ * @see ControlFlowGraph
+ */
+class LoopUnrolling implements InstructionPass {
+    // Maximum number of Instructions of the repeated body of a loop, and of those added to a Function
+    private static final int MAX_UNROLLED_SIZE = 64;
+    private static final int MAX_GROWTH = 512;
+    private static final int[] UNROLL_FACTORS = new int[]{8, 4, 2};
+
+    // Kinds of the bounds of counted loops
+    private static final int CONSTANT_BOUND = 0;
+    private static final int INT_BOUND = 1;
+    private static final int LENGTH_BOUND = 2;
+
+    /**
+     * Counted loop, identified by the indexes of its Instructions
+     */
+    private static class Loop {
+        private int entry;          // goto Lc
+        private int body;           // First Instruction after Lb
+        private int condition;      // Lc
+        private int branch;         // if_icmplt Lb
+
+        private int variable;
+        private long step;
+        private int boundKind;
+        private int[] labels;       // Labels defined by the body
+    }
+
+    @Override
+    public int run(InstructionTable instructions, InstructionTable rewritten) {
+        return new Traversal(instructions, rewritten).run();
+    }
+
+    /**
+     * State of a traversal, the pass itself being shared by the Functions optimized in parallel
+     */
+    private static class Traversal {
+        private final InstructionTable instructions;
+        private final InstructionTable rewritten;
+
+        private final int[] labelIndexes;
+        private final int[] jumps;
+        private final int[] labelMap;
+        private int nextLabel;
+
+        private Traversal(InstructionTable instructions, InstructionTable rewritten) {
+            this.instructions = instructions;
+            this.rewritten = rewritten;
+
+            int labelCount = 0;
+            for (int i = 0; i < instructions.size(); i++)
+                labelCount = Math.max(labelCount, instructions.getLabel(i) + 1);
+
+            this.labelIndexes = new int[labelCount];
+            this.jumps = new int[labelCount];
+            this.labelMap = new int[labelCount];
+            this.nextLabel = labelCount;
+
+            Arrays.fill(labelIndexes, -1);
+            for (int i = 0; i < instructions.size(); i++) {
+                if (instructions.getLabel(i) >= 0)
+                    labelIndexes[instructions.getLabel(i)] = i;
+                else if (instructions.isGoto(i) || instructions.isBranch(i))
+                    jumps[instructions.getTarget(i)]++;
+            }
+        }
+
+        private int run() {
+            final Loop[] loops = countedLoops();
+
+            int changes = 0, growth = 0;
+            for (int i = 0; i < instructions.size(); i++) {
+                final Loop loop = loops[i];
+                final int added = loop != null ? unroll(loop, MAX_GROWTH - growth) : -1;
+
+                if (added < 0) {
+                    rewritten.addCopy(instructions, i);
+                    continue;
+                }
+
+                growth += added;
+                i = loop.branch;
+                changes++;
+            }
+
+            return changes;
+        }
+
+        /**
+         * @return Counted loops among the innermost loops of the Control-Flow Graph, by the index of their entry
+         */
+        private Loop[] countedLoops() {
+            final ControlFlowGraph graph = new ControlFlowGraph(instructions);
+            final Loop[] loops = new Loop[instructions.size()];
+
+            final boolean[] outer = new boolean[graph.getLoopCount()];
+            for (int loop = 0; loop < graph.getLoopCount(); loop++)
+                if (graph.getLoopParent(loop) >= 0)     outer[graph.getLoopParent(loop)] = true;
+
+            for (int loop = 0; loop < graph.getLoopCount(); loop++) {
+                if (outer[loop])    continue;
+
+                final Loop counted = countedLoop(graph, loop);
+                if (counted != null)    loops[counted.entry] = counted;
+            }
+
+            return loops;
+        }
+
+        /**
+         * @param graph Control-Flow Graph of the Instructions
+         * @param loop Index of an innermost loop of the graph
+         *
+         * @return The loop, if it is a counted loop, null otherwise
+         */
+        private Loop countedLoop(ControlFlowGraph graph, int loop) {
+            final int header = graph.getLoopHeader(loop);
+            final int condition = graph.getStart(header), branch = graph.getEnd(header) - 1;
+
+            // Condition: Lc: iload v; bound; if_icmplt Lb
+            final int conditionLabel = instructions.getLabel(condition);
+            if (conditionLabel < 0 || branch < condition + 3
+                    || instructions.getOpcode(condition + 1) != InstructionTable.ILOAD
+                    || instructions.getOpcode(branch) != InstructionTable.IFCMPLT)
+                return null;
+
+            final int bodyLabel = instructions.getTarget(branch);
+            final int entry = labelIndexes[bodyLabel] - 1;
+            if (entry < 0 || entry >= condition || !instructions.isGoto(entry)
+                    || instructions.getTarget(entry) != conditionLabel
+                    || jumps[conditionLabel] != 1 || jumps[bodyLabel] != 1)
+                return null;
+
+            // The body and the condition are the whole loop, only left through the condition
+            final BitSet blocks = graph.getLoopBlocks(loop);
+            final int firstBlock = graph.getBlock(entry + 1);
+            if (blocks.cardinality() != header - firstBlock + 1 || blocks.nextSetBit(0) != firstBlock
+                    || blocks.length() - 1 != header)
+                return null;
+
+            for (int block = firstBlock; block < header; block++)
+                for (int successor : graph.getSuccessors(block))
+                    if (!blocks.get(successor))     return null;
+
+            final Loop counted = new Loop();
+            counted.entry = entry;
+            counted.body = entry + 2;
+            counted.condition = condition;
+            counted.branch = branch;
+            counted.variable = instructions.getOperand(condition + 1);
+            counted.boundKind = boundKind(condition + 2, branch);
+
+            return counted.boundKind >= 0 && isCountedBody(counted) ? counted : null;
+        }
+
+        /**
+         * @param start Index of the first Instruction of the bound of a loop
+         * @param end Index following the last Instruction of the bound
+         *
+         * @return Kind of the bound, -1 if it isn't one of a counted loop
+         */
+        private int boundKind(int start, int end) {
+            final int length = end - start;
+            final boolean ofField = length >= 2 && instructions.getOpcode(start) == ParserTreeConstants.JJTTHIS
+                    && instructions.getOpcode(start + 1) == InstructionTable.GETFIELD;
+
+            if (length == 1 && instructions.isIntConstant(start))
+                return CONSTANT_BOUND;
+            else if ((length == 1 && instructions.getOpcode(start) == InstructionTable.ILOAD) || (length == 2 && ofField))
+                return INT_BOUND;
+            else if ((length == 2 && instructions.getOpcode(start) == InstructionTable.ALOAD
+                        || length == 3 && ofField)
+                    && instructions.getOpcode(end - 1) == ParserTreeConstants.JJTLENGTH)
+                return LENGTH_BOUND;
+            else
+                return -1;
+        }
+
+        /**
+         * Checks the body of a loop increments its variable once and changes neither it nor the bound, and keeps the
+         * increment and the labels the body defines
+         *
+         * @param loop Loop whose condition is a counted one
+         *
+         * @return Whether the loop is counted
+         */
+        private boolean isCountedBody(Loop loop) {
+            final int boundStart = loop.condition + 2;
+            final int boundVariable = loop.boundKind != CONSTANT_BOUND
+                    && instructions.isLocal(boundStart) ? instructions.getOperand(boundStart) : -1;
+            final int boundField = loop.boundKind != CONSTANT_BOUND
+                    && !instructions.isLocal(boundStart) ? instructions.getOperand(boundStart + 1) : -1;
+
+            if (boundVariable >= 0 && instructions.isSameLocal(boundVariable, loop.variable))   return false;
+
+            int increments = 0, labelCount = 0;
+            for (int i = loop.body; i < loop.condition; i++) {
+                final int opcode = instructions.getOpcode(i);
+                final boolean writesLocal = instructions.isStore(i) || opcode == InstructionTable.IINC;
+
+                if (writesLocal && instructions.isSameLocal(instructions.getOperand(i), loop.variable)) {
+                    if (opcode != InstructionTable.IINC || instructions.getIncrement(i) <= 0)  return false;
+
+                    loop.step = instructions.getIncrement(i);
+                    increments++;
+                }
+                else if (writesLocal && boundVariable >= 0
+                        && instructions.isSameLocal(instructions.getOperand(i), boundVariable))
+                    return false;
+                else if (boundField >= 0 && (opcode == InstructionTable.INVOKEVIRTUAL
+                        || opcode == InstructionTable.INVOKESTATIC
+                        || (opcode == InstructionTable.PUTFIELD && instructions.getOperand(i) == boundField)))
+                    return false;
+                else if (instructions.getLabel(i) >= 0)
+                    labelCount++;
+                else if ((instructions.isGoto(i) || instructions.isBranch(i))
+                        && !isBodyLabel(loop, instructions.getTarget(i)))
+                    return false;
+            }
+
+            if (increments != 1)    return false;
+
+            loop.labels = new int[labelCount];
+            for (int i = loop.body, j = 0; i < loop.condition; i++)
+                if (instructions.getLabel(i) >= 0)  loop.labels[j++] = instructions.getLabel(i);
+
+            return true;
+        }
+
+        private boolean isBodyLabel(Loop loop, int label) {
+            return labelIndexes[label] >= loop.body && labelIndexes[label] < loop.condition;
+        }
+
+        /**
+         * Writes the unrolled loop, if it fits in the budgets
+         *
+         * @param loop Counted loop
+         * @param budget Number of Instructions that can still be added to the Function
+         *
+         * @return Number of Instructions added, -1 if the loop wasn't unrolled
+         */
+        private int unroll(Loop loop, int budget) {
+            final int bodySize = loop.condition - loop.body;
+            final int boundSize = loop.branch - (loop.condition + 2);
+            final int loopSize = loop.branch + 1 - loop.entry;
+
+            final boolean constantBound = loop.boundKind == CONSTANT_BOUND;
+            final long end = constantBound ? instructions.getOperand(loop.condition + 2) : 0;
+
+            // Fully unrolled when the number of iterations is known
+            if (constantBound && loop.entry >= 2 && instructions.isIntConstant(loop.entry - 2)
+                    && instructions.getOpcode(loop.entry - 1) == InstructionTable.ISTORE
+                    && instructions.isSameLocal(instructions.getOperand(loop.entry - 1), loop.variable)) {
+                final long start = instructions.getOperand(loop.entry - 2);
+                final long iterations = end > start ? (end - start + loop.step - 1) / loop.step : 0;
+                final long added = iterations * bodySize - loopSize;
+
+                if (iterations * bodySize <= MAX_UNROLLED_SIZE && added <= budget) {
+                    for (int k = 0; k < iterations; k++)
+                        copyBody(loop, k > 0);
+
+                    return (int) Math.max(added, 0);
+                }
+            }
+
+            for (int factor : UNROLL_FACTORS) {
+                final long increments = (factor - 1) * loop.step + 1;
+                final long added = (long) factor * bodySize + 2 * boundSize + (constantBound ? 0 : boundSize) + 12
+                        - loopSize;
+
+                if ((long) factor * bodySize > MAX_UNROLLED_SIZE || added > budget || increments > Short.MAX_VALUE
+                        || (constantBound && end - increments < Integer.MIN_VALUE))
+                    continue;
+
+                writeUnrolled(loop, factor, (int) increments);
+                return (int) Math.max(added, 0);
+            }
+
+            return -1;
+        }
+
+        /**
+         * Writes a loop unrolled by a factor, followed by the loop running the remaining iterations
+         *
+         * @param loop Counted loop
+         * @param factor Number of times the body is repeated
+         * @param increments Number the variable must be below the bound by, for the repeated body to run
+         */
+        private void writeUnrolled(Loop loop, int factor, int increments) {
+            final int conditionLabel = instructions.getTarget(loop.entry);
+            final int bodyLabel = instructions.getTarget(loop.branch);
+            final int remainderLabel = nextLabel++, exitLabel = nextLabel++;
+
+            // Bounds too close to the smallest int run every iteration in the remainder loop
+            if (loop.boundKind == INT_BOUND) {
+                copyBound(loop);
+                rewritten.addConstant(Integer.MIN_VALUE + increments);
+                rewritten.add(InstructionTable.IFCMPLT, remainderLabel);
+            }
+
+            // Unrolled loop: bound - increments >= v
+            rewritten.addGoto(conditionLabel);
+            rewritten.addLabel(bodyLabel);
+
+            for (int k = 0; k < factor; k++)
+                copyBody(loop, k > 0);
+
+            rewritten.addLabel(conditionLabel);
+            if (loop.boundKind == CONSTANT_BOUND) {
+                rewritten.addConstant(instructions.getOperand(loop.condition + 2) - increments);
+            }
+            else {
+                copyBound(loop);
+                rewritten.addConstant(increments);
+                rewritten.add(ParserTreeConstants.JJTMINUS);
+            }
+            rewritten.add(InstructionTable.ILOAD, loop.variable);
+            rewritten.add(InstructionTable.IFCMPGE, bodyLabel);
+
+            // Remaining iterations, tested on entry
+            rewritten.addLabel(remainderLabel);
+            rewritten.add(InstructionTable.ILOAD, loop.variable);
+            copyBound(loop);
+            rewritten.add(InstructionTable.IFCMPGE, exitLabel);
+            copyBody(loop, true);
+            rewritten.addGoto(remainderLabel);
+            rewritten.addLabel(exitLabel);
+        }
+
+        private void copyBound(Loop loop) {
+            for (int i = loop.condition + 2; i < loop.branch; i++)
+                rewritten.addCopy(instructions, i);
+        }
+
+        /**
+         * Writes a copy of the body of a loop
+         *
+         * @param loop Counted loop
+         * @param renamed Whether the labels of the body are replaced by new ones (every copy but one)
+         */
+        private void copyBody(Loop loop, boolean renamed) {
+            if (!renamed) {
+                for (int i = loop.body; i < loop.condition; i++)
+                    rewritten.addCopy(instructions, i);
+
+                return;
+            }
+
+            for (int label : loop.labels)
+                labelMap[label] = nextLabel++;
+
+            for (int i = loop.body; i < loop.condition; i++) {
+                if (instructions.getLabel(i) >= 0)
+                    rewritten.addLabel(labelMap[instructions.getLabel(i)]);
+                else if (instructions.isGoto(i) || instructions.isBranch(i))
+                    rewritten.add(instructions.getOpcode(i), labelMap[instructions.getTarget(i)]);
+                else
+                    rewritten.addCopy(instructions, i);
+            }
+        }
+    }
+}
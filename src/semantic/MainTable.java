@@ -1,7 +1,5 @@
 package semantic;
 
-import parser.Node;
-
 /**
  * Class containing all the relevant information of Main
  *
@@ -17,11 +15,11 @@ class MainTable extends FunctionTable {
      * @param optimize
      * @throws SemanticException on Semantic Error (Conflicting Symbols)
      */
-    MainTable(Node mainNode, IntermediateRepresentation ir, boolean optimize) throws SemanticException {
-        super(mainNode.jjtGetChild(1), ir, optimize);
+    MainTable(int mainNode, IntermediateRepresentation ir, boolean optimize) throws SemanticException {
+        super(mainNode, ir.getNodes().getChild(mainNode, 1), ir, optimize);
 
-        final Node parameterId = mainNode.jjtGetChild(0);
+        final int parameterId = nodes.getChild(mainNode, 0);
 
-        getParameters().addParameter(parameterId);
+        getParameters().addParameter(nodes, parameterId);
     }
 }
@@ -1,7 +1,6 @@
 package semantic;
 
-import parser.Node;
-
+import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
@@ -9,102 +8,97 @@ import java.util.Arrays;
  *
  * The Method signature is, like in Java, composed of its Identifier and the Types of its Parameters, allowing,
  * therefore, for Method Overloading
+ *
+ * Signatures are interned by the SignatureTable of the IR, so they are compared by identity, and their hash and
+ * descriptor are computed once, on creation. Each signature also keeps the Invocations made with it, one per target
+ * class and return type.
+ *
+ * @see SignatureTable
+ * @see Invocation
  */
 public class MethodSignature {
-    private boolean parent = false;
-
-    private Type returnType;
     private final String methodId;
     private final Type[] parameterTypes;
 
+    private final String name;
+    private final int hash;
+    private final String descriptor;
+
+    private final ArrayList<Invocation> invocations = new ArrayList<>(1);
+
     /**
-     * Method Factory, creating a Method Signature from explicitly given Id and Parameter Types
+     * Creates a Method Signature (only to be used by the SignatureTable, which keeps it unique)
      *
      * @param methodId Method Identifier
      * @param parameterTypes Method parameter Types
-     *
-     * @return Method Signature with the given parameters
      */
-    static MethodSignature from(String methodId, Type[] parameterTypes) {
-        return new MethodSignature(methodId, parameterTypes);
-    }
-
-    private MethodSignature(String methodId, Type[] parameterTypes) {
-        this.returnType = null;
+    MethodSignature(String methodId, Type[] parameterTypes) {
         this.methodId = methodId;
         this.parameterTypes = parameterTypes;
+
+        this.name = methodId + Arrays.toString(parameterTypes);
+        this.hash = name.hashCode();
+
+        final StringBuilder sb = new StringBuilder(methodId).append('(');
+        for (Type parameter : parameterTypes)
+            sb.append(parameter.toDescriptor());
+
+        this.descriptor = sb.append(')').toString();
     }
 
     /**
-     * Create a Method Signature of a Method
+     * @param methodId Method Identifier
+     * @param parameterTypes Method parameter Types
      *
-     * @param methodNode AST Root containing a Method
+     * @return Whether this is the signature with the given Identifier and Parameter Types
      */
-    MethodSignature(Node methodNode) {
-        this.returnType = new Type(methodNode.jjtGetChild(0));
+    boolean matches(String methodId, Type[] parameterTypes) {
+        if (this.parameterTypes.length != parameterTypes.length || !this.methodId.equals(methodId))
+            return false;
 
-        this.methodId = String.valueOf(methodNode.jjtGetChild(1).jjtGetValue());
+        for (int i = 0; i < parameterTypes.length; i++)
+            if (this.parameterTypes[i] != parameterTypes[i])    return false;
 
-        Node parameterNode = methodNode.jjtGetChild(2);
-        int parameterNum = parameterNode.jjtGetNumChildren() / 2;
+        return true;
+    }
 
-        this.parameterTypes = new Type[parameterNum];
-        for (int i = 0; i < parameterNum; i++)
-            parameterTypes[i] = new Type(parameterNode.jjtGetChild(i*2));
+    /**
+     * Retrieves the invocation of the method with this signature on a class, creating it on the first request
+     *
+     * @param targetType Type of the class where the method is invoked
+     * @param returnType Return Type of the method (declared or inferred)
+     *
+     * @return Invocation of the method
+     */
+    synchronized Invocation invocation(Type targetType, Type returnType) {
+        for (Invocation invocation : invocations)
+            if (invocation.getTargetType() == targetType && invocation.getReturnType() == returnType)
+                return invocation;
+
+        final Invocation invocation = new Invocation(targetType, returnType,
+                targetType + "/" + toDescriptor(returnType), parameterTypes.length);
+        invocations.add(invocation);
+
+        return invocation;
     }
 
-    // The Method Signature doesn't include the return type, therefore it is excluded from toString, hashCode and equals
+    // The Method Signature doesn't include the return type, therefore it is excluded from toString and hashCode
     @Override
     public String toString() {
-        return methodId + Arrays.toString(parameterTypes);
+        return name;
     }
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-
-        MethodSignature that = (MethodSignature) o;
-        return methodId.equals(that.methodId) && Arrays.equals(parameterTypes, that.parameterTypes);
-    }
-
-    void setReturnType(Type returnType) {
-        this.returnType = returnType;
-    }
-
-    Type getReturnType() {
-        return returnType;
+        return hash;
     }
 
     /**
-     * @param classId Id of the class to which this method signature belongs to
+     * @param returnType Return Type of the method
      *
-     * @return The Descriptor of the method with this method signature
+     * @return The Descriptor of the method with this method signature (without its class)
      */
-    public String toDescriptor(String classId) {
-        StringBuilder sb = new StringBuilder((classId == null ? "" : classId + "/") + methodId + "(");
-
-        for (Type parameter : parameterTypes)
-            sb.append(parameter.toDescriptor());
-
-        sb.append(")");
-
-        if (returnType != null) sb.append(returnType.toDescriptor());
-        // TODO Use inferred returnType from semantic analysis to fill the null returnType, otherwise code generation fails
-
-        return sb.toString();
-    }
-
-    void setParent() {
-        parent = true;
-    }
-
-    boolean isParent() {
-        return parent;
+    public String toDescriptor(Type returnType) {
+        return returnType != null ? descriptor + returnType.toDescriptor() : descriptor;
     }
 }
@@ -1,7 +1,5 @@
 package semantic;
 
-import parser.Node;
-
 /**
  * Class containing all the relevant information of a method
  *
@@ -18,18 +16,19 @@ public class MethodTable extends FunctionTable {
      * @param optimize
      * @throws SemanticException on Semantic Error (Conflicting Symbols)
      */
-    MethodTable(Node methodNode, IntermediateRepresentation ir, boolean optimize) throws SemanticException {
-        super(methodNode.jjtGetChild(3), ir, new Type(methodNode.jjtGetChild(0)), optimize);
+    MethodTable(int methodNode, IntermediateRepresentation ir, boolean optimize) throws SemanticException {
+        super(methodNode, ir.getNodes().getChild(methodNode, 3), ir,
+                ir.getTypes().of(ir.getNodes(), ir.getNodes().getChild(methodNode, 0)), optimize);
 
-        final Node parameterNode = methodNode.jjtGetChild(2);
-        for (int i = 0; i < parameterNode.jjtGetNumChildren(); i+=2) {
-            Node parameterId = parameterNode.jjtGetChild(i+1);
+        final int parameterNode = nodes.getChild(methodNode, 2);
+        for (int i = 0; i < nodes.getNumChildren(parameterNode); i+=2) {
+            int parameterId = nodes.getChild(parameterNode, i+1);
 
-            if (ir.getAttributes().containsId(parameterId))
-                throw new SemanticException(parameterId,
+            if (ir.getAttributes().containsId(String.valueOf(nodes.getValue(parameterId))))
+                throw new SemanticException(nodes, parameterId,
                         "Invalid parameter Identifier (Conflicting with class attributes)");
 
-            getParameters().addParameter(parameterNode.jjtGetChild(i), parameterId);
+            getParameters().addParameter(nodes, ir.getTypes(), nodes.getChild(parameterNode, i), parameterId);
         }
     }
 
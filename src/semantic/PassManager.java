@@ -0,0 +1,155 @@
+package semantic;
+
+import java.util.ArrayDeque;
+import java.util.Locale;
+
+/**
+ * Runs the optimization passes over the Instructions of the Functions of a class, once they are allocated
+ *
+ * Passes are kept in a worklist, starting with every enabled pass in the order they are declared in. Whenever a pass
+ * changes the Instructions, every other enabled pass is queued again (unless it already is), since the change may give
+ * it something new to rewrite, until the Instructions settle. Each pass is a single linear traversal, so the cost of
+ * the optimizations grows with the size of the Functions times the number of times the passes feed each other, rather
+ * than with the number of candidates.
+ *
+ * Every pass can be enabled or disabled, and the changes made by each one are counted over every Function it has run
+ * on. Functions may be optimized in parallel by the same manager, as long as the passes enabled don't change meanwhile.
+ *
+ * @see InstructionPass
+ * @see InstructionTable
+ */
+public class PassManager {
+    /**
+     * Passes run by the manager, in the order they are first run
+     */
+    public enum Pass {
+        IINC_FORMATION("iinc Formation", new IincFormation()),
+        CONSTANT_PROPAGATION("Constant Propagation", new ConstantPropagation()),
+        BRANCH_ELIMINATION("Branch Elimination", new BranchElimination()),
+        LOOP_UNROLLING("Loop Unrolling", new LoopUnrolling()),
+        INSTRUCTION_COMBINING("Instruction Combining", new InstructionCombining());
+
+        private final String name;
+        private final InstructionPass pass;
+
+        Pass(String name, InstructionPass pass) {
+            this.name = name;
+            this.pass = pass;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final Pass[] PASSES = Pass.values();
+
+    private final boolean[] enabled = new boolean[PASSES.length];
+    private final long[] changes = new long[PASSES.length];
+
+    /**
+     * Creates a Pass Manager with the passes of the Code Cleanup (iinc Formation and Branch Elimination) enabled, as
+     * well as, when optimizing, the Constant Propagation, Loop Unrolling and Instruction Combining
+     *
+     * @param optimize Whether the -o optimizations are performed
+     */
+    public PassManager(boolean optimize) {
+        enabled[Pass.IINC_FORMATION.ordinal()] = true;
+        enabled[Pass.CONSTANT_PROPAGATION.ordinal()] = optimize;
+        enabled[Pass.BRANCH_ELIMINATION.ordinal()] = true;
+        enabled[Pass.LOOP_UNROLLING.ordinal()] = optimize;
+        enabled[Pass.INSTRUCTION_COMBINING.ordinal()] = optimize;
+    }
+
+    public boolean isEnabled(Pass pass) {
+        return enabled[pass.ordinal()];
+    }
+
+    public void setEnabled(Pass pass, boolean enabled) {
+        this.enabled[pass.ordinal()] = enabled;
+    }
+
+    /**
+     * @param pass Pass of the manager
+     *
+     * @return Number of changes made by the pass over every Function it has run on
+     */
+    public synchronized long getChanges(Pass pass) {
+        return changes[pass.ordinal()];
+    }
+
+    /**
+     * Runs the enabled passes over the Instructions of a Function until they settle
+     *
+     * @param function Function whose Instructions are optimized (left as they are)
+     *
+     * @return Optimized Instructions of the Function
+     */
+    public InstructionTable run(FunctionTable function) {
+        return run(function.getIntermediateInstructions());
+    }
+
+    /**
+     * Runs the enabled passes over some Instructions until they settle
+     *
+     * @param instructions Instructions to optimize (left as they are)
+     *
+     * @return Optimized Instructions, the given ones if no pass changed them
+     */
+    InstructionTable run(InstructionTable instructions) {
+        final ArrayDeque<Pass> worklist = new ArrayDeque<>();
+        final boolean[] queued = new boolean[PASSES.length];
+        final int[] runChanges = new int[PASSES.length];
+
+        for (Pass pass : PASSES) {
+            if (!enabled[pass.ordinal()])   continue;
+
+            worklist.add(pass);
+            queued[pass.ordinal()] = true;
+        }
+
+        while (!worklist.isEmpty()) {
+            final Pass pass = worklist.poll();
+            queued[pass.ordinal()] = false;
+
+            final InstructionTable rewritten = instructions.emptyCopy();
+            final int passChanges = pass.pass.run(instructions, rewritten);
+            if (passChanges == 0)   continue;
+
+            instructions = rewritten;
+            runChanges[pass.ordinal()] += passChanges;
+
+            for (Pass other : PASSES) {
+                if (other == pass || !enabled[other.ordinal()] || queued[other.ordinal()])  continue;
+
+                worklist.add(other);
+                queued[other.ordinal()] = true;
+            }
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < PASSES.length; i++)
+                changes[i] += runChanges[i];
+        }
+
+        return instructions;
+    }
+
+    /**
+     * @return Human readable table of the changes made by each enabled pass
+     */
+    @Override
+    public synchronized String toString() {
+        final StringBuilder sb = new StringBuilder();
+        final String format = "%-25s %12s%n";
+
+        sb.append(String.format(Locale.ROOT, format, "Pass", "Changes"));
+
+        for (Pass pass : PASSES)
+            if (enabled[pass.ordinal()])
+                sb.append(String.format(Locale.ROOT, format, pass, changes[pass.ordinal()]));
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,1791 @@
+package semantic;
+
+import parser.ParserTreeConstants;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Static Single Assignment form of the Intermediate Code of a Function, the mid-level IR of the -O2 pipeline
+ *
+ * The stack-based Intermediate Code is translated into values (virtual registers): every Instruction is kept once,
+ * identified by its index, which is also the value it produces, and takes the values it pops as its arguments. Loads
+ * and stores of local variables and parameters disappear, each variable being renamed to the value last stored to it,
+ * with phi Instructions where control flow merges (operand stack slots live across blocks are renamed the same way).
+ * Phis are first placed for every variable at every merge, the trivial ones being removed afterwards.
+ *
+ * Branches whose arguments fold to constants become gotos, the blocks no longer reached are removed and the blocks left
+ * in a straight line merged, so a value left on the operand stack through them (an object whose method is called with a
+ * condition as argument, for one) still stays there.
+ *
+ * The values of each natural loop computed the same in every iteration are moved before it, to its preheader (a new
+ * block on the edges entering the loop, when no block before it fits), loads only when the loop can't write what
+ * they read. Redundant values are then found by numbering them over the dominator tree: a value computed by the same
+ * Instruction from the same arguments as one in a dominating block is replaced by it. Field and array loads are also
+ * numbered by the state of the memory they read, which stores and calls change, so they are only reused when nothing
+ * wrote it since.
+ *
+ * Blocks are those of the Control-Flow Graph, shifted by one: block 0 is an empty entry block, defining the parameters,
+ * and the block after the last one is the exit of the Function (the end of its code). Every other block ends with a
+ * goto, branch or return, so its successors are those of its last Instruction.
+ *
+ * Once optimized, the values are translated back to stack code with local variables, into the same InstructionTable.
+ * Constants are loaded where they are used. Values consumed straight from the operand stack by the only Instruction
+ * using them stay on it, so the expression trees of the source are emitted as they were. Every other value is kept in
+ * a local variable, preferably the one it was stored to in the source, unless a value already kept there interferes
+ * with it. Phis become copies at the end of their predecessors (critical edges being split), performed as parallel
+ * copies through the operand stack, but for those used once at the start of their block (the result of a condition,
+ * mostly), whose arguments are left on the operand stack by the predecessors.
+ *
+ * @see InstructionTable
+ * @see ControlFlowGraph
+ */
+class SSAForm {
+    // Opcodes of the Instructions only found in the SSA form
+    private static final int PHI = -100;
+    private static final int PARAMETER = -101;
+
+    private static final int[] NO_VALUES = new int[0];
+
+    // Numbers of the constants (by their value) and of this, distinct from the indexes of the other values
+    private static final long CONSTANT_NUMBER = 1L << 32;
+    private static final long THIS_NUMBER = 2L << 32;
+
+    private final InstructionTable instructions;
+    private final int variableCount;
+    private final boolean moveInvariants;
+    private final boolean reuseValues;
+    private boolean invariantsMoved = false;
+    private boolean valuesReused = false;
+
+    // Instructions (and the values they produce), by index
+    private int size = 0;
+    private int[] opcodes = new int[64];
+    private int[] operands = new int[64];
+    private int[][] arguments = new int[64][];
+    private int[] variables = new int[64];
+    private int[] stackUsers = new int[64];
+    private boolean[] references = new boolean[64];
+
+    // Blocks, with their Instructions (phis first, terminator last)
+    private int blockCount;
+    private int[][] code;
+    private int[] codeSizes;
+    private int[][] successors;
+    private int[][] predecessors;
+    private boolean[] reached;
+    private final int exit;
+    private int[] reversePostorder;
+    private int[] immediateDominators;
+
+    // Natural loops: the header and blocks of each, the loops containing others coming before them
+    private final int[] loopHeaders;
+    private final BitSet[] loopBlocks;
+
+    // Translation out of SSA form: uses of each value, whether it is kept on the operand stack or in a variable
+    private int[] useCounts;
+    private boolean[] stacked;
+    private boolean[] kept;
+    private int[] homes;
+
+    /**
+     * Translates the Intermediate Code of a Function into SSA form
+     *
+     * @param function Function whose Intermediate Code is translated
+     * @param moveInvariants Whether the loop invariants are moved out of their loops by the optimization
+     * @param reuseValues Whether the values computed again are replaced by those computed before (value numbering)
+     */
+    SSAForm(FunctionTable function, boolean moveInvariants, boolean reuseValues) {
+        this.instructions = function.getIntermediateInstructions();
+        this.variableCount = instructions.getVariableCount();
+        this.moveInvariants = moveInvariants;
+        this.reuseValues = reuseValues;
+
+        final ControlFlowGraph graph = function.getControlFlowGraph();
+        final int graphBlocks = graph.getBlockCount();
+
+        this.exit = graphBlocks + 1;
+        this.blockCount = graphBlocks + 2;
+        this.code = new int[blockCount][];
+        this.codeSizes = new int[blockCount];
+        this.successors = new int[blockCount][];
+        this.reached = new boolean[blockCount];
+        this.reversePostorder = graph.getReversePostorder().clone();
+        this.immediateDominators = new int[blockCount];
+
+        for (int block = 0; block < blockCount; block++) {
+            code[block] = new int[8];
+            successors[block] = NO_VALUES;
+        }
+
+        // Block of each label
+        int[] labelBlocks = new int[16];
+        for (int i = 0; i < instructions.size(); i++) {
+            final int label = instructions.getLabel(i);
+            if (label < 0)  continue;
+
+            if (label >= labelBlocks.length)    labelBlocks = Arrays.copyOf(labelBlocks, label * 2);
+            labelBlocks[label] = graph.getBlock(i) + 1;
+        }
+
+        // Entry block, defining the parameters (the other variables are undefined until stored)
+        final int[][] exitLocals = new int[blockCount][];
+        final int[][] exitStacks = new int[blockCount][];
+        final boolean[][] exitPushed = new boolean[blockCount][];
+
+        final int[] entryLocals = new int[variableCount];
+        for (int variable = 0; variable < variableCount; variable++) {
+            final Symbol symbol = instructions.getSymbol(variable);
+
+            if (symbol.getKind() == Symbol.Kind.PARAMETER)
+                entryLocals[variable] = add(0, PARAMETER, variable, NO_VALUES);
+            else
+                entryLocals[variable] = add(0, isInt(symbol.getType())
+                        ? InstructionTable.ILOAD : InstructionTable.ALOAD, variable, NO_VALUES);
+        }
+
+        reached[0] = true;
+        exitLocals[0] = entryLocals;
+        exitStacks[0] = NO_VALUES;
+        exitPushed[0] = new boolean[0];
+        jump(0, InstructionTable.GOTO, graphBlocks > 0 ? 1 : exit, NO_VALUES);
+
+        // Blocks, in reverse postorder so every predecessor of a block is processed before it, but through back edges
+        for (int order = 0; order < reversePostorder.length; order++) {
+            final int graphBlock = reversePostorder[order];
+            final int block = graphBlock + 1;
+            reversePostorder[order] = block;
+            reached[block] = true;
+            immediateDominators[block] = graphBlock == 0 ? 0 : graph.getImmediateDominator(graphBlock) + 1;
+
+            int predecessorCount = graphBlock == 0 ? 1 : 0;
+            int predecessor = 0;
+            for (int graphPredecessor : graph.getPredecessors(graphBlock)) {
+                if (!graph.isReachable(graphPredecessor))   continue;
+
+                predecessorCount++;
+                if (exitLocals[graphPredecessor + 1] != null)   predecessor = graphPredecessor + 1;
+            }
+
+            final int[] locals;
+            int[] stack;
+            int depth = exitStacks[predecessor].length;
+
+            if (predecessorCount == 1) {
+                locals = exitLocals[predecessor].clone();
+                stack = Arrays.copyOf(exitStacks[predecessor], Math.max(depth, 8));
+            }
+            else {
+                // Phis of the variables (operand: variable) and of the stack slots (operand: variableCount + slot)
+                locals = new int[variableCount];
+                stack = new int[Math.max(depth, 8)];
+
+                for (int variable = 0; variable < variableCount; variable++) {
+                    locals[variable] = add(block, PHI, variable, null);
+                    variables[locals[variable]] = variable;
+                }
+
+                for (int slot = 0; slot < depth; slot++)
+                    stack[slot] = add(block, PHI, variableCount + slot, null);
+            }
+
+            // Values on the stack pushed by an Instruction, in this block or its predecessors, rather than loaded
+            boolean[] pushed = Arrays.copyOf(exitPushed[predecessor], stack.length);
+
+            if (predecessorCount > 1) {
+                for (int graphPredecessor : graph.getPredecessors(graphBlock)) {
+                    if (!graph.isReachable(graphPredecessor))   continue;
+
+                    for (int slot = 0; slot < depth; slot++)
+                        pushed[slot] &= exitPushed[graphPredecessor + 1] != null
+                                && exitPushed[graphPredecessor + 1][slot];
+                }
+            }
+
+            int terminator = -1;
+            for (int i = graph.getStart(graphBlock); i < graph.getEnd(graphBlock); i++) {
+                final int opcode = instructions.getOpcode(i), operand = instructions.getOperand(i);
+
+                if (depth + 1 >= stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                    pushed = Arrays.copyOf(pushed, stack.length);
+                }
+
+                switch (opcode) {
+                    case InstructionTable.LABEL:
+                        break;
+                    case InstructionTable.ILOAD:
+                    case InstructionTable.ALOAD:
+                        if (opcode == InstructionTable.ALOAD)   references[locals[operand]] = true;
+
+                        pushed[depth] = false;
+                        stack[depth++] = locals[operand];
+                        break;
+                    case InstructionTable.ISTORE:
+                    case InstructionTable.ASTORE:
+                        final int value = stack[--depth];
+                        if (opcode == InstructionTable.ASTORE)  references[value] = true;
+
+                        if (variables[value] < 0 && opcodes[value] != PARAMETER && !isRematerialized(value))
+                            variables[value] = operand;
+
+                        locals[operand] = value;
+                        break;
+                    default:
+                        final int[] values = new int[instructions.popCount(opcode, operand)];
+                        final int user = size;
+
+                        for (int k = values.length - 1; k >= 0; k--) {
+                            values[k] = stack[--depth];
+                            if (pushed[depth])  stackUsers[values[k]] = user;
+                        }
+
+                        if (isTerminator(opcode)) {
+                            final int target = opcode == InstructionTable.GOTO || isBranch(opcode)
+                                    ? labelBlocks[operand]
+                                    : InstructionTable.NO_OPERAND;
+
+                            terminator = jump(block, opcode, target, values);
+                        }
+                        else {
+                            final int result = add(block, opcode, operand, values);
+
+                            if (instructions.pushCount(opcode, operand) > 0) {
+                                pushed[depth] = true;
+                                stack[depth++] = result;
+                            }
+                        }
+                }
+            }
+
+            // Blocks without a goto or return fall through to the next one (or to the exit)
+            final int next = graphBlock + 1 < graphBlocks ? block + 1 : exit;
+
+            if (terminator < 0)
+                jump(block, InstructionTable.GOTO, next, NO_VALUES);
+            else if (isBranch(opcodes[terminator]))
+                successors[block] = new int[]{next, operands[terminator]};
+
+            exitLocals[block] = locals;
+            exitStacks[block] = Arrays.copyOf(stack, depth);
+            exitPushed[block] = Arrays.copyOf(pushed, depth);
+        }
+
+        computePredecessors();
+
+        this.loopHeaders = new int[graph.getLoopCount()];
+        this.loopBlocks = new BitSet[loopHeaders.length];
+
+        for (int loop = 0; loop < loopHeaders.length; loop++) {
+            final BitSet graphLoop = graph.getLoopBlocks(loop);
+
+            loopHeaders[loop] = graph.getLoopHeader(loop) + 1;
+            loopBlocks[loop] = new BitSet(blockCount);
+            for (int block = graphLoop.nextSetBit(0); block >= 0; block = graphLoop.nextSetBit(block + 1))
+                loopBlocks[loop].set(block + 1);
+        }
+
+        // Arguments of the phis, from the state each predecessor ends with
+        for (int block = 1; block < exit; block++) {
+            for (int k = 0; k < codeSizes[block] && opcodes[code[block][k]] == PHI; k++) {
+                final int phi = code[block][k];
+                arguments[phi] = new int[predecessors[block].length];
+
+                for (int j = 0; j < arguments[phi].length; j++) {
+                    final int predecessor = predecessors[block][j];
+
+                    arguments[phi][j] = operands[phi] < variableCount
+                            ? exitLocals[predecessor][operands[phi]]
+                            : exitStacks[predecessor][operands[phi] - variableCount];
+                }
+            }
+        }
+
+        computeReferences();
+    }
+
+    /**
+     * Adds an Instruction to the end of a block
+     *
+     * @param block Index of the block
+     * @param opcode Opcode of the Instruction
+     * @param operand Operand of the Instruction
+     * @param values Arguments of the Instruction
+     *
+     * @return Index of the Instruction
+     */
+    private int add(int block, int opcode, int operand, int[] values) {
+        if (size == opcodes.length) {
+            final int capacity = size * 2;
+
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            operands = Arrays.copyOf(operands, capacity);
+            arguments = Arrays.copyOf(arguments, capacity);
+            variables = Arrays.copyOf(variables, capacity);
+            stackUsers = Arrays.copyOf(stackUsers, capacity);
+            references = Arrays.copyOf(references, capacity);
+        }
+
+        opcodes[size] = opcode;
+        operands[size] = operand;
+        arguments[size] = values;
+        variables[size] = -1;
+        stackUsers[size] = -1;
+
+        if (codeSizes[block] == code[block].length)     code[block] = Arrays.copyOf(code[block], codeSizes[block] * 2);
+        code[block][codeSizes[block]++] = size;
+
+        return size++;
+    }
+
+    /**
+     * Ends a block with a goto, branch (whose fall-through successor is set afterwards) or return
+     *
+     * @return Index of the Instruction
+     */
+    private int jump(int block, int opcode, int target, int[] values) {
+        if (opcode == InstructionTable.GOTO || isBranch(opcode))    successors[block] = new int[]{target};
+
+        return add(block, opcode, target, values);
+    }
+
+    private void computePredecessors() {
+        final int[] counts = new int[blockCount];
+
+        for (int block = 0; block < blockCount; block++)
+            if (reached[block])
+                for (int successor : successors[block])     counts[successor]++;
+
+        predecessors = new int[blockCount][];
+        for (int block = 0; block < blockCount; block++) {
+            predecessors[block] = counts[block] > 0 ? new int[counts[block]] : NO_VALUES;
+            counts[block] = 0;
+        }
+
+        for (int block = 0; block < blockCount; block++) {
+            if (!reached[block])    continue;
+
+            for (int successor : successors[block]) {
+                predecessors[successor][counts[successor]++] = block;
+                reached[successor] = true;
+            }
+        }
+    }
+
+    /**
+     * Finds the values that are references (kept in a local variable with astore and aload) rather than integers
+     */
+    private void computeReferences() {
+        for (int value = 0; value < size; value++) {
+            switch (opcodes[value]) {
+                case ParserTreeConstants.JJTTHIS:
+                case ParserTreeConstants.JJTNEWOBJ:
+                case ParserTreeConstants.JJTNEWARRAY:
+                case InstructionTable.AALOAD:
+                case InstructionTable.ALOAD:
+                    references[value] = true;
+                    break;
+                case InstructionTable.GETFIELD:
+                    references[value] = !isInt(instructions.getField(operands[value]).getType());
+                    break;
+                case InstructionTable.INVOKESTATIC:
+                case InstructionTable.INVOKEVIRTUAL:
+                    references[value] = !isInt(instructions.getInvocation(operands[value]).getReturnType());
+                    break;
+                case PARAMETER:
+                    references[value] = !isInt(instructions.getSymbol(operands[value]).getType());
+                    break;
+            }
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int value = 0; value < size; value++) {
+                if (opcodes[value] != PHI || references[value] || arguments[value] == null)     continue;
+
+                for (int argument : arguments[value]) {
+                    if (!references[argument])  continue;
+
+                    references[value] = true;
+                    changed = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Optimizes the SSA form: removes the trivial phis, folds the arithmetic and branches on constants (removing the
+     * blocks no longer reached), moves the values computed in every iteration of a loop before it, replaces the values
+     * computed again by the ones computed before them and removes the Instructions whose values are never used and
+     * have no side effects
+     */
+    void optimize() {
+        removeTrivialPhis();
+        do {
+            foldConstants();
+            removeTrivialPhis();
+        } while (foldBranches());
+
+        mergeBlocks();
+
+        if (moveInvariants)     hoistInvariants();
+        if (reuseValues)        numberValues();
+        removeDeadCode();
+    }
+
+    /**
+     * Replaces every phi whose arguments are all the same value (besides itself), or constants of the same value, by
+     * that value, until none is left
+     */
+    private void removeTrivialPhis() {
+        final int[] replacements = new int[size];
+        Arrays.fill(replacements, -1);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int block = 0; block < blockCount; block++) {
+                for (int k = 0; k < codeSizes[block] && opcodes[code[block][k]] == PHI; k++) {
+                    final int phi = code[block][k];
+                    if (replacements[phi] >= 0)     continue;
+
+                    final int same = sameArgument(phi, replacements);
+                    if (same < 0)   continue;
+
+                    replacements[phi] = same;
+                    changed = true;
+                }
+            }
+        }
+
+        // A value left on the stack through the phi is left there for its user
+        for (int phi = 0; phi < size; phi++)
+            if (replacements[phi] >= 0 && stackUsers[phi] >= 0)
+                stackUsers[resolve(phi, replacements)] = stackUsers[phi];
+
+        for (int block = 0; block < blockCount; block++) {
+            int count = 0;
+
+            for (int k = 0; k < codeSizes[block]; k++) {
+                final int instruction = code[block][k];
+                if (replacements[instruction] >= 0)     continue;
+
+                final int[] values = arguments[instruction];
+                for (int j = 0; j < values.length; j++)
+                    values[j] = resolve(values[j], replacements);
+
+                code[block][count++] = instruction;
+            }
+
+            codeSizes[block] = count;
+        }
+    }
+
+    /**
+     * @param phi Index of a phi
+     * @param replacements Value replacing each phi, -1 if not replaced
+     *
+     * @return Value of every argument of the phi besides itself, -1 if they differ
+     */
+    private int sameArgument(int phi, int[] replacements) {
+        int same = -1;
+
+        for (int argument : arguments[phi]) {
+            final int value = resolve(argument, replacements);
+            if (value == phi || value == same)  continue;
+
+            if (same < 0)   same = value;
+            else if (!isConstant(same) || !isConstant(value) || constantValue(same) != constantValue(value))
+                return -1;
+        }
+
+        return same;
+    }
+
+    private static int resolve(int value, int[] replacements) {
+        while (replacements[value] >= 0)    value = replacements[value];
+
+        return value;
+    }
+
+    /**
+     * Replaces the additions, subtractions, multiplications and divisions (by anything but zero) of constants by their
+     * result, in reverse postorder so folded values are folded again by their users
+     */
+    private void foldConstants() {
+        for (int block : blockOrder()) {
+            for (int k = 0; k < codeSizes[block]; k++) {
+                final int instruction = code[block][k];
+                final int opcode = opcodes[instruction];
+
+                if (opcode != ParserTreeConstants.JJTPLUS && opcode != ParserTreeConstants.JJTMINUS
+                        && opcode != ParserTreeConstants.JJTTIMES && opcode != ParserTreeConstants.JJTDIVIDE)
+                    continue;
+
+                final int first = arguments[instruction][0], second = arguments[instruction][1];
+                if (!isConstant(first) || !isConstant(second))  continue;
+
+                final int a = constantValue(first), b = constantValue(second);
+                final int result;
+
+                if (opcode == ParserTreeConstants.JJTPLUS)          result = a + b;
+                else if (opcode == ParserTreeConstants.JJTMINUS)    result = a - b;
+                else if (opcode == ParserTreeConstants.JJTTIMES)    result = a * b;
+                else if (b != 0)                                    result = a / b;
+                else                                                continue;
+
+                opcodes[instruction] = InstructionTable.constantOpcode(result);
+                operands[instruction] = result;
+                arguments[instruction] = NO_VALUES;
+            }
+        }
+    }
+
+    /**
+     * Replaces the branches on constants by a goto to the successor they always take, then removes the blocks no longer
+     * reached from the entry, along with the arguments of the phis coming from the edges removed
+     *
+     * The dominator tree and the loops are left as they are: removing edges never makes a block stop dominating
+     * another, and a loop that lost its back edge is only entered once.
+     *
+     * @return Whether any branch was folded
+     */
+    private boolean foldBranches() {
+        boolean folded = false;
+
+        for (int block = 0; block < blockCount; block++) {
+            if (!reached[block] || codeSizes[block] == 0)   continue;
+
+            final int terminator = code[block][codeSizes[block] - 1];
+            final int opcode = opcodes[terminator];
+            if (!isBranch(opcode))  continue;
+
+            final int[] values = arguments[terminator];
+            if (!isConstant(values[0]) || (values.length > 1 && !isConstant(values[1])))    continue;
+
+            final int a = constantValue(values[0]), b = values.length > 1 ? constantValue(values[1]) : 0;
+            final boolean taken;
+
+            if (opcode == InstructionTable.IFEQ)            taken = a == 0;
+            else if (opcode == InstructionTable.IFGT)       taken = a > 0;
+            else if (opcode == InstructionTable.IFCMPGE)    taken = a >= b;
+            else                                            taken = a < b;
+
+            final int kept = taken ? operands[terminator] : successors[block][0];
+            removeEdge(block, taken ? successors[block][0] : operands[terminator]);
+
+            opcodes[terminator] = InstructionTable.GOTO;
+            operands[terminator] = kept;
+            arguments[terminator] = NO_VALUES;
+            successors[block] = new int[]{kept};
+            folded = true;
+        }
+
+        if (!folded)    return false;
+
+        // Blocks no longer reached from the entry
+        final boolean[] reachable = new boolean[blockCount];
+        final ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        reachable[0] = true;
+        worklist.push(0);
+
+        while (!worklist.isEmpty()) {
+            for (int successor : successors[worklist.pop()]) {
+                if (reachable[successor])   continue;
+
+                reachable[successor] = true;
+                worklist.push(successor);
+            }
+        }
+
+        for (int block = 0; block < blockCount; block++) {
+            if (!reached[block] || reachable[block])    continue;
+
+            for (int successor : successors[block])
+                if (reachable[successor])   removeEdge(block, successor);
+
+            reached[block] = false;
+            codeSizes[block] = 0;
+            successors[block] = NO_VALUES;
+            predecessors[block] = NO_VALUES;
+        }
+
+        reversePostorder = Arrays.stream(reversePostorder).filter(block -> reached[block]).toArray();
+        return true;
+    }
+
+    /**
+     * Appends each block to its predecessor when it is its only one and the predecessor jumps to it alone, so the
+     * values they pass on the stack may stay there
+     *
+     * The blocks merged must be in the same loops, the one appended not being the header of any.
+     */
+    private void mergeBlocks() {
+        for (int block = 0; block < exit; block++) {
+            while (reached[block] && codeSizes[block] > 0) {
+                final int terminator = code[block][codeSizes[block] - 1];
+                if (opcodes[terminator] != InstructionTable.GOTO)   break;
+
+                final int successor = operands[terminator];
+                if (successor == exit || successor == block || predecessors[successor].length != 1
+                        || phiCount(successor) > 0 || !inSameLoops(block, successor))   break;
+
+                // The code of the successor replaces the goto
+                final int length = codeSizes[block] - 1 + codeSizes[successor];
+                if (length > code[block].length)    code[block] = Arrays.copyOf(code[block], length);
+
+                System.arraycopy(code[successor], 0, code[block], codeSizes[block] - 1, codeSizes[successor]);
+                codeSizes[block] = length;
+
+                successors[block] = successors[successor];
+                for (int next : successors[block])
+                    for (int j = 0; j < predecessors[next].length; j++)
+                        if (predecessors[next][j] == successor)     predecessors[next][j] = block;
+
+                for (int other = 0; other < blockCount; other++)
+                    if (immediateDominators[other] == successor)    immediateDominators[other] = block;
+
+                reached[successor] = false;
+                codeSizes[successor] = 0;
+                successors[successor] = NO_VALUES;
+                predecessors[successor] = NO_VALUES;
+            }
+        }
+
+        reversePostorder = Arrays.stream(reversePostorder).filter(block -> reached[block]).toArray();
+    }
+
+    /**
+     * @return Whether both blocks are in the same loops, the second not being the header of any
+     */
+    private boolean inSameLoops(int block, int other) {
+        for (int loop = 0; loop < loopHeaders.length; loop++)
+            if (loopHeaders[loop] == other || loopBlocks[loop].get(block) != loopBlocks[loop].get(other))
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Removes an edge between blocks (one of them, if there are many) from the predecessors of its successor, along
+     * with the arguments its phis take from it
+     *
+     * @param block Block where the edge starts
+     * @param successor Block where the edge ends
+     */
+    private void removeEdge(int block, int successor) {
+        final int position = position(successor, block);
+        final int[] remaining = new int[predecessors[successor].length - 1];
+
+        System.arraycopy(predecessors[successor], 0, remaining, 0, position);
+        System.arraycopy(predecessors[successor], position + 1, remaining, position, remaining.length - position);
+        predecessors[successor] = remaining;
+
+        for (int k = 0; k < codeSizes[successor] && opcodes[code[successor][k]] == PHI; k++) {
+            final int phi = code[successor][k];
+            final int[] values = new int[remaining.length];
+
+            System.arraycopy(arguments[phi], 0, values, 0, position);
+            System.arraycopy(arguments[phi], position + 1, values, position, values.length - position);
+            arguments[phi] = values;
+        }
+    }
+
+    /**
+     * Moves the Instructions of each loop computing the same value in every iteration to its preheader, inner loops
+     * first, so they are computed once before the loop (Loop-Invariant Code Motion). Values computed before the loop
+     * are then found again by the value numbering.
+     *
+     * An Instruction is invariant when its arguments are constants, this, or values defined outside the loop (or moved
+     * out of it). Arithmetic is moved from any block of the loop, and so are field loads, unless the loop may write the
+     * field: with a putfield of it, an invocation or an object creation. Instructions that may throw (array loads and
+     * lengths, divisions by anything but a constant other than zero) are only moved from the header, which runs first
+     * whenever the loop is entered, if nothing before them in it has side effects, and array loads only if the loop
+     * has no array store, invocation or object creation either.
+     */
+    private void hoistInvariants() {
+        for (int loop = loopHeaders.length - 1; loop >= 0; loop--) {
+            final int header = loopHeaders[loop];
+            final BitSet blocks = loopBlocks[loop];
+
+            // Values defined in the loop, and what it may write
+            final boolean[] variant = new boolean[size];
+            final BitSet writtenFields = new BitSet();
+            boolean arraysWritten = false, invokes = false;
+
+            for (int block = blocks.nextSetBit(0); block >= 0; block = blocks.nextSetBit(block + 1)) {
+                for (int k = 0; k < codeSizes[block]; k++) {
+                    final int instruction = code[block][k];
+                    variant[instruction] = true;
+
+                    switch (opcodes[instruction]) {
+                        case InstructionTable.PUTFIELD:
+                            writtenFields.set(operands[instruction]);
+                            break;
+                        case InstructionTable.IASTORE:
+                        case InstructionTable.AASTORE:
+                            arraysWritten = true;
+                            break;
+                        case InstructionTable.INVOKEVIRTUAL:
+                        case InstructionTable.INVOKESTATIC:
+                        case ParserTreeConstants.JJTNEWOBJ:
+                            invokes = true;
+                            break;
+                    }
+                }
+            }
+
+            // Invariant Instructions, in reverse postorder so those they use are moved before them
+            final ArrayList<Integer> hoisted = new ArrayList<>();
+
+            for (int block : blockOrder()) {
+                if (!blocks.get(block))     continue;
+
+                boolean first = block == header;
+                int count = 0;
+
+                for (int k = 0; k < codeSizes[block]; k++) {
+                    final int instruction = code[block][k];
+                    final int opcode = opcodes[instruction];
+                    final boolean hoistable;
+
+                    switch (opcode) {
+                        case ParserTreeConstants.JJTPLUS:
+                        case ParserTreeConstants.JJTMINUS:
+                        case ParserTreeConstants.JJTTIMES:
+                            hoistable = true;
+                            break;
+                        case ParserTreeConstants.JJTDIVIDE:
+                            final int divisor = arguments[instruction][1];
+                            hoistable = first || isConstant(divisor) && constantValue(divisor) != 0;
+                            break;
+                        case InstructionTable.GETFIELD:
+                            hoistable = !invokes && !writtenFields.get(operands[instruction]);
+                            break;
+                        case ParserTreeConstants.JJTLENGTH:
+                            hoistable = first;
+                            break;
+                        case InstructionTable.IALOAD:
+                        case InstructionTable.AALOAD:
+                            hoistable = first && !arraysWritten && !invokes;
+                            break;
+                        default:
+                            hoistable = false;
+                    }
+
+                    if (hoistable && isInvariant(instruction, variant)) {
+                        variant[instruction] = false;
+                        hoisted.add(instruction);
+                        continue;
+                    }
+
+                    if (hasSideEffects(opcode))     first = false;
+                    code[block][count++] = instruction;
+                }
+
+                codeSizes[block] = count;
+            }
+
+            if (hoisted.isEmpty())  continue;
+
+            invariantsMoved = true;
+            final int preheader = preheader(loop);
+            for (int instruction : hoisted) {
+                insert(preheader, instruction);
+
+                // Values used by an Instruction left in the loop can't stay on the operand stack until it
+                if (stackUsers[instruction] >= 0 && variant[stackUsers[instruction]])
+                    stackUsers[instruction] = -1;
+            }
+        }
+    }
+
+    /**
+     * @return Whether the optimization moved any Instruction out of a loop
+     */
+    boolean movedInvariants() {
+        return invariantsMoved;
+    }
+
+    /**
+     * @return Whether the optimization replaced any value by one computed before it
+     */
+    boolean reusedValues() {
+        return valuesReused;
+    }
+
+    /**
+     * @param instruction Index of an Instruction of a loop
+     * @param variant Whether each value is defined in the loop
+     *
+     * @return Whether every argument of the Instruction is a constant, this or a value defined outside the loop
+     */
+    private boolean isInvariant(int instruction, boolean[] variant) {
+        for (int argument : arguments[instruction])
+            if (variant[argument] && !isConstant(argument) && opcodes[argument] != ParserTreeConstants.JJTTHIS)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Finds the preheader of a loop: its only predecessor from outside the loop, if the header is its only successor,
+     * or else a new block between the predecessors from outside and the header, merging their arguments to the phis of
+     * the header in phis of its own
+     *
+     * @param loop Index of the loop
+     *
+     * @return Index of the preheader, always followed by the header
+     */
+    private int preheader(int loop) {
+        final int header = loopHeaders[loop];
+        final BitSet blocks = loopBlocks[loop];
+
+        int outside = 0;
+        for (int predecessor : predecessors[header])
+            if (!blocks.get(predecessor))   outside++;
+
+        final int[] outsidePredecessors = new int[outside];
+        final int[] headerPredecessors = new int[predecessors[header].length - outside + 1];
+        final boolean[] fromOutside = new boolean[predecessors[header].length];
+        int outsideCount = 0, insideCount = 1;
+
+        for (int j = 0; j < predecessors[header].length; j++) {
+            final int predecessor = predecessors[header][j];
+            fromOutside[j] = !blocks.get(predecessor);
+
+            if (fromOutside[j])     outsidePredecessors[outsideCount++] = predecessor;
+            else                    headerPredecessors[insideCount++] = predecessor;
+        }
+
+        if (outside == 1 && successors[outsidePredecessors[0]].length == 1)     return outsidePredecessors[0];
+
+        final int preheader = newBlock();
+        reached[preheader] = true;
+        predecessors[preheader] = outsidePredecessors;
+        immediateDominators[preheader] = immediateDominators[header];
+        immediateDominators[header] = preheader;
+
+        for (int k = 0; k < codeSizes[header] && opcodes[code[header][k]] == PHI; k++) {
+            final int phi = code[header][k];
+            final int[] outsideArguments = new int[outside];
+            final int[] headerArguments = new int[headerPredecessors.length];
+            outsideCount = 0;
+            insideCount = 1;
+
+            for (int j = 0; j < fromOutside.length; j++) {
+                if (fromOutside[j])     outsideArguments[outsideCount++] = arguments[phi][j];
+                else                    headerArguments[insideCount++] = arguments[phi][j];
+            }
+
+            if (outside == 1) {
+                headerArguments[0] = outsideArguments[0];
+            }
+            else {
+                headerArguments[0] = add(preheader, PHI, operands[phi], outsideArguments);
+                variables[headerArguments[0]] = variables[phi];
+                references[headerArguments[0]] = references[phi];
+            }
+
+            arguments[phi] = headerArguments;
+        }
+
+        jump(preheader, InstructionTable.GOTO, header, NO_VALUES);
+        predecessors[header] = headerPredecessors;
+
+        // The predecessors from outside jump to the preheader instead
+        for (int predecessor : outsidePredecessors) {
+            final int terminator = code[predecessor][codeSizes[predecessor] - 1];
+
+            for (int j = 0; j < successors[predecessor].length; j++) {
+                if (successors[predecessor][j] != header)   continue;
+
+                successors[predecessor][j] = preheader;
+                if (opcodes[terminator] == InstructionTable.GOTO || j > 0)  operands[terminator] = preheader;
+            }
+        }
+
+        // The preheader comes right before the header in reverse postorder, and is in the loops containing this one
+        final int[] order = new int[reversePostorder.length + 1];
+        int count = 0;
+
+        for (int block : reversePostorder) {
+            if (block == header)    order[count++] = preheader;
+            order[count++] = block;
+        }
+
+        reversePostorder = order;
+
+        for (int other = 0; other < loopHeaders.length; other++)
+            if (other != loop && loopBlocks[other].get(header))     loopBlocks[other].set(preheader);
+
+        return preheader;
+    }
+
+    /**
+     * Adds an Instruction to the end of a block, before its terminator
+     */
+    private void insert(int block, int instruction) {
+        if (codeSizes[block] == code[block].length)     code[block] = Arrays.copyOf(code[block], codeSizes[block] * 2);
+
+        code[block][codeSizes[block]] = code[block][codeSizes[block] - 1];
+        code[block][codeSizes[block] - 1] = instruction;
+        codeSizes[block]++;
+    }
+
+    /**
+     * Key of the value computed by an Instruction: its opcode and operand, the numbers of its arguments (in ascending
+     * order for commutative operations) and, for loads of fields and array elements, the state of the memory they read
+     */
+    private static class ValueKey {
+        private final int opcode;
+        private final int operand;
+        private final long[] arguments;
+        private final int memory;
+
+        private ValueKey(int opcode, int operand, long[] arguments, int memory) {
+            this.opcode = opcode;
+            this.operand = operand;
+            this.arguments = arguments;
+            this.memory = memory;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)                      return true;
+            if (!(o instanceof ValueKey))       return false;
+
+            final ValueKey key = (ValueKey) o;
+            return opcode == key.opcode && operand == key.operand && memory == key.memory
+                    && Arrays.equals(arguments, key.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * opcode + operand) + memory) + Arrays.hashCode(arguments);
+        }
+    }
+
+    /**
+     * Replaces every Instruction computing the same value as one dominating it by that one (local and global value
+     * numbering), visiting the blocks in reverse postorder so dominating Instructions are numbered first. The value is
+     * then computed once and, being used again, kept in a variable.
+     *
+     * Arithmetic, array lengths, and loads of fields and array elements are numbered. Loads are keyed by the state of
+     * the memory they read, which changes with every putfield (for fields), array store (for elements), invocation and
+     * object creation (for both), and only carries over to a block from its predecessors when they all end with the
+     * same one (never through back edges, not visited yet), so a load is never replaced by one that a write may have
+     * happened after.
+     */
+    private void numberValues() {
+        final int[] replacements = new int[size];
+        Arrays.fill(replacements, -1);
+
+        final HashMap<ValueKey, ArrayList<Integer>> numbered = new HashMap<>();
+        final int[] valueBlocks = new int[size];
+        final int[] fieldStates = new int[blockCount];
+        final int[] arrayStates = new int[blockCount];
+        final boolean[] visited = new boolean[blockCount];
+        int states = 0;
+
+        for (int block : blockOrder()) {
+            int fieldState = memoryState(fieldStates, visited, predecessors[block]);
+            int arrayState = memoryState(arrayStates, visited, predecessors[block]);
+
+            if (fieldState < 0)     fieldState = ++states;
+            if (arrayState < 0)     arrayState = ++states;
+
+            for (int k = 0; k < codeSizes[block]; k++) {
+                final int instruction = code[block][k];
+                final int opcode = opcodes[instruction];
+                if (opcode == PHI)  continue;
+
+                final int[] values = arguments[instruction];
+                for (int j = 0; j < values.length; j++)
+                    values[j] = resolve(values[j], replacements);
+
+                final int memory;
+                switch (opcode) {
+                    case InstructionTable.PUTFIELD:
+                        fieldState = ++states;
+                        continue;
+                    case InstructionTable.IASTORE:
+                    case InstructionTable.AASTORE:
+                        arrayState = ++states;
+                        continue;
+                    case InstructionTable.INVOKEVIRTUAL:
+                    case InstructionTable.INVOKESTATIC:
+                    case ParserTreeConstants.JJTNEWOBJ:
+                        fieldState = ++states;
+                        arrayState = ++states;
+                        continue;
+                    case InstructionTable.GETFIELD:
+                        memory = fieldState;
+                        break;
+                    case InstructionTable.IALOAD:
+                    case InstructionTable.AALOAD:
+                        memory = arrayState;
+                        break;
+                    case ParserTreeConstants.JJTPLUS:
+                    case ParserTreeConstants.JJTMINUS:
+                    case ParserTreeConstants.JJTTIMES:
+                    case ParserTreeConstants.JJTDIVIDE:
+                    case ParserTreeConstants.JJTLENGTH:
+                        memory = 0;
+                        break;
+                    default:
+                        continue;
+                }
+
+                final long[] numbers = new long[values.length];
+                for (int j = 0; j < values.length; j++)
+                    numbers[j] = valueNumber(values[j]);
+
+                if (opcode == ParserTreeConstants.JJTPLUS || opcode == ParserTreeConstants.JJTTIMES)
+                    Arrays.sort(numbers);
+
+                final ArrayList<Integer> candidates = numbered.computeIfAbsent(
+                        new ValueKey(opcode, operands[instruction], numbers, memory), key -> new ArrayList<>());
+
+                for (int candidate : candidates) {
+                    if (!dominates(valueBlocks[candidate], block))  continue;
+
+                    replacements[instruction] = candidate;
+                    valuesReused = true;
+                    break;
+                }
+
+                if (replacements[instruction] < 0) {
+                    candidates.add(instruction);
+                    valueBlocks[instruction] = block;
+                }
+            }
+
+            fieldStates[block] = fieldState;
+            arrayStates[block] = arrayState;
+            visited[block] = true;
+        }
+
+        // Replaced Instructions are removed (even those that may throw, as the ones replacing them throw first)
+        for (int block = 0; block < blockCount; block++) {
+            int count = 0;
+
+            for (int k = 0; k < codeSizes[block]; k++) {
+                final int instruction = code[block][k];
+                if (replacements[instruction] >= 0)     continue;
+
+                final int[] values = arguments[instruction];
+                for (int j = 0; values != null && j < values.length; j++)
+                    values[j] = resolve(values[j], replacements);
+
+                code[block][count++] = instruction;
+            }
+
+            codeSizes[block] = count;
+        }
+    }
+
+    /**
+     * @param states Memory state at the end of each block
+     * @param visited Whether each block was visited
+     * @param predecessors Predecessors of a block
+     *
+     * @return Memory state every predecessor ends with, -1 if they don't all end with the same one (or aren't visited)
+     */
+    private static int memoryState(int[] states, boolean[] visited, int[] predecessors) {
+        if (predecessors.length == 0 || !visited[predecessors[0]])  return -1;
+
+        for (int predecessor : predecessors)
+            if (!visited[predecessor] || states[predecessor] != states[predecessors[0]])    return -1;
+
+        return states[predecessors[0]];
+    }
+
+    /**
+     * @return Number identifying a value: the same for every constant of the same value and for every this
+     */
+    private long valueNumber(int value) {
+        if (isConstant(value))
+            return CONSTANT_NUMBER | constantValue(value) & 0xFFFFFFFFL;
+
+        return opcodes[value] == ParserTreeConstants.JJTTHIS ? THIS_NUMBER : value;
+    }
+
+    /**
+     * @param dominator Index of a reached block
+     * @param block Index of a reached block
+     *
+     * @return Whether every path from the entry to the block goes through the dominator (a block dominating itself)
+     */
+    private boolean dominates(int dominator, int block) {
+        while (block != dominator && block != 0)
+            block = immediateDominators[block];
+
+        return block == dominator;
+    }
+
+    /**
+     * Removes the Instructions without side effects whose values aren't used by any Instruction that is kept
+     */
+    private void removeDeadCode() {
+        final boolean[] live = new boolean[size];
+        final ArrayDeque<Integer> worklist = new ArrayDeque<>();
+
+        for (int block = 0; block < blockCount; block++) {
+            for (int k = 0; k < codeSizes[block]; k++) {
+                final int instruction = code[block][k];
+                if (!hasSideEffects(opcodes[instruction]))  continue;
+
+                live[instruction] = true;
+                worklist.push(instruction);
+            }
+        }
+
+        while (!worklist.isEmpty()) {
+            for (int argument : arguments[worklist.pop()]) {
+                if (live[argument])     continue;
+
+                live[argument] = true;
+                worklist.push(argument);
+            }
+        }
+
+        for (int block = 0; block < blockCount; block++) {
+            int count = 0;
+
+            for (int k = 0; k < codeSizes[block]; k++)
+                if (live[code[block][k]])   code[block][count++] = code[block][k];
+
+            codeSizes[block] = count;
+        }
+    }
+
+    /**
+     * Translates the SSA form back to stack code with local variables, replacing the Instructions of the Function
+     */
+    void translate() {
+        splitCriticalEdges();
+
+        useCounts = new int[size];
+        for (int block = 0; block < blockCount; block++)
+            for (int k = 0; k < codeSizes[block]; k++)
+                for (int argument : arguments[code[block][k]])
+                    useCounts[argument]++;
+
+        // Values kept on the operand stack, from their definition to their only use, and values kept in a variable
+        stacked = new boolean[size];
+        kept = new boolean[size];
+
+        final int[] blocks = new int[size];
+        for (int block = 0; block < blockCount; block++)
+            for (int k = 0; k < codeSizes[block]; k++)
+                blocks[code[block][k]] = block;
+
+        for (int block = 0; block < blockCount; block++) {
+            for (int k = 0; k < codeSizes[block]; k++) {
+                final int value = code[block][k];
+                final int user = stackUsers[value];
+
+                if (isRematerialized(value) || useCounts[value] == 0)  continue;
+
+                if (opcodes[value] != PHI && opcodes[value] != PARAMETER && user >= 0 && useCounts[value] == 1
+                        && blocks[user] == block && contains(arguments[user], value))
+                    stacked[value] = true;
+                else
+                    kept[value] = true;
+            }
+        }
+
+        // Phis used once, by the first Instruction emitted in their block, are left on the stack by the predecessors
+        for (int block = 0; block < blockCount; block++) {
+            final int phi = firstLeaf(block);
+            if (phi < 0 || opcodes[phi] != PHI || useCounts[phi] != 1 || !isPhi(block, phi))  continue;
+
+            stacked[phi] = true;
+            kept[phi] = false;
+        }
+
+        assignVariables();
+        emit();
+    }
+
+    /**
+     * @param block Index of a block
+     *
+     * @return First value loaded by the code of the block (-1 if it starts with an Instruction without arguments)
+     */
+    private int firstLeaf(int block) {
+        int instruction = -1;
+
+        for (int k = 0; k < codeSizes[block] && instruction < 0; k++) {
+            final int value = code[block][k];
+
+            if (opcodes[value] != PHI && opcodes[value] != PARAMETER && !stacked[value] && !isRematerialized(value))
+                instruction = value;
+        }
+
+        while (instruction >= 0 && arguments[instruction].length > 0) {
+            final int argument = arguments[instruction][0];
+            if (!stacked[argument])     return argument;
+
+            instruction = argument;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Splits the edges from blocks with many successors to blocks with phis and many predecessors, so the copies of
+     * the phis can be placed at the end of every predecessor
+     */
+    private void splitCriticalEdges() {
+        final int originalCount = blockCount;
+
+        for (int block = 0; block < originalCount; block++) {
+            if (!reached[block] || successors[block].length < 2)    continue;
+
+            for (int j = 0; j < successors[block].length; j++) {
+                final int successor = successors[block][j];
+                if (predecessors[successor].length < 2 || phiCount(successor) == 0)     continue;
+
+                final int split = newBlock();
+                add(split, InstructionTable.GOTO, successor, NO_VALUES);
+                successors[split] = new int[]{successor};
+                predecessors[split] = new int[]{block};
+                reached[split] = true;
+
+                // The edge is the occurrence of this block among the predecessors matching this successor slot
+                int occurrence = 0;
+                for (int i = 0; i < j; i++)
+                    if (successors[block][i] == successor)  occurrence++;
+
+                for (int i = 0; i < predecessors[successor].length; i++) {
+                    if (predecessors[successor][i] != block || occurrence-- > 0)    continue;
+
+                    predecessors[successor][i] = split;
+                    break;
+                }
+
+                successors[block][j] = split;
+
+                final int terminator = code[block][codeSizes[block] - 1];
+                if (j > 0)  operands[terminator] = split;
+            }
+        }
+    }
+
+    private int newBlock() {
+        if (blockCount == code.length) {
+            final int capacity = blockCount * 2;
+
+            code = Arrays.copyOf(code, capacity);
+            codeSizes = Arrays.copyOf(codeSizes, capacity);
+            successors = Arrays.copyOf(successors, capacity);
+            predecessors = Arrays.copyOf(predecessors, capacity);
+            reached = Arrays.copyOf(reached, capacity);
+            immediateDominators = Arrays.copyOf(immediateDominators, capacity);
+        }
+
+        code[blockCount] = new int[2];
+        codeSizes[blockCount] = 0;
+        successors[blockCount] = NO_VALUES;
+        predecessors[blockCount] = NO_VALUES;
+
+        return blockCount++;
+    }
+
+    /**
+     * Assigns a local variable to each value kept in one: the variable it was stored to in the source (its own, for
+     * parameters) if none of the values already assigned to it interferes with it, or else the first temporary
+     * variable free for it, created when none is
+     *
+     */
+    private void assignVariables() {
+        final BitSet[] interferences = interferences();
+        homes = new int[size];
+        Arrays.fill(homes, -1);
+
+        final ArrayList<ArrayList<Integer>> occupants = new ArrayList<>();
+        final ArrayList<Integer> temporaries = new ArrayList<>();
+        final ArrayList<Boolean> occupantReferences = new ArrayList<>();
+
+        for (int block : blockOrder()) {
+            for (int k = 0; k < codeSizes[block]; k++) {
+                final int value = code[block][k];
+                if (!kept[value])   continue;
+
+                int home = opcodes[value] == PARAMETER ? operands[value] : variables[value];
+
+                if (home >= 0 && opcodes[value] != PARAMETER
+                        && !isFree(home, value, occupants, occupantReferences, interferences))
+                    home = -1;
+
+                for (int i = 0; home < 0 && i < temporaries.size(); i++)
+                    if (isFree(temporaries.get(i), value, occupants, occupantReferences, interferences))
+                        home = temporaries.get(i);
+
+                if (home < 0) {
+                    final Symbol temporary = new Symbol(Symbol.Kind.LOCAL, variableCount + temporaries.size(),
+                            "%" + value, references[value] ? Type.UNKNOWN() : Type.INT());
+
+                    home = instructions.variableIndex(temporary);
+                    temporaries.add(home);
+                }
+
+                while (occupants.size() <= home) {
+                    occupants.add(new ArrayList<>());
+                    occupantReferences.add(null);
+                }
+
+                occupants.get(home).add(value);
+                occupantReferences.set(home, references[value]);
+                homes[value] = home;
+            }
+        }
+    }
+
+    private boolean isFree(int variable, int value, ArrayList<ArrayList<Integer>> occupants,
+                           ArrayList<Boolean> occupantReferences, BitSet[] interferences) {
+        if (variable >= occupants.size() || occupants.get(variable).isEmpty())  return true;
+        if (occupantReferences.get(variable) != references[value])             return false;
+
+        for (int occupant : occupants.get(variable))
+            if (interferences[value].get(occupant) || interferences[occupant].get(value))   return false;
+
+        return true;
+    }
+
+    /**
+     * Computes the liveness of the values kept in variables, per block, and from it the values live right after the
+     * definition of each of them (those it interferes with)
+     *
+     * The values used by an Instruction kept on the stack are used where the Instruction using it is emitted, and the
+     * arguments of phis at the end of the corresponding predecessor.
+     *
+     * @return Values live after the definition of each kept value (null for the other values)
+     */
+    private BitSet[] interferences() {
+        final BitSet[] uses = new BitSet[blockCount];
+        final BitSet[] definitions = new BitSet[blockCount];
+        final BitSet[] liveIn = new BitSet[blockCount];
+        final BitSet[] liveOut = new BitSet[blockCount];
+
+        for (int block = 0; block < blockCount; block++) {
+            uses[block] = new BitSet(size);
+            definitions[block] = new BitSet(size);
+            liveIn[block] = new BitSet(size);
+            liveOut[block] = new BitSet(size);
+
+            if (!reached[block])    continue;
+
+            final BitSet treeUses = new BitSet(size);
+            for (int k = 0; k < codeSizes[block]; k++) {
+                final int value = code[block][k];
+
+                if (opcodes[value] == PHI) {
+                    definitions[block].set(value);
+                    continue;
+                }
+
+                if (stacked[value] || isRematerialized(value))  continue;
+
+                treeUses.clear();
+                addTreeUses(value, treeUses);
+                treeUses.andNot(definitions[block]);
+                uses[block].or(treeUses);
+
+                if (kept[value])    definitions[block].set(value);
+            }
+
+            // Arguments of the phis of the successors
+            for (int successor : successors[block])
+                addPhiUses(successor, block, liveOut[block]);
+        }
+
+        final ArrayDeque<Integer> worklist = new ArrayDeque<>();
+        final boolean[] queued = new boolean[blockCount];
+        for (int block = blockCount - 1; block >= 0; block--) {
+            if (!reached[block])    continue;
+
+            worklist.add(block);
+            queued[block] = true;
+        }
+
+        while (!worklist.isEmpty()) {
+            final int block = worklist.poll();
+            queued[block] = false;
+
+            for (int successor : successors[block])
+                liveOut[block].or(liveIn[successor]);
+
+            final BitSet in = (BitSet) liveOut[block].clone();
+            in.andNot(definitions[block]);
+            in.or(uses[block]);
+
+            if (in.equals(liveIn[block]))   continue;
+            liveIn[block] = in;
+
+            for (int predecessor : predecessors[block]) {
+                if (queued[predecessor])    continue;
+
+                worklist.add(predecessor);
+                queued[predecessor] = true;
+            }
+        }
+
+        // Values live after each definition, walking each block backwards
+        final BitSet[] interferences = new BitSet[size];
+        for (int block = 0; block < blockCount; block++) {
+            if (!reached[block])    continue;
+
+            final BitSet live = (BitSet) liveOut[block].clone();
+            final BitSet phis = new BitSet(size);
+
+            for (int k = codeSizes[block] - 1; k >= 0; k--) {
+                final int value = code[block][k];
+
+                if (opcodes[value] == PHI) {
+                    if (kept[value])    phis.set(value);
+                    continue;
+                }
+
+                if (stacked[value] || isRematerialized(value))  continue;
+
+                if (kept[value]) {
+                    interferences[value] = (BitSet) live.clone();
+                    interferences[value].clear(value);
+                    live.clear(value);
+                }
+
+                addTreeUses(value, live);
+            }
+
+            // Phis are defined together, at the start of the block
+            live.or(phis);
+            for (int phi = phis.nextSetBit(0); phi >= 0; phi = phis.nextSetBit(phi + 1)) {
+                interferences[phi] = (BitSet) live.clone();
+                interferences[phi].clear(phi);
+            }
+        }
+
+        return interferences;
+    }
+
+    private void addTreeUses(int instruction, BitSet treeUses) {
+        for (int argument : arguments[instruction]) {
+            if (kept[argument])                                         treeUses.set(argument);
+            else if (stacked[argument] && opcodes[argument] != PHI)     addTreeUses(argument, treeUses);
+        }
+    }
+
+    private void addPhiUses(int block, int predecessor, BitSet phiUses) {
+        final int position = position(block, predecessor);
+
+        for (int k = 0; k < codeSizes[block] && opcodes[code[block][k]] == PHI; k++) {
+            final int argument = arguments[code[block][k]][position];
+            if (kept[argument])     phiUses.set(argument);
+        }
+    }
+
+    /**
+     * Emits the stack code of the SSA form, replacing the Instructions of the Function
+     */
+    private void emit() {
+        final int[] layout = layout();
+        final boolean[] targets = targets(layout);
+        instructions.truncate(0);
+
+        for (int i = 0; i < layout.length; i++) {
+            final int block = layout[i];
+            final int next = i + 1 < layout.length ? layout[i + 1] : -1;
+
+            if (targets[block])     instructions.addLabel(block);
+
+            int terminator = -1;
+            for (int k = 0; k < codeSizes[block]; k++) {
+                final int value = code[block][k];
+                final int opcode = opcodes[value];
+
+                if (isTerminator(opcode)) {
+                    terminator = value;
+                    break;
+                }
+
+                if (opcode == PHI || opcode == PARAMETER || stacked[value] || isRematerialized(value))  continue;
+
+                emitTree(value);
+
+                if (kept[value])
+                    store(value);
+                else if (instructions.pushCount(opcode, operands[value]) > 0 && useCounts[value] == 0)
+                    instructions.addPop();
+            }
+
+            if (successors[block].length == 1)  emitCopies(successors[block][0], block);
+
+            if (terminator < 0) {
+                // The exit falls off the end of the code, so it must be the last block emitted
+                continue;
+            }
+
+            final int opcode = opcodes[terminator];
+            if (opcode == InstructionTable.GOTO) {
+                if (operands[terminator] != next)   instructions.addGoto(operands[terminator]);
+            }
+            else if (isBranch(opcode)) {
+                emitTree(terminator);
+
+                if (successors[block][0] != next)   instructions.addGoto(successors[block][0]);
+            }
+            else {
+                emitTree(terminator);
+            }
+        }
+    }
+
+    /**
+     * Emits an Instruction after its arguments: those kept on the operand stack along with their own arguments, the
+     * others loaded from their variables (constants, being loaded again)
+     */
+    private void emitTree(int instruction) {
+        for (int argument : arguments[instruction])
+            emitValue(argument);
+
+        instructions.add(opcodes[instruction], operands[instruction]);
+    }
+
+    private void emitValue(int value) {
+        if (isRematerialized(value))
+            instructions.add(opcodes[value], operands[value]);
+        else if (stacked[value] && opcodes[value] == PHI)
+            return;     // Pushed by every predecessor
+        else if (stacked[value])
+            emitTree(value);
+        else
+            instructions.add(references[value] ? InstructionTable.ALOAD : InstructionTable.ILOAD, homes[value]);
+    }
+
+    private void store(int value) {
+        instructions.add(references[value] ? InstructionTable.ASTORE : InstructionTable.ISTORE, homes[value]);
+    }
+
+    /**
+     * Emits the copies of the arguments of the phis of a block coming from one of its predecessors, loading them all
+     * before storing any, so copies between the variables of the phis themselves are performed at once
+     *
+     * The argument of a phi left on the stack is pushed first, below the copies, and left there.
+     */
+    private void emitCopies(int block, int predecessor) {
+        if (phiCount(block) == 0)   return;
+
+        final int position = position(block, predecessor);
+        final int[] copies = new int[phiCount(block)];
+        int count = 0;
+
+        for (int k = 0; k < codeSizes[block] && opcodes[code[block][k]] == PHI; k++)
+            if (stacked[code[block][k]])    emitValue(arguments[code[block][k]][position]);
+
+        for (int k = 0; k < codeSizes[block] && opcodes[code[block][k]] == PHI; k++) {
+            final int phi = code[block][k];
+            final int argument = arguments[phi][position];
+
+            if (!kept[phi] || (kept[argument] && homes[argument] == homes[phi]))    continue;
+
+            emitValue(argument);
+            copies[count++] = phi;
+        }
+
+        while (count > 0)
+            store(copies[--count]);
+    }
+
+    /**
+     * @param layout Blocks in the order they are emitted
+     *
+     * @return Whether each block is the target of a goto or branch, thus needing its label
+     */
+    private boolean[] targets(int[] layout) {
+        final boolean[] targets = new boolean[blockCount];
+
+        for (int i = 0; i < layout.length; i++) {
+            final int block = layout[i];
+            final int next = i + 1 < layout.length ? layout[i + 1] : -1;
+            final int terminator = codeSizes[block] > 0 ? code[block][codeSizes[block] - 1] : -1;
+
+            if (terminator < 0 || !isTerminator(opcodes[terminator]))  continue;
+
+            if (isBranch(opcodes[terminator]))  targets[operands[terminator]] = true;
+
+            for (int successor : successors[block])
+                if (successor != next)  targets[successor] = true;
+        }
+
+        return targets;
+    }
+
+    /**
+     * @return Blocks in the order they are emitted: the entry, the blocks of the source in their order (each followed
+     * by the block splitting its fall-through edge or the preheader it jumps to, if any), the other blocks added and
+     * the exit
+     */
+    private int[] layout() {
+        final int[] layout = new int[blockCount];
+        final boolean[] placed = new boolean[blockCount];
+        int count = 0;
+
+        for (int block = 0; block < exit; block++) {
+            if (!reached[block])    continue;
+
+            layout[count++] = block;
+            placed[block] = true;
+
+            final int terminator = codeSizes[block] > 0 ? code[block][codeSizes[block] - 1] : -1;
+            if (terminator >= 0 && (isBranch(opcodes[terminator]) || opcodes[terminator] == InstructionTable.GOTO)
+                    && successors[block][0] > exit && !placed[successors[block][0]]) {
+                layout[count++] = successors[block][0];
+                placed[successors[block][0]] = true;
+            }
+        }
+
+        for (int block = exit + 1; block < blockCount; block++)
+            if (!placed[block])     layout[count++] = block;
+
+        if (reached[exit])  layout[count++] = exit;
+
+        return Arrays.copyOf(layout, count);
+    }
+
+    /**
+     * @return Blocks in reverse postorder (the entry first, each preheader right before its header, the blocks added to
+     * split edges last), but the exit
+     */
+    private int[] blockOrder() {
+        final int[] order = new int[blockCount];
+        final boolean[] ordered = new boolean[blockCount];
+        int count = 0;
+
+        order[count++] = 0;
+        for (int block : reversePostorder) {
+            order[count++] = block;
+            ordered[block] = true;
+        }
+
+        for (int block = exit + 1; block < blockCount; block++)
+            if (!ordered[block])    order[count++] = block;
+
+        return Arrays.copyOf(order, count);
+    }
+
+    private boolean isPhi(int block, int value) {
+        for (int k = 0; k < codeSizes[block] && opcodes[code[block][k]] == PHI; k++)
+            if (code[block][k] == value)    return true;
+
+        return false;
+    }
+
+    private int phiCount(int block) {
+        int count = 0;
+        while (count < codeSizes[block] && opcodes[code[block][count]] == PHI)   count++;
+
+        return count;
+    }
+
+    /**
+     * @return Position of a predecessor among the predecessors of a block (its first occurrence)
+     */
+    private int position(int block, int predecessor) {
+        for (int i = 0; i < predecessors[block].length; i++)
+            if (predecessors[block][i] == predecessor)  return i;
+
+        return -1;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values)
+            if (v == value)     return true;
+
+        return false;
+    }
+
+    private boolean isConstant(int value) {
+        switch (opcodes[value]) {
+            case InstructionTable.BIPUSH:
+            case InstructionTable.SIPUSH:
+            case InstructionTable.LDC:
+            case ParserTreeConstants.JJTTRUE:
+            case ParserTreeConstants.JJTFALSE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private int constantValue(int value) {
+        switch (opcodes[value]) {
+            case ParserTreeConstants.JJTTRUE:
+                return 1;
+            case ParserTreeConstants.JJTFALSE:
+                return 0;
+            default:
+                return operands[value];
+        }
+    }
+
+    /**
+     * @return Whether the value is loaded again wherever it is used (constants, this and undefined variables, read
+     * from the variable itself), instead of being kept
+     */
+    private boolean isRematerialized(int value) {
+        final int opcode = opcodes[value];
+
+        return isConstant(value) || opcode == ParserTreeConstants.JJTTHIS
+                || opcode == InstructionTable.ILOAD || opcode == InstructionTable.ALOAD;
+    }
+
+    private static boolean isInt(Type type) {
+        return type.isInt() || type.isBoolean();
+    }
+
+    private static boolean isBranch(int opcode) {
+        return opcode == InstructionTable.IFEQ || opcode == InstructionTable.IFGT
+                || opcode == InstructionTable.IFCMPGE || opcode == InstructionTable.IFCMPLT;
+    }
+
+    private static boolean isTerminator(int opcode) {
+        return opcode == InstructionTable.GOTO || opcode == InstructionTable.IRETURN
+                || opcode == InstructionTable.ARETURN || isBranch(opcode);
+    }
+
+    /**
+     * @return Whether an Instruction must be kept even if its value is not used: it writes memory, calls a method,
+     * transfers control or may throw an exception
+     */
+    private static boolean hasSideEffects(int opcode) {
+        switch (opcode) {
+            case PHI:
+            case PARAMETER:
+            case InstructionTable.ILOAD:
+            case InstructionTable.ALOAD:
+            case InstructionTable.BIPUSH:
+            case InstructionTable.SIPUSH:
+            case InstructionTable.LDC:
+            case InstructionTable.GETFIELD:
+            case ParserTreeConstants.JJTTRUE:
+            case ParserTreeConstants.JJTFALSE:
+            case ParserTreeConstants.JJTTHIS:
+            case ParserTreeConstants.JJTPLUS:
+            case ParserTreeConstants.JJTMINUS:
+            case ParserTreeConstants.JJTTIMES:
+                return false;
+            default:
+                return true;
+        }
+    }
+}
@@ -1,15 +1,43 @@
 package semantic;
 
-import parser.Node;
+import parser.NodeTable;
+import parser.TokenTable;
 
 /**
  * Exception thrown when a Semantic Error occurs.
  *
- * TODO Still under construction, it'll be extended to allow for localizing errors
+ * The position of the error is resolved from the TokenTable of the tree only when the exception is created.
  */
 public class SemanticException extends Exception {
-    SemanticException(Node node, String message) {
-        super("Semantic error: " + message + " at line " + node.jjtGetFirstToken().beginLine
-                + ", column " + node.jjtGetFirstToken().beginColumn);
+    private final int line;
+    private final int column;
+
+    SemanticException(NodeTable nodes, int node, String message) {
+        this(nodes.getTokens(), nodes.getFirstToken(node), message);
+    }
+
+    private SemanticException(TokenTable tokens, int token, String message) {
+        this(message, tokens != null && token >= 0 ? tokens.getBeginLine(token) : 0,
+                tokens != null && token >= 0 ? tokens.getBeginColumn(token) : 0);
+    }
+
+    private SemanticException(String message, int line, int column) {
+        super("Semantic error: " + message + (line > 0 ? " at line " + line + ", column " + column : ""));
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return Line of the error, 0 if unknown
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return Column of the error, 0 if unknown
+     */
+    public int getColumn() {
+        return column;
     }
 }
@@ -0,0 +1,58 @@
+package semantic;
+
+import parser.NodeTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Table of the canonical Method Signatures of a class
+ *
+ * Signatures are looked up by their Identifier, then by their arity and Parameter Types (compared by identity, as
+ * Types are canonical), so resolving a call to an already known signature doesn't allocate. Lookups are synchronized,
+ * since the methods of the class resolve their calls in parallel.
+ *
+ * @see MethodSignature
+ */
+class SignatureTable {
+    private final TypeTable types;
+    private final HashMap<String, ArrayList<MethodSignature>> signatures = new HashMap<>();
+
+    SignatureTable(TypeTable types) {
+        this.types = types;
+    }
+
+    /**
+     * @param methodId Method Identifier
+     * @param parameterTypes Method parameter Types
+     *
+     * @return Signature with the given Identifier and Parameter Types
+     */
+    synchronized MethodSignature get(String methodId, Type[] parameterTypes) {
+        final ArrayList<MethodSignature> overloads = signatures.computeIfAbsent(methodId, key -> new ArrayList<>(1));
+
+        for (MethodSignature signature : overloads)
+            if (signature.matches(methodId, parameterTypes))    return signature;
+
+        final MethodSignature signature = new MethodSignature(methodId, parameterTypes);
+        overloads.add(signature);
+
+        return signature;
+    }
+
+    /**
+     * @param nodes AST containing the Method
+     * @param methodNode AST Root containing a Method
+     *
+     * @return Signature of the Method
+     */
+    MethodSignature of(NodeTable nodes, int methodNode) {
+        final int parameterNode = nodes.getChild(methodNode, 2);
+        final Type[] parameterTypes = new Type[nodes.getNumChildren(parameterNode) / 2];
+
+        for (int i = 0; i < parameterTypes.length; i++)
+            parameterTypes[i] = types.of(nodes, nodes.getChild(parameterNode, i*2));
+
+        return get(String.valueOf(nodes.getValue(nodes.getChild(methodNode, 1))), parameterTypes);
+    }
+}
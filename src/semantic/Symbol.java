@@ -0,0 +1,92 @@
+package semantic;
+
+/**
+ * Record of a declared Symbol (local variable, parameter or class field)
+ *
+ * Identifiers are bound to their Symbol once, before the Semantic Analysis, so the later phases read its kind, index
+ * and Type directly instead of looking the Identifier up in each Symbol Table.
+ *
+ * @see SymbolTable
+ */
+public class Symbol {
+    /**
+     * Scope where a Symbol is declared
+     */
+    public enum Kind {LOCAL, PARAMETER, FIELD}
+
+    private final Kind kind;
+    private final int index;
+    private final String name;
+    private Type type;
+    private Integer value = null;
+    private boolean assigned = false;
+
+    /**
+     * @param kind Scope where the Symbol is declared
+     * @param index Position of the declaration among the ones of the same scope
+     * @param name Identifier of the Symbol
+     * @param type Declared Type of the Symbol
+     */
+    Symbol(Kind kind, int index, String name, Type type) {
+        this.kind = kind;
+        this.index = index;
+        this.name = name;
+        this.type = type;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    void setType(Type type) {
+        this.type = type;
+    }
+
+    boolean isLocal() {
+        return kind == Kind.LOCAL;
+    }
+
+    boolean isField() {
+        return kind == Kind.FIELD;
+    }
+
+    /**
+     * @return Constant value of the Symbol (only of local variables, with the -o optimizations), null if unknown
+     */
+    Integer getValue() {
+        return value;
+    }
+
+    void setValue(Integer value) {
+        this.value = value;
+    }
+
+    /**
+     * @return Whether the Symbol is assigned by any statement bound so far (only of local int variables, with the -o
+     * optimizations)
+     */
+    boolean isAssigned() {
+        return assigned;
+    }
+
+    void setAssigned() {
+        this.assigned = true;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -1,77 +1,82 @@
 package semantic;
 
-import parser.Node;
+import parser.NodeTable;
 
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
 
 /**
- * Class containing Symbols, mapping their Identifier to their corresponding Type
+ * Class containing Symbols, mapping their Identifier to their corresponding record
  *
+ * @see Symbol
  * @see Type
  */
 public class SymbolTable {
-    final HashMap<String, Type> symbols;
+    final HashMap<String, Symbol> symbols;
+    private final Symbol.Kind kind;
 
-    SymbolTable() {
-        symbols = new HashMap<>();
+    SymbolTable(Symbol.Kind kind) {
+        this(kind, new HashMap<>());
     }
 
-    SymbolTable(HashMap<String, Type> symbols) {
+    SymbolTable(Symbol.Kind kind, HashMap<String, Symbol> symbols) {
+        this.kind = kind;
         this.symbols = symbols;
     }
 
     /**
      * Adds a Symbol to the table from a given Declaration Node
      *
+     * @param nodes AST containing the declaration
+     * @param types Table of the Types of the class
      * @param declarationNode Declaration Node of the AST
      *
      * @throws SemanticException on Semantic Error (Conflicting Identifiers)
      */
-    void addDeclaration(Node declarationNode) throws SemanticException {
-        final String symbolId = String.valueOf(declarationNode.jjtGetChild(1).jjtGetValue());
+    void addDeclaration(NodeTable nodes, TypeTable types, int declarationNode) throws SemanticException {
+        final int idNode = nodes.getChild(declarationNode, 1);
+        final String symbolId = String.valueOf(nodes.getValue(idNode));
 
         if (symbols.containsKey(symbolId))
-            throw new SemanticException(declarationNode.jjtGetChild(1), "Invalid Identifier (Conflicting Identifiers)");
+            throw new SemanticException(nodes, idNode, "Invalid Identifier (Conflicting Identifiers)");
 
-        symbols.put(symbolId, new Type(declarationNode.jjtGetChild(0)));
+        add(symbolId, types.of(nodes, nodes.getChild(declarationNode, 0)));
     }
 
     /**
-     * Checks if the table contains a Symbol with the given Identifier
-     *
-     * @param idNode AST Node containing the Identifier
+     * Adds a Symbol to the table, with the next index of its scope
      *
-     * @return Boolean reprsenting whether the Identifier already exists or not on this table
+     * @param id Identifier of the Symbol
+     * @param type Declared Type of the Symbol
      */
-    boolean containsId(Node idNode) {
-        return symbols.containsKey(String.valueOf(idNode.jjtGetValue()));
+    void add(String id, Type type) {
+        symbols.put(id, new Symbol(kind, symbols.size(), id, type));
     }
 
     /**
-     * Retrieves a Symbol Type given its Identifier
+     * Checks if the table contains a Symbol with the given Identifier
      *
-     * @param idNode AST Node containing the Identifier
+     * @param id Identifier of the Symbol
      *
-     * @return Type of that Symbol
+     * @return Boolean reprsenting whether the Identifier already exists or not on this table
      */
-    Type getId(Node idNode) {
-        return symbols.get(String.valueOf(idNode.jjtGetValue()));
+    boolean containsId(String id) {
+        return symbols.containsKey(id);
     }
 
     /**
-     * Sets the Type of a given Symbol
+     * Retrieves a Symbol given its Identifier
+     *
+     * @param id Identifier of the Symbol
      *
-     * @param idNode AST Node containing the Identifier
-     * @param newType New Type of that Symbol
+     * @return Record of that Symbol, null if it is not on this table
      */
-    void setId(Node idNode, Type newType) {
-        symbols.put(String.valueOf(idNode.jjtGetValue()), newType);
+    Symbol getSymbol(String id) {
+        return symbols.get(id);
     }
 
-    public Set<Map.Entry<String, Type>> entrySet() {
-        return symbols.entrySet();
+    public Collection<Symbol> getSymbols() {
+        return symbols.values();
     }
 
     /**
@@ -81,11 +86,11 @@ public class SymbolTable {
     public String toString() {
         final StringBuilder sb = new StringBuilder();
 
-        for (Map.Entry<String, Type> symbol : symbols.entrySet()) {
+        for (Symbol symbol : symbols.values()) {
             sb.append("   - ")
-                    .append(symbol.getValue().toString())
+                    .append(symbol.getType().toString())
                     .append(" ")
-                    .append(symbol.getKey())
+                    .append(symbol.getName())
                     .append(System.lineSeparator());
         }
 
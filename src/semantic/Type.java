@@ -1,18 +1,17 @@
 package semantic;
 
-import parser.Node;
 import parser.ParserTreeConstants;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Class representing a Type
  *
  * It provides an abstraction of the Parser Constants, used during the Semantic Analysis and the
  * Intermediate Code Generation
  *
+ * Types are canonical: the ones that don't depend on a class are singletons and the class ones are kept unique by the
+ * TypeTable of the IR, so they are compared by identity and their descriptors are only built once.
+ *
+ * @see TypeTable
  * @see FunctionTable
  * @see IntermediateCode
  * @see ParserTreeConstants
@@ -24,76 +23,92 @@ public class Type {
     private static final int VOID = -4;
     private static final int UNKNOWN = -5;
 
-    private final static Map<Integer, String> stringMap;
-
-    static {
-        Map<Integer, String> tempMap = new HashMap<>();
-
-        tempMap.put(ParserTreeConstants.JJTINT, "int");
-        tempMap.put(ParserTreeConstants.JJTBOOLEAN, "boolean");
-        tempMap.put(STRING, "String");
-        tempMap.put(ParserTreeConstants.JJTINTARRAY, "int[]");
-        tempMap.put(STRINGARRAY, "String[]");
-        tempMap.put(VOID, "void");
+    // Canonical instances of the types that don't depend on a class
+    private static final Type INT_TYPE = new Type(ParserTreeConstants.JJTINT, "int");
+    private static final Type BOOLEAN_TYPE = new Type(ParserTreeConstants.JJTBOOLEAN, "boolean");
+    private static final Type STRING_TYPE = new Type(STRING, "String");
+    private static final Type INTARRAY_TYPE = new Type(ParserTreeConstants.JJTINTARRAY, "int[]");
+    private static final Type STRINGARRAY_TYPE = new Type(STRINGARRAY, "String[]");
+    private static final Type VOID_TYPE = new Type(VOID, "void");
+    private static final Type UNKNOWN_TYPE = new Type(UNKNOWN, "unknown");
 
-        stringMap = Collections.unmodifiableMap(tempMap);
-    }
     private final int typeId;
-    private String typeName;
+    private final String typeName;
+    private final String descriptor;
 
     // Method Factories for Types
     static Type INT() {
-        return new Type(ParserTreeConstants.JJTINT);
+        return INT_TYPE;
     }
 
     static Type BOOLEAN() {
-        return new Type(ParserTreeConstants.JJTBOOLEAN);
+        return BOOLEAN_TYPE;
     }
 
-    static Type STRING() { return new Type(STRING); }
+    static Type STRING() { return STRING_TYPE; }
 
     static Type INTARRAY() {
-        return new Type(ParserTreeConstants.JJTINTARRAY);
+        return INTARRAY_TYPE;
     }
 
     static Type STRINGARRAY() {
-        return new Type(STRINGARRAY);
-    }
-
-    static Type ID(String classIdentifier) {
-        return new Type(ParserTreeConstants.JJTID, classIdentifier);
-    }
-
-    static Type CLASS(String classIdentifier) {
-        return new Type(CLASS, classIdentifier);
+        return STRINGARRAY_TYPE;
     }
 
     static Type VOID() {
-        return new Type(VOID);
+        return VOID_TYPE;
     }
 
     static Type UNKNOWN() {
-        return new Type(UNKNOWN, "unknown");
+        return UNKNOWN_TYPE;
     }
 
-    private Type(int typeId) {
-        this.typeId = typeId;
-        this.typeName = stringMap.get(typeId);
+    /**
+     * Creates the Type of an instance of a class (only to be used by the TypeTable, which keeps it unique)
+     *
+     * @param classIdentifier Identifier of the class
+     *
+     * @return New Type
+     */
+    static Type newId(String classIdentifier) {
+        return new Type(ParserTreeConstants.JJTID, classIdentifier);
+    }
+
+    /**
+     * Creates the Type of a class itself, used on static invocations (only to be used by the TypeTable, which keeps
+     * it unique)
+     *
+     * @param classIdentifier Identifier of the class
+     *
+     * @return New Type
+     */
+    static Type newClass(String classIdentifier) {
+        return new Type(CLASS, classIdentifier);
     }
 
     private Type(int typeId, String typeName) {
         this.typeId = typeId;
         this.typeName = typeName;
+        this.descriptor = descriptor(typeId, typeName);
     }
 
-    /**
-     * Creates a Type from a node representing a Type
-     *
-     * @param typeNode AST Node representing a Type
-     */
-    Type(Node typeNode) {
-        typeId = typeNode.getId();
-        typeName = stringMap.containsKey(typeId) ? stringMap.get(typeId) : String.valueOf(typeNode.jjtGetValue());
+    private static String descriptor(int typeId, String typeName) {
+        switch(typeId) {
+            case ParserTreeConstants.JJTINT:
+                return "I";
+            case ParserTreeConstants.JJTBOOLEAN:
+                return "Z";
+            case ParserTreeConstants.JJTINTARRAY:
+                return "[I";
+            case ParserTreeConstants.JJTID:
+                return "L" + typeName + ";";
+            case STRING:
+                return "Ljava/lang/String;";
+            case VOID:
+                return "V";
+            default:
+                return "";
+        }
     }
 
     boolean isInt() {
@@ -129,31 +144,7 @@ public class Type {
         return typeName;
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-
-        Type type = (Type) o;
-        return typeId == type.typeId && typeName.equals(type.typeName);
-    }
-
     public String toDescriptor() {
-        switch(typeId) {
-            case ParserTreeConstants.JJTINT:
-                return "I";
-            case ParserTreeConstants.JJTBOOLEAN:
-                return "Z";
-            case ParserTreeConstants.JJTINTARRAY:
-                return "[I";
-            case ParserTreeConstants.JJTID:
-                return "L" + typeName + ";";
-            case STRING:
-                return "Ljava/lang/String;";
-            case VOID:
-                return "V";
-            default:
-                return "";
-        }
+        return descriptor;
     }
 }
@@ -0,0 +1,56 @@
+package semantic;
+
+import parser.NodeTable;
+import parser.ParserTreeConstants;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of the canonical Types of a class
+ *
+ * Keeps a single Type per class identifier (one for its instances and one for the class itself), so every Type used
+ * in the IR of a class can be compared by identity. Types are created atomically, as methods are analysed in parallel.
+ *
+ * @see Type
+ */
+class TypeTable {
+    private final ConcurrentHashMap<String, Type> ids = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Type> classes = new ConcurrentHashMap<>();
+
+    /**
+     * @param classIdentifier Identifier of a class
+     *
+     * @return Type of the instances of the class
+     */
+    Type id(String classIdentifier) {
+        return ids.computeIfAbsent(classIdentifier, Type::newId);
+    }
+
+    /**
+     * @param classIdentifier Identifier of a class
+     *
+     * @return Type of the class itself (target of static invocations)
+     */
+    Type classType(String classIdentifier) {
+        return classes.computeIfAbsent(classIdentifier, Type::newClass);
+    }
+
+    /**
+     * @param nodes AST containing the Type
+     * @param typeNode AST Node representing a Type
+     *
+     * @return Type represented by the node
+     */
+    Type of(NodeTable nodes, int typeNode) {
+        switch (nodes.getKind(typeNode)) {
+            case ParserTreeConstants.JJTINT:
+                return Type.INT();
+            case ParserTreeConstants.JJTBOOLEAN:
+                return Type.BOOLEAN();
+            case ParserTreeConstants.JJTINTARRAY:
+                return Type.INTARRAY();
+            default:
+                return id(String.valueOf(nodes.getValue(typeNode)));
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package timing;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records the wall time and the allocated bytes of each phase of a compilation, per method
+ *
+ * Allocated bytes are those of the current thread (ThreadMXBean.getThreadAllocatedBytes), so a measurement must be
+ * started and stopped by the thread performing the phase. As the methods of a file are compiled in parallel, several
+ * threads may record into the same timer. The disabled timer (DISABLED) ignores every measurement.
+ */
+public class PhaseTimer {
+    public static final PhaseTimer DISABLED = new PhaseTimer(false);
+
+    /**
+     * Phases of the compiler, in the order they are performed
+     */
+    public enum Phase {
+        PARSING("Parsing"),
+        SEMANTIC_ANALYSIS("Semantic Analysis"),
+        IR_GENERATION("IR Generation"),
+        SSA("SSA Optimization"),
+        REGISTER_ALLOCATION("Register Allocation"),
+        OPTIMIZATION("Optimization"),
+        EMISSION("Emission");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Start of a measurement
+     */
+    public static class Mark {
+        private final long time;
+        private final long allocatedBytes;
+
+        private Mark(long time, long allocatedBytes) {
+            this.time = time;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    private static class Entry {
+        private final Phase phase;
+        private final String method;
+        private long time = 0;
+        private long allocatedBytes = 0;
+
+        private Entry(Phase phase, String method) {
+            this.phase = phase;
+            this.method = method;
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean threadBean = threadBean();
+
+    private final boolean enabled;
+    private final List<Entry> entries = new ArrayList<>();
+    private final HashMap<String, Entry> entryMap = new HashMap<>();
+
+    public PhaseTimer() {
+        this(true);
+    }
+
+    private PhaseTimer(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Whether measurements are recorded (every timer but the disabled one)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))     return null;
+
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        if (!allocationBean.isThreadAllocatedMemorySupported())     return null;
+
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        return allocationBean;
+    }
+
+    private static long allocatedBytes() {
+        return threadBean != null ? threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    /**
+     * Starts a measurement
+     *
+     * @return Start of the measurement, to be given to stop (null if the timer is disabled)
+     */
+    public Mark start() {
+        return enabled ? new Mark(System.nanoTime(), allocatedBytes()) : null;
+    }
+
+    /**
+     * Ends a measurement, adding it to the ones of the same phase and method
+     *
+     * @param mark Start of the measurement
+     * @param phase Phase that was measured
+     * @param method Method the phase was performed on, null for the whole class
+     */
+    public synchronized void stop(Mark mark, Phase phase, String method) {
+        if (!enabled)   return;
+
+        final long time = System.nanoTime() - mark.time;
+        final long allocatedBytes = allocatedBytes() - mark.allocatedBytes;
+
+        final Entry entry = entryMap.computeIfAbsent(phase.ordinal() + ":" + method, key -> {
+            final Entry newEntry = new Entry(phase, method);
+            entries.add(newEntry);
+            return newEntry;
+        });
+
+        entry.time += time;
+        entry.allocatedBytes += allocatedBytes;
+    }
+
+    /**
+     * @return Human readable table of the measurements, grouped by phase, with the total of each phase
+     */
+    public synchronized String toTable() {
+        final StringBuilder sb = new StringBuilder();
+        final String format = "%-20s %-40s %12s %16s%n";
+
+        sb.append(String.format(Locale.ROOT, format, "Phase", "Method", "Time (ms)", "Allocated (KB)"));
+
+        long totalTime = 0, totalBytes = 0;
+        for (Phase phase : Phase.values()) {
+            long phaseTime = 0, phaseBytes = 0;
+            int count = 0;
+
+            for (Entry entry : entries) {
+                if (entry.phase != phase)   continue;
+
+                sb.append(String.format(Locale.ROOT, format, phase, entry.method != null ? entry.method : "-",
+                        milliseconds(entry.time), kilobytes(entry.allocatedBytes)));
+
+                phaseTime += entry.time;
+                phaseBytes += entry.allocatedBytes;
+                count++;
+            }
+
+            if (count > 1)
+                sb.append(String.format(Locale.ROOT, format, phase, "(total)",
+                        milliseconds(phaseTime), kilobytes(phaseBytes)));
+
+            totalTime += phaseTime;
+            totalBytes += phaseBytes;
+        }
+
+        sb.append(String.format(Locale.ROOT, format, "Total", "", milliseconds(totalTime), kilobytes(totalBytes)));
+
+        return sb.toString();
+    }
+
+    /**
+     * @param file Name of the compiled file
+     *
+     * @return JSON document with every measurement (times in nanoseconds, allocations in bytes)
+     */
+    public synchronized String toJson(String file) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append("{").append(System.lineSeparator())
+                .append("  \"file\": ").append(jsonString(file)).append(",").append(System.lineSeparator())
+                .append("  \"phases\": [");
+
+        for (int i = 0; i < entries.size(); i++) {
+            final Entry entry = entries.get(i);
+
+            sb.append(i == 0 ? "" : ",").append(System.lineSeparator())
+                    .append("    {\"phase\": ").append(jsonString(entry.phase.toString()))
+                    .append(", \"method\": ").append(entry.method != null ? jsonString(entry.method) : "null")
+                    .append(", \"timeNanos\": ").append(entry.time)
+                    .append(", \"allocatedBytes\": ").append(entry.allocatedBytes).append("}");
+        }
+
+        sb.append(System.lineSeparator()).append("  ]").append(System.lineSeparator())
+                .append("}").append(System.lineSeparator());
+
+        return sb.toString();
+    }
+
+    private static String milliseconds(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String kilobytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f", bytes / 1024.0);
+    }
+
+    private static String jsonString(String value) {
+        final StringBuilder sb = new StringBuilder("\"");
+
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\')  sb.append('\\').append(c);
+            else if (c < 0x20)          sb.append(String.format("\\u%04x", (int) c));
+            else                        sb.append(c);
+        }
+
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,4 @@
+javac -cp "./out/production/Project" -d ./out/test ./test/src/testing/*.java ./test/src/generation/*.java ./test/src/semantic/*.java
+java -cp "./out/test;./out/production/Project;." generation.ClassFileWriterTest
+java -cp "./out/test;./out/production/Project;." generation.MethodCacheTest
+java -cp "./out/test;./out/production/Project;." semantic.OptimizationTest
\ No newline at end of file
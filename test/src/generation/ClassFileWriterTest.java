@@ -0,0 +1,156 @@
+package generation;
+
+import compiler.CompilationResult;
+import compiler.Diagnostic;
+import compiler.Options;
+import compiler.SourceCompiler;
+import testing.Programs;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.spi.ToolProvider;
+
+import static testing.Programs.check;
+
+/**
+ * Checks of the class files written by the ClassFileWriter, on generated programs
+ *
+ * - A loop whose body takes more than 32767 bytes uses goto_w, and the class runs with the same output
+ * - A loop that fits in 16 bit branch offsets doesn't use goto_w
+ * - A method whose code takes more than 65535 bytes is reported as a generation error, not written
+ * - A class whose constant pool takes more than 65534 entries, or with a name whose UTF-8 encoding takes more than
+ *   65535 bytes, is reported as a generation error, while smaller ones are written
+ */
+public class ClassFileWriterTest {
+    public static void main(String[] args) throws Exception {
+        longBranches();
+        shortBranches();
+        oversizedMethod();
+        constantPool();
+        longNames();
+
+        System.out.println("ClassFileWriterTest: ok");
+    }
+
+    private static void longBranches() throws Exception {
+        for (Options options : new Options[]{Options.DEFAULT, new Options(0, true, false)}) {
+            final CompilationResult result = SourceCompiler.compile(loop("Wide", 3500), options);
+            check(result.isSuccess(), "Wide was not compiled: " + result.getDiagnostics());
+            check(disassemble(result).contains("goto_w"), "Wide doesn't use goto_w");
+        }
+
+        final Path file = Programs.write("Wide", loop("Wide", 3500));
+        for (String[] options : new String[][]{{}, {"-o"}})
+            check(Programs.run(file, "", options).trim().equals(String.valueOf(sum(3500))), "Wide printed a wrong sum");
+    }
+
+    private static void shortBranches() throws Exception {
+        final CompilationResult result = SourceCompiler.compile(loop("Narrow", 100), Options.DEFAULT);
+        check(result.isSuccess(), "Narrow was not compiled: " + result.getDiagnostics());
+        check(!disassemble(result).contains("goto_w"), "Narrow uses goto_w");
+    }
+
+    private static void oversizedMethod() {
+        checkGenerationError(SourceCompiler.compile(loop("Huge", 9000), Options.DEFAULT), "Method main is too large");
+    }
+
+    private static void constantPool() {
+        // Each method loads 11000 distinct constants, other than the entries of the class itself
+        final CompilationResult fits = SourceCompiler.compile(constants(5), Options.DEFAULT);
+        check(fits.isSuccess(), "Constants of 5 methods were not compiled: " + fits.getDiagnostics());
+
+        final CompilationResult overflows = SourceCompiler.compile(constants(6), Options.DEFAULT);
+        checkGenerationError(overflows, "Class Many has too many constants");
+    }
+
+    private static void longNames() {
+        final CompilationResult fits = SourceCompiler.compile(field(65535), Options.DEFAULT);
+        check(fits.isSuccess(), "A field name of 65535 bytes was not compiled: " + fits.getDiagnostics());
+
+        checkGenerationError(SourceCompiler.compile(field(65536), Options.DEFAULT), "Constant \"fxxx");
+    }
+
+    private static void checkGenerationError(CompilationResult result, String message) {
+        check(!result.isSuccess(), "The class was compiled, expecting: " + message);
+        check(result.getDiagnostics().size() == 1, "The class has " + result.getDiagnostics().size() + " errors");
+
+        final Diagnostic error = result.getDiagnostics().get(0);
+        check(error.getKind() == Diagnostic.Kind.GENERATION, "The class failed with a " + error.getKind() + " error");
+        check(error.getMessage().startsWith(message), "The class failed with: " + error.getMessage());
+    }
+
+    /**
+     * @param className Name of the class of the program
+     * @param statements Number of statements of the body of the loop
+     *
+     * @return Program summing i * k for i from 0 to 2 and k from 1 to the number of statements, one k per statement
+     */
+    private static String loop(String className, int statements) {
+        final StringBuilder source = new StringBuilder();
+        source.append("class ").append(className).append(" {\n")
+                .append("    public static void main(String[] args) {\n")
+                .append("        int i;\n        int s;\n        i = 0;\n        s = 0;\n")
+                .append("        while (i < 3) {\n");
+
+        for (int k = 1; k <= statements; k++)
+            source.append("            s = s + i * ").append(k).append(";\n");
+
+        source.append("            i = i + 1;\n        }\n        io.println(s);\n    }\n}\n");
+        return source.toString();
+    }
+
+    /**
+     * @param methods Number of methods
+     *
+     * @return Class whose methods each assign 11000 distinct constants, too large for sipush, to a local variable
+     */
+    private static String constants(int methods) {
+        final StringBuilder source = new StringBuilder("class Many {\n");
+
+        for (int m = 0; m < methods; m++) {
+            source.append("    public int m").append(m).append("() {\n        int a;\n        a = 0;\n");
+            for (int k = 0; k < 11000; k++)
+                source.append("        a = ").append(100000 + m * 11000 + k).append(";\n");
+            source.append("        return a;\n    }\n");
+        }
+
+        source.append("    public static void main(String[] args) {\n        io.println(1);\n    }\n}\n");
+        return source.toString();
+    }
+
+    /**
+     * @param length Length of the name of the field
+     *
+     * @return Class with a field of the given name length
+     */
+    private static String field(int length) {
+        return "class LongName {\n    int f" + "x".repeat(length - 1) + ";\n"
+                + "    public static void main(String[] args) {\n        io.println(1);\n    }\n}\n";
+    }
+
+    private static int sum(int statements) {
+        return 3 * (statements * (statements + 1) / 2);
+    }
+
+    /**
+     * @param result Successful compilation
+     *
+     * @return Disassembled code of the class, by javap
+     */
+    private static String disassemble(CompilationResult result) throws Exception {
+        final Path file = Files.createTempFile(result.getClassName(), ".class");
+        try {
+            Files.write(file, result.getClassFile());
+
+            final StringWriter output = new StringWriter();
+            final ToolProvider javap = ToolProvider.findFirst("javap").orElseThrow();
+            javap.run(new PrintWriter(output), new PrintWriter(output), "-c", file.toString());
+
+            return output.toString();
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
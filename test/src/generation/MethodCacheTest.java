@@ -0,0 +1,154 @@
+package generation;
+
+import parser.NodeTable;
+import parser.Parser;
+import semantic.IntermediateRepresentation;
+import semantic.SemanticException;
+import timing.PhaseTimer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static testing.Programs.check;
+
+/**
+ * Checks of the round trip of the code of the methods through the MethodCache, on the files/*.jmm test files
+ *
+ * For each file and set of options, the class is generated without a cache, then twice with an empty one (storing
+ * every method, then loading every method), and then once more after an entry is truncated. Every generation must
+ * give the same class file, assembly and messages, and every stored entry must load back but the truncated one.
+ */
+public class MethodCacheTest {
+    private static final String[][] OPTIONS = {{}, {"-o"}, {"-O2"}, {"-r=10", "-o"}};
+
+    public static void main(String[] args) throws Exception {
+        final List<Path> files;
+        try (Stream<Path> list = Files.list(Paths.get(System.getProperty("jmm.corpus", "files")))) {
+            files = list.filter(file -> file.toString().endsWith(".jmm")).sorted().collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            for (String[] options : OPTIONS) {
+                final Generation uncached = generate(file, options, null);
+                if (uncached == null)   continue;
+
+                final Path directory = Files.createTempDirectory("jmmcache");
+                try {
+                    roundTrip(file, options, uncached, new MethodCache(directory), directory);
+                } finally {
+                    delete(directory);
+                }
+            }
+        }
+
+        System.out.println("MethodCacheTest: ok");
+    }
+
+    private static void roundTrip(Path file, String[] options, Generation uncached, MethodCache cache, Path directory)
+            throws Exception {
+        final String name = file.getFileName() + " " + Arrays.toString(options);
+
+        check(uncached.equals(generate(file, options, cache)), name + " differs when its methods are stored");
+
+        final List<Path> entries;
+        try (Stream<Path> list = Files.list(directory)) {
+            entries = list.sorted().collect(Collectors.toList());
+        }
+        check(!entries.isEmpty(), name + " stored no methods");
+
+        for (Path entry : entries) {
+            check(!entry.toString().endsWith(".tmp"), name + " left a temporary entry");
+            check(cache.load(entry.getFileName().toString(), "method") != null, name + " stored an unreadable entry");
+        }
+
+        check(uncached.equals(generate(file, options, cache)), name + " differs when its methods are loaded");
+
+        // A truncated entry is treated as missing, so its method is generated (and stored) again
+        final Path entry = entries.get(0);
+        final byte[] bytes = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(bytes, bytes.length / 2));
+
+        check(cache.load(entry.getFileName().toString(), "method") == null, name + " loaded a truncated entry");
+        check(uncached.equals(generate(file, options, cache)), name + " differs with a truncated entry");
+        check(cache.load(entry.getFileName().toString(), "method") != null, name + " didn't store the entry again");
+    }
+
+    /**
+     * @param file Source file
+     * @param options Options of the compiler (-r, -o, -O2)
+     * @param cache Cache of the code of the methods, null if not cached
+     *
+     * @return Generated class, null if it could not be generated
+     */
+    private static Generation generate(Path file, String[] options, MethodCache cache) throws Exception {
+        final List<String> optionList = Arrays.asList(options);
+        final boolean ssa = optionList.contains("-O2");
+        final boolean optimize = ssa || optionList.contains("-o");
+        final int maxRegisters = optionList.stream().filter(option -> option.startsWith("-r="))
+                .mapToInt(option -> Integer.parseInt(option.substring(3))).findFirst().orElse(0);
+
+        final NodeTable nodes = Parser.parse(file.toString(), new PrintStream(OutputStream.nullOutputStream()));
+        if (nodes == null)  return null;
+
+        final ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        final StringWriter assembly = new StringWriter();
+        try {
+            final IntermediateRepresentation ir = new IntermediateRepresentation(nodes, optimize, ssa,
+                    PhaseTimer.DISABLED);
+            final CodeGenerator codeGenerator = new CodeGenerator(ir, null, maxRegisters, optimize, true,
+                    new PrintStream(messages), PhaseTimer.DISABLED, cache);
+
+            final byte[] classFile = codeGenerator.generateClass(assembly);
+            return new Generation(classFile, assembly.toString(), messages.toString());
+        } catch (SemanticException | AllocationException | GenerationException e) {
+            return null;
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+                Files.delete(path);
+        }
+    }
+
+    /**
+     * Outcome of a generation: class file, assembly and messages
+     */
+    private static class Generation {
+        private final byte[] classFile;
+        private final String assembly;
+        private final String messages;
+
+        Generation(byte[] classFile, String assembly, String messages) {
+            this.classFile = classFile;
+            this.assembly = assembly;
+            this.messages = messages;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Generation))     return false;
+
+            final Generation generation = (Generation) other;
+            return Arrays.equals(classFile, generation.classFile) && assembly.equals(generation.assembly)
+                    && messages.equals(generation.messages);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(classFile);
+        }
+    }
+}
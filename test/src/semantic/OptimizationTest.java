@@ -0,0 +1,71 @@
+package semantic;
+
+import compiler.Options;
+import compiler.SourceCompiler;
+import testing.Programs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static testing.Programs.check;
+
+/**
+ * Differential checks of the optimizations, on the files/*.jmm test files
+ *
+ * Each file that compiles is run unoptimized, and then with each set of optimization options, which must print the
+ * same output. Lazysort and MonteCarloPi are left out, since their output is random.
+ *
+ * Each file is also compiled with -o and the fewest local variables it fits in (the smallest -r), and then with -O2 and
+ * the same -r, which must compile too (falling back to less optimized code where needed) and print the same output.
+ */
+public class OptimizationTest {
+    private static final List<String> RANDOM = Arrays.asList("Lazysort.jmm", "MonteCarloPi.jmm");
+    private static final String INPUT = "5\n3\n7\n1\n";
+    private static final String[][] OPTIONS = {{"-o"}, {"-O2"}, {"-O2", "-r=10"}};
+    private static final int MAX_REGISTERS = 255;
+
+    public static void main(String[] args) throws Exception {
+        final List<Path> files;
+        try (Stream<Path> list = Files.list(Paths.get(System.getProperty("jmm.corpus", "files")))) {
+            files = list.filter(file -> file.toString().endsWith(".jmm")).sorted().collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            final String source = Files.readString(file);
+            if (!SourceCompiler.compile(source, Options.DEFAULT).isSuccess())   continue;
+
+            final boolean random = RANDOM.contains(file.getFileName().toString());
+            final String expected = random ? null : Programs.run(file, INPUT);
+
+            if (!random) {
+                for (String[] options : OPTIONS) {
+                    check(Programs.run(file, INPUT, options).equals(expected),
+                            file.getFileName() + " prints a different output with " + Arrays.toString(options));
+                }
+            }
+
+            // Fewest local variables -o fits in, which -O2 must fit in as well
+            int registers = 1;
+            while (registers < MAX_REGISTERS && !compiles(source, registers, false))    registers++;
+
+            check(compiles(source, registers, true), file.getFileName() + " doesn't compile with -O2 -r=" + registers
+                    + ", but does with -o");
+
+            if (!random) {
+                check(Programs.run(file, INPUT, "-O2", "-r=" + registers).equals(expected),
+                        file.getFileName() + " prints a different output with -O2 -r=" + registers);
+            }
+        }
+
+        System.out.println("OptimizationTest: ok");
+    }
+
+    private static boolean compiles(String source, int maxRegisters, boolean ssa) {
+        return SourceCompiler.compile(source, new Options(maxRegisters, true, ssa, false)).isSuccess();
+    }
+}
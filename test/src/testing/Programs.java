@@ -0,0 +1,103 @@
+package testing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs of Java-- programs for the tests, each one compiled and run by the compiler (option --run) in its own JVM
+ *
+ * The JVM is started with the classpath of the tests, which must hold the compiler and the runtime classes (io, ioPlus
+ * and MathUtils). Programs that don't end by themselves (waiting for more input, or printing forever) are stopped
+ * after a timeout or once they have printed enough output, so only the beginning of their output is compared.
+ */
+public final class Programs {
+    private static final int OUTPUT_LIMIT = 4000;
+    private static final int TIMEOUT_SECONDS = 10;
+
+    private Programs() {
+    }
+
+    /**
+     * @param file Path of the source of the program
+     * @param input Contents of the standard input of the program
+     * @param options Options of the compiler (-r, -o, -O2)
+     *
+     * @return Beginning of the standard output of the program, empty if it could not be compiled
+     *
+     * @throws IOException If the JVM of the program could not be started
+     * @throws InterruptedException If interrupted while waiting for the program
+     */
+    public static String run(Path file, String input, String... options) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("JMMCompiler");
+        command.addAll(Arrays.asList(options));
+        command.add("--run");
+        command.add(file.toString());
+
+        final Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+
+        final Thread timeout = new Thread(() -> {
+            try {
+                if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS))    process.destroyForcibly();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        timeout.setDaemon(true);
+        timeout.start();
+
+        try (OutputStream in = process.getOutputStream()) {
+            in.write(input.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ignored) {
+            // The program ended (or failed to be compiled) without reading all of its input
+        }
+
+        final byte[] output = process.getInputStream().readNBytes(OUTPUT_LIMIT);
+        process.destroyForcibly();
+        process.waitFor();
+
+        return new String(output, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a source to a temporary directory, so it can be run
+     *
+     * @param className Name of the class of the source, naming its file
+     * @param source Contents of the source
+     *
+     * @return Path of the written file
+     *
+     * @throws IOException If the file could not be written
+     */
+    public static Path write(String className, String source) throws IOException {
+        final Path directory = Files.createTempDirectory("jmm");
+        final Path file = directory.resolve(className + ".jmm");
+
+        // Deleted in the reverse order, so the directory is empty by then
+        directory.toFile().deleteOnExit();
+        file.toFile().deleteOnExit();
+        Files.writeString(file, source);
+
+        return file;
+    }
+
+    /**
+     * @param condition Condition checked
+     * @param message Description of the failure
+     *
+     * @throws AssertionError If the condition doesn't hold
+     */
+    public static void check(boolean condition, String message) {
+        if (!condition)     throw new AssertionError(message);
+    }
+}